@@ -1,4 +1,4 @@
-export type SplitType = "EQUAL" | "EXACT" | "PERCENTAGE" | "SHARES";
+export type SplitType = "EQUAL" | "EXACT" | "PERCENTAGE" | "SHARES" | "ITEMIZED";
 
 export type ExpenseCategory =
   | "FOOD_AND_DRINK"
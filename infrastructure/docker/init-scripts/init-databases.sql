@@ -142,7 +142,7 @@ CREATE TABLE expenses (
     currency CHAR(3) DEFAULT 'USD',
     category_id UUID REFERENCES categories(id),
     paid_by UUID NOT NULL,
-    split_type VARCHAR(20) DEFAULT 'EQUAL' CHECK (split_type IN ('EQUAL', 'PERCENTAGE', 'SHARES', 'EXACT')),
+    split_type VARCHAR(20) DEFAULT 'EQUAL' CHECK (split_type IN ('EQUAL', 'PERCENTAGE', 'SHARES', 'EXACT', 'ITEMIZED')),
     expense_date DATE NOT NULL DEFAULT CURRENT_DATE,
     receipt_url VARCHAR(500),
     notes TEXT,
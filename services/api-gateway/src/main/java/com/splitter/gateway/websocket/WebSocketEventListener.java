@@ -73,7 +73,7 @@ public class WebSocketEventListener {
     }
 
     @KafkaListener(
-            topics = "balance-events",
+            topics = "balance.events",
             groupId = "gateway-websocket-group",
             containerFactory = "kafkaListenerContainerFactory"
     )
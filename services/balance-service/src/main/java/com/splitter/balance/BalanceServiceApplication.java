@@ -2,6 +2,7 @@ package com.splitter.balance;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Balance Service Application.
@@ -9,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * Handles balance calculations, debt tracking, and debt simplification.
  */
 @SpringBootApplication
+@EnableScheduling
 public class BalanceServiceApplication {
 
     public static void main(String[] args) {
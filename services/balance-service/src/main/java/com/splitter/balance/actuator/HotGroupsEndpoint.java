@@ -0,0 +1,36 @@
+package com.splitter.balance.actuator;
+
+import com.splitter.balance.service.HotGroupTracker;
+import com.splitter.balance.service.ResidentGroups;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Actuator endpoint listing the most active groups and whether their balances are held in memory.
+ */
+@Component
+@Endpoint(id = "hotgroups")
+@RequiredArgsConstructor
+public class HotGroupsEndpoint {
+
+    private final HotGroupTracker hotGroups;
+    private final ResidentGroups residentGroups;
+
+    @ReadOperation
+    public List<HotGroupEntry> topGroups() {
+        return hotGroups.topGroups().stream()
+                .map(group -> new HotGroupEntry(group.groupId(), group.estimate(), group.hot(),
+                        residentGroups.contains(group.groupId())))
+                .toList();
+    }
+
+    /**
+     * A tracked group, its estimated recent traffic and whether it is resident.
+     */
+    public record HotGroupEntry(UUID groupId, long estimate, boolean hot, boolean resident) {}
+}
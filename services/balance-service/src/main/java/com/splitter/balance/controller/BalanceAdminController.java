@@ -0,0 +1,97 @@
+package com.splitter.balance.controller;
+
+import com.splitter.balance.dto.BalanceCheckpointDto;
+import com.splitter.balance.dto.BalanceRebuildResult;
+import com.splitter.balance.dto.BalanceSnapshotDto;
+import com.splitter.balance.dto.ReconciliationReport;
+import com.splitter.balance.exception.AdminAccessRequiredException;
+import com.splitter.balance.model.BalanceCheckpoint;
+import com.splitter.balance.service.BalanceCheckpointService;
+import com.splitter.balance.service.BalanceReconciliationService;
+import com.splitter.balance.service.BalanceSnapshotService;
+import com.splitter.common.security.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * REST controller for balance maintenance operations. Every operation requires the ADMIN role.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/balances")
+@RequiredArgsConstructor
+@Tag(name = "Balance Admin", description = "Balance snapshot, checkpoint, rebuild and reconciliation operations")
+public class BalanceAdminController {
+
+    private final BalanceSnapshotService snapshotService;
+    private final BalanceCheckpointService checkpointService;
+    private final BalanceReconciliationService reconciliationService;
+
+    @PostMapping("/group/{groupId}/snapshot")
+    @Operation(summary = "Snapshot a group's balances up to the latest settled transaction")
+    public Mono<BalanceSnapshotDto> snapshotGroup(@PathVariable UUID groupId) {
+        return asAdmin(() -> {
+            log.info("Snapshot requested for group {}", groupId);
+            return snapshotService.snapshotGroup(groupId);
+        });
+    }
+
+    @PostMapping("/group/{groupId}/rebuild")
+    @Operation(summary = "Rebuild a group's balances from its latest snapshot and later transactions")
+    public Mono<BalanceRebuildResult> rebuildGroup(@PathVariable UUID groupId) {
+        return asAdmin(() -> {
+            log.info("Rebuild requested for group {}", groupId);
+            return snapshotService.rebuildGroup(groupId);
+        });
+    }
+
+    @PostMapping("/group/{groupId}/checkpoint")
+    @Operation(summary = "Create a group's daily or monthly balance checkpoint at a UTC boundary")
+    public Mono<BalanceCheckpointDto> checkpointGroup(
+            @PathVariable UUID groupId,
+            @RequestParam(defaultValue = "DAILY") BalanceCheckpoint.Period period,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant asOf) {
+        return asAdmin(() -> {
+            log.info("{} checkpoint at {} requested for group {}", period, asOf, groupId);
+            return checkpointService.checkpointGroup(groupId, period, asOf);
+        });
+    }
+
+    @PostMapping("/reconciliation")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Start reconciling all balances against expenses and settlements")
+    public Mono<ReconciliationReport> startReconciliation(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(defaultValue = "false") boolean repair) {
+        return asAdmin(() -> {
+            log.info("Reconciliation requested by {} (repair: {})", jwt.getSubject(), repair);
+            return reconciliationService.start(repair);
+        });
+    }
+
+    @GetMapping("/reconciliation/{runId}")
+    @Operation(summary = "Get the progress and findings of a reconciliation run")
+    public Mono<ReconciliationReport> getReconciliation(@PathVariable UUID runId) {
+        return asAdmin(() -> reconciliationService.getReport(runId));
+    }
+
+    /**
+     * Run an operation only for admins; nothing is started for anyone else.
+     */
+    private <T> Mono<T> asAdmin(Supplier<Mono<T>> operation) {
+        return SecurityUtils.hasRole("ADMIN")
+                .flatMap(admin -> admin ? Mono.defer(operation) : Mono.error(new AdminAccessRequiredException()));
+    }
+}
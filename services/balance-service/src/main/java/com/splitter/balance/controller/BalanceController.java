@@ -1,18 +1,27 @@
 package com.splitter.balance.controller;
 
 import com.splitter.balance.dto.BalanceDto;
+import com.splitter.balance.dto.BalanceTransactionDto;
 import com.splitter.balance.dto.GroupBalanceSummary;
+import com.splitter.balance.dto.GroupBalancesAsOf;
+import com.splitter.balance.dto.UserBalanceSummary;
+import com.splitter.balance.service.BalanceCheckpointService;
 import com.splitter.balance.service.BalanceService;
+import com.splitter.balance.service.TransactionHistoryService;
+import com.splitter.common.dto.PagedResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.UUID;
 
 /**
@@ -26,6 +35,8 @@ import java.util.UUID;
 public class BalanceController {
 
     private final BalanceService balanceService;
+    private final TransactionHistoryService historyService;
+    private final BalanceCheckpointService checkpointService;
 
     @GetMapping("/group/{groupId}")
     @Operation(summary = "Get all balances for a group")
@@ -54,6 +65,55 @@ public class BalanceController {
         return balanceService.getBalanceBetween(groupId, userId1, userId2);
     }
 
+    @GetMapping("/group/{groupId}/between/by-currency")
+    @Operation(summary = "Get balance between two users in a group per currency, without conversion")
+    public Flux<BalanceDto> getBalancesBetweenByCurrency(
+            @PathVariable UUID groupId,
+            @RequestParam UUID userId1,
+            @RequestParam UUID userId2) {
+        return balanceService.getBalancesBetweenByCurrency(groupId, userId1, userId2);
+    }
+
+    @GetMapping("/group/{groupId}/as-of")
+    @Operation(summary = "Get a group's balances as they stood at a point in time")
+    public Mono<GroupBalancesAsOf> getGroupBalancesAsOf(
+            @PathVariable UUID groupId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at) {
+        return checkpointService.getGroupBalancesAsOf(groupId, at);
+    }
+
+    @GetMapping("/group/{groupId}/transactions")
+    @Operation(summary = "Get a page of a group's transaction history, newest first")
+    public Mono<PagedResponse<BalanceTransactionDto>> getGroupTransactions(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return historyService.getGroupHistory(groupId, cursor, size);
+    }
+
+    @GetMapping(value = "/group/{groupId}/transactions/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream a group's full transaction history as NDJSON, newest first")
+    public Flux<BalanceTransactionDto> streamGroupTransactions(@PathVariable UUID groupId) {
+        return historyService.streamGroupHistory(groupId);
+    }
+
+    @GetMapping("/user/transactions")
+    @Operation(summary = "Get a page of the current user's transaction history, newest first")
+    public Mono<PagedResponse<BalanceTransactionDto>> getCurrentUserTransactions(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        return historyService.getUserHistory(userId, cursor, size);
+    }
+
+    @GetMapping(value = "/user/transactions/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream the current user's full transaction history as NDJSON, newest first")
+    public Flux<BalanceTransactionDto> streamCurrentUserTransactions(@AuthenticationPrincipal Jwt jwt) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        return historyService.streamUserHistory(userId);
+    }
+
     @GetMapping("/user")
     @Operation(summary = "Get all balances for the current user")
     public Flux<BalanceDto> getCurrentUserBalances(@AuthenticationPrincipal Jwt jwt) {
@@ -61,6 +121,19 @@ public class BalanceController {
         return balanceService.getUserBalances(userId);
     }
 
+    @GetMapping("/user/summary")
+    @Operation(summary = "Get the current user's net position per group and overall")
+    public Mono<UserBalanceSummary> getCurrentUserSummary(@AuthenticationPrincipal Jwt jwt) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        return balanceService.getUserBalanceSummary(userId);
+    }
+
+    @GetMapping("/user/{userId}/summary")
+    @Operation(summary = "Get a user's net position per group and overall")
+    public Mono<UserBalanceSummary> getUserSummary(@PathVariable UUID userId) {
+        return balanceService.getUserBalanceSummary(userId);
+    }
+
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get all balances for a specific user")
     public Flux<BalanceDto> getUserBalances(@PathVariable UUID userId) {
@@ -0,0 +1,19 @@
+package com.splitter.balance.dto;
+
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Balance checkpoint data transfer object.
+ */
+@Builder
+public record BalanceCheckpointDto(
+    UUID id,
+    UUID groupId,
+    String period,
+    Instant asOf,
+    int pairCount,
+    Instant createdAt
+) {}
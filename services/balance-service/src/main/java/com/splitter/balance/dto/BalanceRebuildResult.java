@@ -0,0 +1,19 @@
+package com.splitter.balance.dto;
+
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Outcome of rebuilding a group's balances from its latest snapshot and the transaction log.
+ */
+@Builder
+public record BalanceRebuildResult(
+    UUID groupId,
+    UUID snapshotId,
+    Instant snapshotWatermark,
+    long replayedTransactions,
+    long pairs,
+    long durationMs
+) {}
@@ -0,0 +1,19 @@
+package com.splitter.balance.dto;
+
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Balance snapshot data transfer object.
+ */
+@Builder
+public record BalanceSnapshotDto(
+    UUID id,
+    UUID groupId,
+    Instant lastTransactionAt,
+    UUID lastTransactionId,
+    int pairCount,
+    Instant createdAt
+) {}
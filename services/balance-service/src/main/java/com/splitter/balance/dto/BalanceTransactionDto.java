@@ -0,0 +1,24 @@
+package com.splitter.balance.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Balance transaction data transfer object.
+ */
+@Builder
+public record BalanceTransactionDto(
+    UUID id,
+    UUID groupId,
+    UUID fromUserId,
+    UUID toUserId,
+    BigDecimal amount,
+    String currency,
+    String transactionType,
+    UUID referenceId,
+    String description,
+    Instant createdAt
+) {}
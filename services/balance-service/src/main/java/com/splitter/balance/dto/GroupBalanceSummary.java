@@ -7,7 +7,8 @@ import java.util.List;
 import java.util.UUID;
 
 /**
- * DTO for group balance summary.
+ * DTO for group balance summary. Debts are in the group currency; while an exchange rate
+ * is missing, currency is null and each debt is in its own currency, unconverted.
  */
 @Builder
 public record GroupBalanceSummary(
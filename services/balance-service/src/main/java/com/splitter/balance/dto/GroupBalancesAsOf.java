@@ -0,0 +1,19 @@
+package com.splitter.balance.dto;
+
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A group's balances at a point in time, per user pair and currency.
+ */
+@Builder
+public record GroupBalancesAsOf(
+    UUID groupId,
+    Instant asOf,
+    Instant checkpointAsOf,
+    int replayedTransactions,
+    List<BalanceDto> balances
+) {}
@@ -0,0 +1,45 @@
+package com.splitter.balance.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress and findings of a balance reconciliation run.
+ */
+@Builder
+public record ReconciliationReport(
+    UUID runId,
+    String status,
+    boolean repair,
+    Instant startedAt,
+    Instant finishedAt,
+    int groupsChecked,
+    int groupsMatched,
+    int groupsMismatched,
+    int groupsSkipped,
+    int groupsFailed,
+    int pairsMismatched,
+    int pairsRepaired,
+    boolean discrepanciesTruncated,
+    List<Discrepancy> discrepancies
+) {
+
+    /**
+     * A user pair whose stored balance differs from the one derived from expenses and settlements.
+     * Positive amounts mean fromUserId owes toUserId.
+     */
+    @Builder
+    public record Discrepancy(
+        UUID groupId,
+        UUID fromUserId,
+        UUID toUserId,
+        String currency,
+        BigDecimal expectedAmount,
+        BigDecimal storedAmount,
+        boolean repaired
+    ) {}
+}
@@ -0,0 +1,11 @@
+package com.splitter.balance.exception;
+
+/**
+ * Exception thrown when a non-admin user calls a balance maintenance operation.
+ */
+public class AdminAccessRequiredException extends RuntimeException {
+
+    public AdminAccessRequiredException() {
+        super("Balance maintenance operations require the ADMIN role");
+    }
+}
@@ -0,0 +1,12 @@
+package com.splitter.balance.exception;
+
+/**
+ * Exception thrown when a multi-currency balance cannot be converted because an exchange rate is missing.
+ */
+public class ExchangeRateUnavailableException extends RuntimeException {
+
+    public ExchangeRateUnavailableException(String currency) {
+        super("Exchange rates for converting into " + currency
+                + " are not available yet; use the by-currency balance instead");
+    }
+}
@@ -16,6 +16,32 @@ import reactor.core.publisher.Mono;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(AdminAccessRequiredException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleAdminAccessRequired(
+            AdminAccessRequiredException ex, ServerWebExchange exchange) {
+        log.warn("Forbidden: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(
+                HttpStatus.FORBIDDEN.value(),
+                "Forbidden",
+                ex.getMessage(),
+                exchange.getRequest().getPath().value()
+        );
+        return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body(error));
+    }
+
+    @ExceptionHandler(ExchangeRateUnavailableException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleExchangeRateUnavailable(
+            ExchangeRateUnavailableException ex, ServerWebExchange exchange) {
+        log.warn("Service unavailable: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                exchange.getRequest().getPath().value()
+        );
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error));
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public Mono<ResponseEntity<ErrorResponse>> handleIllegalArgument(
             IllegalArgumentException ex, ServerWebExchange exchange) {
@@ -0,0 +1,47 @@
+package com.splitter.balance.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Checkpoint of a group's pair ledger at a day or month boundary.
+ * Covers every transaction created strictly before asOf.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("balance_checkpoints")
+public class BalanceCheckpoint {
+
+    @Id
+    private UUID id;
+
+    @Column("group_id")
+    private UUID groupId;
+
+    @Column("period")
+    private Period period;
+
+    @Column("as_of")
+    private Instant asOf;
+
+    @Column("pair_count")
+    private int pairCount;
+
+    @Column("created_at")
+    private Instant createdAt;
+
+    /**
+     * Checkpoint periods.
+     */
+    public enum Period {
+        DAILY,      // Kept for the daily retention window
+        MONTHLY     // Kept indefinitely for statements
+    }
+}
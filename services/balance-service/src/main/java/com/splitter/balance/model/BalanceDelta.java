@@ -0,0 +1,19 @@
+package com.splitter.balance.model;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * A single signed change to the balance between two users, derived from an event.
+ * A positive amount means fromUserId owes toUserId more.
+ */
+public record BalanceDelta(
+    UUID groupId,
+    UUID fromUserId,
+    UUID toUserId,
+    BigDecimal amount,
+    String currency,
+    BalanceTransaction.TransactionType type,
+    UUID referenceId,
+    String description
+) {}
@@ -0,0 +1,39 @@
+package com.splitter.balance.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Snapshot of a group's canonical pair ledger up to a transaction watermark.
+ * Transactions ordered after (lastTransactionAt, lastTransactionId) are not included.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("balance_snapshots")
+public class BalanceSnapshot {
+
+    @Id
+    private UUID id;
+
+    @Column("group_id")
+    private UUID groupId;
+
+    @Column("last_transaction_at")
+    private Instant lastTransactionAt;
+
+    @Column("last_transaction_id")
+    private UUID lastTransactionId;
+
+    @Column("pair_count")
+    private int pairCount;
+
+    @Column("created_at")
+    private Instant createdAt;
+}
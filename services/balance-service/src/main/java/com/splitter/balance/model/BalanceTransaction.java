@@ -55,8 +55,9 @@ public class BalanceTransaction {
      * Types of balance transactions.
      */
     public enum TransactionType {
-        EXPENSE,        // From expense creation
-        SETTLEMENT,     // From payment/settlement
-        ADJUSTMENT      // Manual adjustment
+        EXPENSE,          // From expense creation
+        SETTLEMENT,       // From payment/settlement
+        EXPENSE_REVERSAL, // From expense deletion
+        ADJUSTMENT        // Manual adjustment
     }
 }
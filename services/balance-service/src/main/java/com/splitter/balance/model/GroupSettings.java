@@ -0,0 +1,35 @@
+package com.splitter.balance.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Group settings replicated from group-service events. Groups without a row use the defaults below.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("group_settings")
+public class GroupSettings {
+
+    @Id
+    @Column("group_id")
+    private UUID groupId;
+
+    @Column("simplify_debts")
+    @Builder.Default
+    private boolean simplifyDebts = true;
+
+    @Column("default_currency")
+    @Builder.Default
+    private String defaultCurrency = "USD";
+
+    @Column("updated_at")
+    private Instant updatedAt;
+}
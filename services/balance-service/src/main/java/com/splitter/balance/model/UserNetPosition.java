@@ -0,0 +1,36 @@
+package com.splitter.balance.model;
+
+import lombok.*;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A user's net position in one group and currency. Positive amounts mean the user is owed.
+ * Rows are keyed by (user, group, currency) and written only through upsert statements.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("user_net_positions")
+public class UserNetPosition {
+
+    @Column("user_id")
+    private UUID userId;
+
+    @Column("group_id")
+    private UUID groupId;
+
+    @Column("currency")
+    private String currency;
+
+    @Column("net_amount")
+    private BigDecimal netAmount;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+}
@@ -0,0 +1,47 @@
+package com.splitter.balance.repository;
+
+import com.splitter.balance.model.BalanceCheckpoint;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Reactive repository for BalanceCheckpoint entities.
+ */
+@Repository
+public interface BalanceCheckpointRepository extends R2dbcRepository<BalanceCheckpoint, UUID> {
+
+    /**
+     * Find the latest checkpoint of a group whose boundary is at or before a point in time.
+     * Of a daily and a monthly checkpoint on the same boundary, either may be returned.
+     */
+    @Query("SELECT * FROM balance_checkpoints WHERE group_id = :groupId AND as_of <= :asOf " +
+           "ORDER BY as_of DESC LIMIT 1")
+    Mono<BalanceCheckpoint> findLatestAtOrBefore(UUID groupId, Instant asOf);
+
+    /**
+     * Check whether a checkpoint already exists for a group, period and boundary.
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM balance_checkpoints " +
+           "WHERE group_id = :groupId AND period = :period AND as_of = :asOf)")
+    Mono<Boolean> existsCheckpoint(UUID groupId, String period, Instant asOf);
+
+    /**
+     * Record how many pairs were stored for a checkpoint.
+     */
+    @Modifying
+    @Query("UPDATE balance_checkpoints SET pair_count = :pairCount WHERE id = :checkpointId")
+    Mono<Integer> updatePairCount(UUID checkpointId, int pairCount);
+
+    /**
+     * Delete checkpoints of a period older than a boundary. Pairs are removed by cascade.
+     */
+    @Modifying
+    @Query("DELETE FROM balance_checkpoints WHERE period = :period AND as_of < :before")
+    Mono<Integer> deleteByPeriodBefore(String period, Instant before);
+}
@@ -9,6 +9,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -18,15 +19,34 @@ import java.util.UUID;
 public interface BalanceRepository extends R2dbcRepository<Balance, UUID> {
 
     /**
-     * Find balance between two users in a group.
+     * Find the per-currency balances between two users in a group.
      */
-    Mono<Balance> findByGroupIdAndFromUserIdAndToUserId(UUID groupId, UUID fromUserId, UUID toUserId);
+    Flux<Balance> findByGroupIdAndFromUserIdAndToUserId(UUID groupId, UUID fromUserId, UUID toUserId);
+
+    /**
+     * Find the balance between two users in a group for one currency.
+     */
+    Mono<Balance> findByGroupIdAndFromUserIdAndToUserIdAndCurrency(
+            UUID groupId, UUID fromUserId, UUID toUserId, String currency);
 
     /**
      * Find all balances for a group.
      */
     Flux<Balance> findByGroupId(UUID groupId);
 
+    /**
+     * Find a group's balances involving any of the given users.
+     */
+    @Query("SELECT * FROM balances WHERE group_id = :groupId " +
+           "AND (from_user_id IN (:userIds) OR to_user_id IN (:userIds))")
+    Flux<Balance> findByGroupIdAndUserIds(UUID groupId, Collection<UUID> userIds);
+
+    /**
+     * Find the IDs of all groups with balance rows.
+     */
+    @Query("SELECT DISTINCT group_id FROM balances")
+    Flux<UUID> findAllGroupIds();
+
     /**
      * Find all balances where a user owes money.
      */
@@ -57,6 +77,39 @@ public interface BalanceRepository extends R2dbcRepository<Balance, UUID> {
            "WHERE group_id = :groupId AND from_user_id = :fromUserId AND to_user_id = :toUserId")
     Mono<Integer> updateBalanceAmount(UUID groupId, UUID fromUserId, UUID toUserId, BigDecimal delta);
 
+    /**
+     * Find the canonical rows, one per currency, for an unordered user pair in a group.
+     * Canonical rows store the lower user ID in from_user_id and a signed amount
+     * (positive when from_user_id owes to_user_id).
+     */
+    @Query("SELECT * FROM balances WHERE group_id = :groupId " +
+           "AND from_user_id = LEAST(:userId1, :userId2) AND to_user_id = GREATEST(:userId1, :userId2)")
+    Flux<Balance> findCanonicalPair(UUID groupId, UUID userId1, UUID userId2);
+
+    /**
+     * Record a balance transaction and apply its delta to the canonical pair row and to
+     * both users' net positions in a single statement. The pair ordering and sign are
+     * resolved by Postgres, so concurrent writers never race on a read-modify-write cycle.
+     */
+    @Modifying
+    @Query("WITH tx AS (" +
+           "INSERT INTO balance_transactions (group_id, from_user_id, to_user_id, amount, currency, " +
+           "transaction_type, reference_id, description, created_at) " +
+           "VALUES (:groupId, :fromUserId, :toUserId, :amount, :currency, " +
+           ":transactionType, :referenceId, :description, NOW())), " +
+           "pos AS (" +
+           "INSERT INTO user_net_positions (user_id, group_id, currency, net_amount, updated_at) " +
+           "VALUES (:fromUserId, :groupId, :currency, -:amount, NOW()), (:toUserId, :groupId, :currency, :amount, NOW()) " +
+           "ON CONFLICT (user_id, group_id, currency) " +
+           "DO UPDATE SET net_amount = user_net_positions.net_amount + EXCLUDED.net_amount, updated_at = NOW()) " +
+           "INSERT INTO balances (group_id, from_user_id, to_user_id, amount, currency, updated_at) " +
+           "VALUES (:groupId, LEAST(:fromUserId, :toUserId), GREATEST(:fromUserId, :toUserId), " +
+           "CASE WHEN :fromUserId < :toUserId THEN :amount ELSE -:amount END, :currency, NOW()) " +
+           "ON CONFLICT (group_id, from_user_id, to_user_id, currency) " +
+           "DO UPDATE SET amount = balances.amount + EXCLUDED.amount, updated_at = NOW()")
+    Mono<Integer> applyDelta(UUID groupId, UUID fromUserId, UUID toUserId, BigDecimal amount,
+                             String currency, String transactionType, UUID referenceId, String description);
+
     /**
      * Delete all balances for a group.
      */
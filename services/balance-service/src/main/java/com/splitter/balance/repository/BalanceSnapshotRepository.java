@@ -0,0 +1,40 @@
+package com.splitter.balance.repository;
+
+import com.splitter.balance.model.BalanceSnapshot;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Reactive repository for BalanceSnapshot entities.
+ */
+@Repository
+public interface BalanceSnapshotRepository extends R2dbcRepository<BalanceSnapshot, UUID> {
+
+    /**
+     * Find the snapshot with the latest watermark for a group.
+     */
+    @Query("SELECT * FROM balance_snapshots WHERE group_id = :groupId " +
+           "ORDER BY last_transaction_at DESC, last_transaction_id DESC LIMIT 1")
+    Mono<BalanceSnapshot> findLatestByGroupId(UUID groupId);
+
+    /**
+     * Record how many pairs were stored for a snapshot.
+     */
+    @Modifying
+    @Query("UPDATE balance_snapshots SET pair_count = :pairCount WHERE id = :snapshotId")
+    Mono<Integer> updatePairCount(UUID snapshotId, int pairCount);
+
+    /**
+     * Delete all but the newest snapshots of a group. Pairs are removed by cascade.
+     */
+    @Modifying
+    @Query("DELETE FROM balance_snapshots WHERE group_id = :groupId AND id NOT IN (" +
+           "SELECT id FROM balance_snapshots WHERE group_id = :groupId " +
+           "ORDER BY last_transaction_at DESC, last_transaction_id DESC LIMIT :retain)")
+    Mono<Integer> deleteAllButLatest(UUID groupId, int retain);
+}
@@ -5,6 +5,7 @@ import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -28,6 +29,48 @@ public interface BalanceTransactionRepository extends R2dbcRepository<BalanceTra
            "ORDER BY created_at DESC")
     Flux<BalanceTransaction> findByUser(UUID userId);
 
+    /**
+     * Find the newest transactions of a group, for the first page of its history.
+     */
+    @Query("SELECT * FROM balance_transactions WHERE group_id = :groupId " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<BalanceTransaction> findGroupPage(UUID groupId, int limit);
+
+    /**
+     * Find the transactions of a group ordered before a (created_at, id) cursor, newest first.
+     */
+    @Query("SELECT * FROM balance_transactions WHERE group_id = :groupId " +
+           "AND (created_at, id) < (:beforeAt, :beforeId) " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<BalanceTransaction> findGroupPageBefore(UUID groupId, Instant beforeAt, UUID beforeId, int limit);
+
+    /**
+     * Find the newest transactions involving a user, for the first page of their history.
+     * Each direction is read from its own index and the two are merged.
+     */
+    @Query("SELECT * FROM (" +
+           "(SELECT * FROM balance_transactions WHERE from_user_id = :userId " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+           "UNION ALL " +
+           "(SELECT * FROM balance_transactions WHERE to_user_id = :userId " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit)) t " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<BalanceTransaction> findUserPage(UUID userId, int limit);
+
+    /**
+     * Find transactions involving a user ordered before a (created_at, id) cursor, newest first.
+     */
+    @Query("SELECT * FROM (" +
+           "(SELECT * FROM balance_transactions WHERE from_user_id = :userId " +
+           "AND (created_at, id) < (:beforeAt, :beforeId) " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+           "UNION ALL " +
+           "(SELECT * FROM balance_transactions WHERE to_user_id = :userId " +
+           "AND (created_at, id) < (:beforeAt, :beforeId) " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit)) t " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<BalanceTransaction> findUserPageBefore(UUID userId, Instant beforeAt, UUID beforeId, int limit);
+
     /**
      * Find transactions for a group within a date range.
      */
@@ -36,11 +79,39 @@ public interface BalanceTransactionRepository extends R2dbcRepository<BalanceTra
            "ORDER BY created_at DESC")
     Flux<BalanceTransaction> findByGroupIdAndDateRange(UUID groupId, Instant startDate, Instant endDate);
 
+    /**
+     * Find the last transaction of a group ordered after a (created_at, id) watermark
+     * and created no later than the cutoff.
+     */
+    @Query("SELECT * FROM balance_transactions " +
+           "WHERE group_id = :groupId AND (created_at, id) > (:afterAt, :afterId) AND created_at <= :cutoff " +
+           "ORDER BY created_at DESC, id DESC LIMIT 1")
+    Mono<BalanceTransaction> findLastAfter(UUID groupId, Instant afterAt, UUID afterId, Instant cutoff);
+
+    /**
+     * Count transactions of a group ordered after a (created_at, id) watermark.
+     */
+    @Query("SELECT COUNT(*) FROM balance_transactions " +
+           "WHERE group_id = :groupId AND (created_at, id) > (:afterAt, :afterId)")
+    Mono<Long> countAfter(UUID groupId, Instant afterAt, UUID afterId);
+
+    /**
+     * Find groups with transactions created within a time window.
+     */
+    @Query("SELECT DISTINCT group_id FROM balance_transactions " +
+           "WHERE created_at > :since AND created_at <= :until")
+    Flux<UUID> findGroupIdsActiveBetween(Instant since, Instant until);
+
     /**
      * Find transactions by reference ID.
      */
     Flux<BalanceTransaction> findByReferenceId(UUID referenceId);
 
+    /**
+     * Check whether a transaction of the given type exists for a reference ID.
+     */
+    Mono<Boolean> existsByReferenceIdAndTransactionType(UUID referenceId, BalanceTransaction.TransactionType transactionType);
+
     /**
      * Find recent transactions for a user in a group.
      */
@@ -0,0 +1,27 @@
+package com.splitter.balance.repository;
+
+import com.splitter.balance.model.GroupSettings;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Reactive repository for GroupSettings entities.
+ */
+@Repository
+public interface GroupSettingsRepository extends R2dbcRepository<GroupSettings, UUID> {
+
+    /**
+     * Insert or replace the settings for a group.
+     */
+    @Modifying
+    @Query("INSERT INTO group_settings (group_id, simplify_debts, default_currency, updated_at) " +
+           "VALUES (:groupId, :simplifyDebts, :defaultCurrency, NOW()) " +
+           "ON CONFLICT (group_id) DO UPDATE SET simplify_debts = EXCLUDED.simplify_debts, " +
+           "default_currency = EXCLUDED.default_currency, updated_at = NOW()")
+    Mono<Integer> upsert(UUID groupId, boolean simplifyDebts, String defaultCurrency);
+}
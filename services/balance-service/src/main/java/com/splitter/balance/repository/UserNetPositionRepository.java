@@ -0,0 +1,64 @@
+package com.splitter.balance.repository;
+
+import com.splitter.balance.model.UserNetPosition;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Reactive repository for UserNetPosition projections.
+ */
+@Repository
+public interface UserNetPositionRepository extends R2dbcRepository<UserNetPosition, UUID> {
+
+    /**
+     * Find all non-zero positions of a user, served from the primary key index.
+     */
+    @Query("SELECT * FROM user_net_positions WHERE user_id = :userId AND net_amount != 0 " +
+           "ORDER BY group_id, currency")
+    Flux<UserNetPosition> findNonZeroByUserId(UUID userId);
+
+    /**
+     * Find the positions of specific users in a group.
+     */
+    @Query("SELECT * FROM user_net_positions WHERE group_id = :groupId AND user_id IN (:userIds)")
+    Flux<UserNetPosition> findByGroupIdAndUserIds(UUID groupId, Collection<UUID> userIds);
+
+    /**
+     * Apply a delta where fromUserId owes toUserId the amount.
+     */
+    @Modifying
+    @Query("INSERT INTO user_net_positions (user_id, group_id, currency, net_amount, updated_at) " +
+           "VALUES (:fromUserId, :groupId, :currency, -:amount, NOW()), (:toUserId, :groupId, :currency, :amount, NOW()) " +
+           "ON CONFLICT (user_id, group_id, currency) " +
+           "DO UPDATE SET net_amount = user_net_positions.net_amount + EXCLUDED.net_amount, updated_at = NOW()")
+    Mono<Integer> applyDelta(UUID groupId, UUID fromUserId, UUID toUserId, BigDecimal amount, String currency);
+
+    /**
+     * Delete all positions of a group.
+     */
+    @Modifying
+    @Query("DELETE FROM user_net_positions WHERE group_id = :groupId")
+    Mono<Integer> deleteByGroupId(UUID groupId);
+
+    /**
+     * Derive a group's positions from its balance rows. Call after {@link #deleteByGroupId(UUID)}.
+     */
+    @Modifying
+    @Query("INSERT INTO user_net_positions (user_id, group_id, currency, net_amount, updated_at) " +
+           "SELECT p.user_id, :groupId, p.currency, SUM(p.amount), NOW() FROM (" +
+           "SELECT from_user_id AS user_id, COALESCE(currency, 'USD') AS currency, -amount AS amount " +
+           "FROM balances WHERE group_id = :groupId " +
+           "UNION ALL " +
+           "SELECT to_user_id AS user_id, COALESCE(currency, 'USD') AS currency, amount " +
+           "FROM balances WHERE group_id = :groupId) p " +
+           "GROUP BY p.user_id, p.currency")
+    Mono<Integer> insertFromBalances(UUID groupId);
+}
@@ -0,0 +1,216 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.model.BalanceDelta;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes a batch of balance deltas with one multi-row statement per table.
+ * Every delta is kept in the transaction log, while balance rows receive a single
+ * netted delta per (group, user pair, currency) so a burst of expenses costs one upsert.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceBatchWriter {
+
+    private static final String INSERT_TRANSACTIONS = """
+            INSERT INTO balance_transactions (group_id, from_user_id, to_user_id, amount, currency,
+                                              transaction_type, reference_id, description, created_at)
+            SELECT t.group_id, t.from_user_id, t.to_user_id, t.amount, t.currency,
+                   t.transaction_type, t.reference_id, t.description, NOW()
+            FROM unnest(CAST(:groupIds AS uuid[]), CAST(:fromUserIds AS uuid[]), CAST(:toUserIds AS uuid[]),
+                        CAST(:amounts AS numeric[]), CAST(:currencies AS varchar[]), CAST(:types AS varchar[]),
+                        CAST(:referenceIds AS uuid[]), CAST(:descriptions AS varchar[]))
+                 AS t(group_id, from_user_id, to_user_id, amount, currency,
+                      transaction_type, reference_id, description)
+            """;
+
+    private static final String UPSERT_BALANCES = """
+            INSERT INTO balances (group_id, from_user_id, to_user_id, amount, currency, updated_at)
+            SELECT d.group_id, LEAST(d.user_a, d.user_b), GREATEST(d.user_a, d.user_b),
+                   CASE WHEN d.user_a < d.user_b THEN d.amount ELSE -d.amount END, d.currency, NOW()
+            FROM unnest(CAST(:groupIds AS uuid[]), CAST(:userAs AS uuid[]), CAST(:userBs AS uuid[]),
+                        CAST(:amounts AS numeric[]), CAST(:currencies AS varchar[]))
+                 AS d(group_id, user_a, user_b, amount, currency)
+            ON CONFLICT (group_id, from_user_id, to_user_id, currency)
+            DO UPDATE SET amount = balances.amount + EXCLUDED.amount, updated_at = NOW()
+            """;
+
+    private static final String UPSERT_NET_POSITIONS = """
+            INSERT INTO user_net_positions (user_id, group_id, currency, net_amount, updated_at)
+            SELECT p.user_id, p.group_id, p.currency, p.amount, NOW()
+            FROM unnest(CAST(:userIds AS uuid[]), CAST(:groupIds AS uuid[]), CAST(:currencies AS varchar[]),
+                        CAST(:amounts AS numeric[]))
+                 AS p(user_id, group_id, currency, amount)
+            ON CONFLICT (user_id, group_id, currency)
+            DO UPDATE SET net_amount = user_net_positions.net_amount + EXCLUDED.net_amount, updated_at = NOW()
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Record all deltas and apply their netted effect to the balances and net position tables.
+     */
+    @Transactional
+    public Mono<Void> write(List<BalanceDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+        return insertTransactions(deltas)
+                .then(upsertBalances(coalesce(deltas)))
+                .then(upsertNetPositions(netPositions(deltas)))
+                .doOnSuccess(v -> log.debug("Wrote {} balance deltas", deltas.size()));
+    }
+
+    private Mono<Void> insertTransactions(List<BalanceDelta> deltas) {
+        int size = deltas.size();
+        UUID[] groupIds = new UUID[size];
+        UUID[] fromUserIds = new UUID[size];
+        UUID[] toUserIds = new UUID[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+        String[] currencies = new String[size];
+        String[] types = new String[size];
+        UUID[] referenceIds = new UUID[size];
+        String[] descriptions = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            BalanceDelta delta = deltas.get(i);
+            groupIds[i] = delta.groupId();
+            fromUserIds[i] = delta.fromUserId();
+            toUserIds[i] = delta.toUserId();
+            amounts[i] = delta.amount();
+            currencies[i] = delta.currency();
+            types[i] = delta.type().name();
+            referenceIds[i] = delta.referenceId();
+            descriptions[i] = delta.description();
+        }
+
+        return databaseClient.sql(INSERT_TRANSACTIONS)
+                .bind("groupIds", groupIds)
+                .bind("fromUserIds", fromUserIds)
+                .bind("toUserIds", toUserIds)
+                .bind("amounts", amounts)
+                .bind("currencies", currencies)
+                .bind("types", types)
+                .bind("referenceIds", referenceIds)
+                .bind("descriptions", descriptions)
+                .then();
+    }
+
+    private Mono<Void> upsertBalances(List<BalanceDelta> netted) {
+        if (netted.isEmpty()) {
+            return Mono.empty();
+        }
+        int size = netted.size();
+        UUID[] groupIds = new UUID[size];
+        UUID[] userAs = new UUID[size];
+        UUID[] userBs = new UUID[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+        String[] currencies = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            BalanceDelta delta = netted.get(i);
+            groupIds[i] = delta.groupId();
+            userAs[i] = delta.fromUserId();
+            userBs[i] = delta.toUserId();
+            amounts[i] = delta.amount();
+            currencies[i] = delta.currency();
+        }
+
+        return databaseClient.sql(UPSERT_BALANCES)
+                .bind("groupIds", groupIds)
+                .bind("userAs", userAs)
+                .bind("userBs", userBs)
+                .bind("amounts", amounts)
+                .bind("currencies", currencies)
+                .then();
+    }
+
+    private Mono<Void> upsertNetPositions(Map<PositionKey, BigDecimal> positions) {
+        if (positions.isEmpty()) {
+            return Mono.empty();
+        }
+        int size = positions.size();
+        UUID[] userIds = new UUID[size];
+        UUID[] groupIds = new UUID[size];
+        String[] currencies = new String[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+
+        int i = 0;
+        for (Map.Entry<PositionKey, BigDecimal> entry : positions.entrySet()) {
+            userIds[i] = entry.getKey().userId();
+            groupIds[i] = entry.getKey().groupId();
+            currencies[i] = entry.getKey().currency();
+            amounts[i] = entry.getValue();
+            i++;
+        }
+
+        return databaseClient.sql(UPSERT_NET_POSITIONS)
+                .bind("userIds", userIds)
+                .bind("groupIds", groupIds)
+                .bind("currencies", currencies)
+                .bind("amounts", amounts)
+                .then();
+    }
+
+    /**
+     * Net deltas per (user, group, currency): the debtor loses the amount and the creditor
+     * gains it. Zero nets are dropped, and each position appears at most once.
+     */
+    static Map<PositionKey, BigDecimal> netPositions(List<BalanceDelta> deltas) {
+        Map<PositionKey, BigDecimal> net = new LinkedHashMap<>();
+        for (BalanceDelta delta : deltas) {
+            net.merge(new PositionKey(delta.fromUserId(), delta.groupId(), delta.currency()),
+                    delta.amount().negate(), BigDecimal::add);
+            net.merge(new PositionKey(delta.toUserId(), delta.groupId(), delta.currency()),
+                    delta.amount(), BigDecimal::add);
+        }
+        net.values().removeIf(amount -> amount.signum() == 0);
+        return net;
+    }
+
+    /**
+     * Net deltas per (group, unordered user pair, currency). A single upsert statement may
+     * not touch the same row twice, so each bucket must appear at most once.
+     */
+    static List<BalanceDelta> coalesce(List<BalanceDelta> deltas) {
+        Map<PairKey, BigDecimal> net = new LinkedHashMap<>();
+
+        for (BalanceDelta delta : deltas) {
+            boolean ordered = delta.fromUserId().compareTo(delta.toUserId()) < 0;
+            PairKey key = ordered
+                    ? new PairKey(delta.groupId(), delta.fromUserId(), delta.toUserId(), delta.currency())
+                    : new PairKey(delta.groupId(), delta.toUserId(), delta.fromUserId(), delta.currency());
+            BigDecimal signed = ordered ? delta.amount() : delta.amount().negate();
+            net.merge(key, signed, BigDecimal::add);
+        }
+
+        return net.entrySet().stream()
+                .filter(e -> e.getValue().signum() != 0)
+                .map(e -> new BalanceDelta(
+                        e.getKey().groupId(),
+                        e.getKey().userA(),
+                        e.getKey().userB(),
+                        e.getValue(),
+                        e.getKey().currency(),
+                        null,
+                        null,
+                        null))
+                .toList();
+    }
+
+    private record PairKey(UUID groupId, UUID userA, UUID userB, String currency) {}
+
+    record PositionKey(UUID userId, UUID groupId, String currency) {}
+}
@@ -0,0 +1,281 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.dto.BalanceCheckpointDto;
+import com.splitter.balance.dto.BalanceDto;
+import com.splitter.balance.dto.GroupBalancesAsOf;
+import com.splitter.balance.model.BalanceCheckpoint;
+import com.splitter.balance.repository.BalanceCheckpointRepository;
+import com.splitter.balance.repository.BalanceTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Daily and monthly checkpoints of each group's pair ledger, and point-in-time balance
+ * queries served from them.
+ *
+ * A checkpoint covers every transaction created before its UTC day or month boundary. It
+ * is compacted from the previous checkpoint plus the transactions since, so building one
+ * never scans a group's full history. An as-of query starts from the nearest checkpoint
+ * at or before the requested time and replays only the transactions after it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceCheckpointService {
+
+    /** Base used when a group has no checkpoint yet; matches no checkpoint pairs. */
+    private static final UUID NO_CHECKPOINT_ID = new UUID(0L, 0L);
+
+    private static final String CHECKPOINT_PAIRS = """
+            SELECT from_user_id, to_user_id, amount, currency
+            FROM balance_checkpoint_pairs
+            WHERE checkpoint_id = :checkpointId
+            """;
+
+    private static final String INSERT_CHECKPOINT_PAIRS = """
+            INSERT INTO balance_checkpoint_pairs (checkpoint_id, from_user_id, to_user_id, amount, currency)
+            SELECT :checkpointId, p.user_a, p.user_b, SUM(p.amount), p.currency
+            FROM (
+                SELECT c.from_user_id AS user_a, c.to_user_id AS user_b, c.amount, c.currency
+                FROM balance_checkpoint_pairs c
+                WHERE c.checkpoint_id = :baseCheckpointId
+                UNION ALL
+                SELECT LEAST(t.from_user_id, t.to_user_id),
+                       GREATEST(t.from_user_id, t.to_user_id),
+                       CASE WHEN t.from_user_id < t.to_user_id THEN t.amount ELSE -t.amount END,
+                       t.currency
+                FROM balance_transactions t
+                WHERE t.group_id = :groupId AND t.created_at >= :fromAt AND t.created_at < :asOf
+            ) p
+            GROUP BY p.user_a, p.user_b, p.currency
+            HAVING SUM(p.amount) <> 0
+            """;
+
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final BalanceTransactionRepository transactionRepository;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    @Value("${balance.checkpoints.enabled:true}")
+    private boolean checkpointsEnabled;
+
+    @Value("${balance.checkpoints.retain-daily-days:62}")
+    private long retainDailyDays;
+
+    @Value("${balance.checkpoints.concurrency:4}")
+    private int concurrency;
+
+    @Value("${balance.snapshots.commit-lag-seconds:300}")
+    private long commitLagSeconds;
+
+    /**
+     * Checkpoint every group that logged transactions during the day that just ended, and on
+     * the first of a month every group active during the month, then prune old daily checkpoints.
+     */
+    @Scheduled(cron = "${balance.checkpoints.cron:0 15 0 * * *}", zone = "UTC")
+    public void compact() {
+        if (!checkpointsEnabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Instant dayBoundary = startOf(today);
+        if (cutoff().isBefore(dayBoundary)) {
+            log.warn("Skipping checkpoints at {}: transactions before it may still be committing", dayBoundary);
+            return;
+        }
+
+        Mono<Void> monthly = today.getDayOfMonth() == 1
+                ? checkpointActiveGroups(BalanceCheckpoint.Period.MONTHLY, startOf(today.minusMonths(1)), dayBoundary)
+                : Mono.empty();
+
+        // Daily checkpoints first, so a month's checkpoint is copied from the same boundary
+        checkpointActiveGroups(BalanceCheckpoint.Period.DAILY, startOf(today.minusDays(1)), dayBoundary)
+                .then(monthly)
+                .then(checkpointRepository.deleteByPeriodBefore(BalanceCheckpoint.Period.DAILY.name(),
+                        dayBoundary.minus(retainDailyDays, ChronoUnit.DAYS)))
+                .subscribe(deleted -> log.info("Created balance checkpoints at {}, pruned {} daily checkpoints",
+                                dayBoundary, deleted),
+                        error -> log.error("Error creating balance checkpoints at {}", dayBoundary, error));
+    }
+
+    /**
+     * Checkpoint a group at a boundary, e.g. to backfill one the scheduled job missed.
+     *
+     * @param asOf UTC day boundary, or month boundary for a monthly checkpoint
+     */
+    public Mono<BalanceCheckpointDto> checkpointGroup(UUID groupId, BalanceCheckpoint.Period period, Instant asOf) {
+        LocalDate date = LocalDate.ofInstant(asOf, ZoneOffset.UTC);
+        if (!startOf(date).equals(asOf) || (period == BalanceCheckpoint.Period.MONTHLY && date.getDayOfMonth() != 1)) {
+            throw new IllegalArgumentException("Checkpoints must be at a UTC " +
+                    (period == BalanceCheckpoint.Period.MONTHLY ? "month" : "day") + " boundary");
+        }
+        if (cutoff().isBefore(asOf)) {
+            throw new IllegalArgumentException("Checkpoint boundary must be older than the commit lag");
+        }
+        return createCheckpoint(groupId, period, asOf)
+                .switchIfEmpty(checkpointRepository.findLatestAtOrBefore(groupId, asOf))
+                .map(this::toDto);
+    }
+
+    /**
+     * Get a group's balances as they stood at a point in time, including transactions
+     * created at exactly that instant.
+     */
+    public Mono<GroupBalancesAsOf> getGroupBalancesAsOf(UUID groupId, Instant asOf) {
+        return checkpointRepository.findLatestAtOrBefore(groupId, asOf)
+                .flatMap(checkpoint -> databaseClient.sql(CHECKPOINT_PAIRS)
+                        .bind("checkpointId", checkpoint.getId())
+                        .fetch()
+                        .all()
+                        .collect(Ledger::new, (ledger, row) -> ledger.add(
+                                (UUID) row.get("from_user_id"), (UUID) row.get("to_user_id"),
+                                (BigDecimal) row.get("amount"), (String) row.get("currency")))
+                        .map(ledger -> new Start(checkpoint.getAsOf(), ledger)))
+                .switchIfEmpty(Mono.fromSupplier(() -> new Start(null, new Ledger())))
+                .flatMap(start -> transactionRepository.findByGroupIdAndDateRange(
+                                groupId, start.asOf() != null ? start.asOf() : Instant.EPOCH, asOf)
+                        .doOnNext(t -> start.ledger().add(
+                                t.getFromUserId(), t.getToUserId(), t.getAmount(), t.getCurrency()))
+                        .count()
+                        .map(replayed -> GroupBalancesAsOf.builder()
+                                .groupId(groupId)
+                                .asOf(asOf)
+                                .checkpointAsOf(start.asOf())
+                                .replayedTransactions(replayed.intValue())
+                                .balances(start.ledger().toBalances(groupId, asOf))
+                                .build()));
+    }
+
+    private Mono<Void> checkpointActiveGroups(BalanceCheckpoint.Period period, Instant since, Instant asOf) {
+        return transactionRepository.findGroupIdsActiveBetween(since, asOf)
+                .flatMap(groupId -> createCheckpoint(groupId, period, asOf)
+                        .onErrorResume(error -> {
+                            log.error("Failed to create {} checkpoint for group: {}", period, groupId, error);
+                            return Mono.empty();
+                        }), concurrency)
+                .count()
+                .doOnNext(count -> log.info("Created {} {} balance checkpoints at {}", count, period, asOf))
+                .then();
+    }
+
+    /**
+     * Compact the latest checkpoint at or before the boundary and the transactions after it
+     * into a new checkpoint. Completes empty when the checkpoint already exists.
+     */
+    private Mono<BalanceCheckpoint> createCheckpoint(UUID groupId, BalanceCheckpoint.Period period, Instant asOf) {
+        return checkpointRepository.existsCheckpoint(groupId, period.name(), asOf)
+                .filter(exists -> !exists)
+                .flatMap(absent -> checkpointRepository.findLatestAtOrBefore(groupId, asOf)
+                        .map(base -> new Base(base.getId(), base.getAsOf()))
+                        .defaultIfEmpty(new Base(NO_CHECKPOINT_ID, Instant.EPOCH)))
+                .flatMap(base -> transactionalOperator.transactional(
+                        checkpointRepository.save(BalanceCheckpoint.builder()
+                                        .groupId(groupId)
+                                        .period(period)
+                                        .asOf(asOf)
+                                        .createdAt(Instant.now())
+                                        .build())
+                                .flatMap(checkpoint -> databaseClient.sql(INSERT_CHECKPOINT_PAIRS)
+                                        .bind("checkpointId", checkpoint.getId())
+                                        .bind("baseCheckpointId", base.checkpointId())
+                                        .bind("groupId", groupId)
+                                        .bind("fromAt", base.asOf())
+                                        .bind("asOf", asOf)
+                                        .fetch()
+                                        .rowsUpdated()
+                                        .flatMap(pairs -> {
+                                            checkpoint.setPairCount(pairs.intValue());
+                                            return checkpointRepository.updatePairCount(checkpoint.getId(), pairs.intValue());
+                                        })
+                                        .thenReturn(checkpoint))))
+                .doOnNext(checkpoint -> log.debug("{} checkpoint {} of group {} holds {} pairs at {}",
+                        period, checkpoint.getId(), groupId, checkpoint.getPairCount(), asOf));
+    }
+
+    private Instant startOf(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * Transactions take their timestamp when their database transaction starts, so a
+     * boundary is only final once it is older than the commit lag.
+     */
+    private Instant cutoff() {
+        return Instant.now().minusSeconds(commitLagSeconds);
+    }
+
+    private BalanceCheckpointDto toDto(BalanceCheckpoint checkpoint) {
+        return BalanceCheckpointDto.builder()
+                .id(checkpoint.getId())
+                .groupId(checkpoint.getGroupId())
+                .period(checkpoint.getPeriod() != null ? checkpoint.getPeriod().name() : null)
+                .asOf(checkpoint.getAsOf())
+                .pairCount(checkpoint.getPairCount())
+                .createdAt(checkpoint.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Checkpoint a new checkpoint is compacted from.
+     */
+    private record Base(UUID checkpointId, Instant asOf) {}
+
+    /**
+     * Starting point of a replay: a checkpoint boundary, or null, and its loaded pairs.
+     */
+    private record Start(Instant asOf, Ledger ledger) {}
+
+    /**
+     * Signed pair amounts per currency, keyed by an ordered user pair.
+     */
+    private static final class Ledger {
+
+        private final Map<PairKey, BigDecimal> amounts = new LinkedHashMap<>();
+
+        /**
+         * Add a debt where fromUserId owes toUserId the amount.
+         */
+        void add(UUID fromUserId, UUID toUserId, BigDecimal amount, String currency) {
+            // Any consistent pair order works here, as the result is re-oriented below
+            boolean ordered = fromUserId.compareTo(toUserId) < 0;
+            PairKey key = ordered
+                    ? new PairKey(fromUserId, toUserId, currency)
+                    : new PairKey(toUserId, fromUserId, currency);
+            amounts.merge(key, ordered ? amount : amount.negate(), BigDecimal::add);
+        }
+
+        List<BalanceDto> toBalances(UUID groupId, Instant asOf) {
+            List<BalanceDto> balances = new ArrayList<>();
+            amounts.forEach((key, amount) -> {
+                if (amount.signum() == 0) {
+                    return;
+                }
+                boolean forward = amount.signum() > 0;
+                balances.add(BalanceDto.builder()
+                        .groupId(groupId)
+                        .fromUserId(forward ? key.userA() : key.userB())
+                        .toUserId(forward ? key.userB() : key.userA())
+                        .amount(amount.abs())
+                        .currency(key.currency())
+                        .updatedAt(asOf)
+                        .build());
+            });
+            return balances;
+        }
+    }
+
+    private record PairKey(UUID userA, UUID userB, String currency) {}
+}
@@ -0,0 +1,127 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.model.UserNetPosition;
+import com.splitter.balance.repository.UserNetPositionRepository;
+import com.splitter.common.events.EventTopics;
+import com.splitter.common.events.balance.BalanceUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Publishes compact balance change events to {@link EventTopics#BALANCE_EVENTS}.
+ *
+ * Committed group changes are buffered for a short window and coalesced, so a burst of
+ * writes to one group yields a single event carrying the union of affected users, their
+ * new net positions and the latest group version.
+ */
+@Slf4j
+@Component
+public class BalanceEventPublisher {
+
+    private static final Sinks.EmitFailureHandler EMIT_RETRY =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final UserNetPositionRepository netPositionRepository;
+    private final boolean enabled;
+    private final Sinks.Many<GroupChange> changes = Sinks.many().unicast().onBackpressureBuffer();
+
+    public BalanceEventPublisher(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            UserNetPositionRepository netPositionRepository,
+            @Value("${balance.events.enabled:true}") boolean enabled,
+            @Value("${balance.events.window-ms:250}") long windowMs,
+            @Value("${balance.events.max-buffered:1000}") int maxBuffered) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.netPositionRepository = netPositionRepository;
+        this.enabled = enabled;
+
+        changes.asFlux()
+                .bufferTimeout(maxBuffered, Duration.ofMillis(windowMs))
+                .concatMap(this::flush)
+                .subscribe();
+    }
+
+    /**
+     * Record a committed change to a group's balances. The event is sent when the current window closes.
+     */
+    public void groupChanged(UUID groupId, Collection<UUID> affectedUserIds, long version) {
+        if (!enabled || affectedUserIds.isEmpty()) {
+            return;
+        }
+        try {
+            changes.emitNext(new GroupChange(groupId, new LinkedHashSet<>(affectedUserIds), version), EMIT_RETRY);
+        } catch (Sinks.EmissionException e) {
+            log.warn("Dropped balance change for group {}: {}", groupId, e.getMessage());
+        }
+    }
+
+    private Mono<Void> flush(List<GroupChange> buffered) {
+        Map<UUID, GroupChange> coalesced = new LinkedHashMap<>();
+        for (GroupChange change : buffered) {
+            coalesced.merge(change.groupId(), change, GroupChange::merge);
+        }
+        log.debug("Publishing {} balance events for {} changes", coalesced.size(), buffered.size());
+
+        return Flux.fromIterable(coalesced.values())
+                .flatMap(this::publish)
+                .then();
+    }
+
+    private Mono<Void> publish(GroupChange change) {
+        return netPositionRepository.findByGroupIdAndUserIds(change.groupId(), change.affectedUserIds())
+                .map(this::toPositionData)
+                .collectList()
+                .doOnNext(positions -> {
+                    BalanceUpdatedEvent event = BalanceUpdatedEvent.of(BalanceUpdatedEvent.BalanceUpdatedData.builder()
+                            .groupId(change.groupId())
+                            .version(change.version())
+                            .affectedUserIds(List.copyOf(change.affectedUserIds()))
+                            .positions(positions)
+                            .build());
+
+                    kafkaTemplate.send(EventTopics.BALANCE_EVENTS, change.groupId().toString(), event)
+                            .whenComplete((result, ex) -> {
+                                if (ex != null) {
+                                    log.error("Failed to publish balance event for group: {}", change.groupId(), ex);
+                                } else {
+                                    log.debug("Published balance event for group {} at version {}",
+                                            change.groupId(), change.version());
+                                }
+                            });
+                })
+                .onErrorResume(error -> {
+                    log.error("Failed to load positions for balance event of group: {}", change.groupId(), error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private BalanceUpdatedEvent.PositionData toPositionData(UserNetPosition position) {
+        return BalanceUpdatedEvent.PositionData.builder()
+                .userId(position.getUserId())
+                .currency(position.getCurrency())
+                .netAmount(position.getNetAmount())
+                .build();
+    }
+
+    /**
+     * A committed change to one group, mergeable with later changes to the same group.
+     */
+    private record GroupChange(UUID groupId, Set<UUID> affectedUserIds, long version) {
+
+        GroupChange merge(GroupChange other) {
+            Set<UUID> users = new LinkedHashSet<>(affectedUserIds);
+            users.addAll(other.affectedUserIds());
+            return new GroupChange(groupId, users, Math.max(version, other.version()));
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.dto.ReconciliationReport;
+import com.splitter.balance.model.BalanceDelta;
+import com.splitter.balance.model.BalanceTransaction;
+import com.splitter.balance.repository.BalanceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks stored balances against the expenses and confirmed settlements they derive from.
+ *
+ * Groups are reconciled in parallel up to a concurrency limit. For each group the source
+ * records are streamed and folded into expected pair amounts in long minor units, so memory
+ * is bounded by the group's pairs rather than its share count. Groups with source or balance
+ * changes inside the quiet period, including expenses deleted in it, are skipped, as their
+ * events may still be in flight.
+ * Mismatched pairs can optionally be corrected with ADJUSTMENT deltas on the group's lane.
+ */
+@Slf4j
+@Service
+public class BalanceReconciliationService {
+
+    private final BalanceRepository balanceRepository;
+    private final BalanceBatchWriter batchWriter;
+    private final ReconciliationSources sources;
+    private final GroupLaneExecutor lanes;
+    private final GroupSummaryCache summaryCache;
+    private final BalanceEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Timer duration;
+    private final Counter pairsMismatched;
+    private final Counter pairsRepaired;
+    private final Map<UUID, Run> runs;
+
+    @Value("${balance.reconciliation.concurrency:8}")
+    private int concurrency;
+
+    @Value("${balance.reconciliation.quiet-seconds:300}")
+    private long quietSeconds;
+
+    @Value("${balance.reconciliation.max-reported-discrepancies:1000}")
+    private int maxReportedDiscrepancies;
+
+    private volatile Run current;
+
+    public BalanceReconciliationService(
+            BalanceRepository balanceRepository,
+            BalanceBatchWriter batchWriter,
+            ReconciliationSources sources,
+            GroupLaneExecutor lanes,
+            GroupSummaryCache summaryCache,
+            BalanceEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${balance.reconciliation.retained-reports:20}") int retainedReports) {
+        this.balanceRepository = balanceRepository;
+        this.batchWriter = batchWriter;
+        this.sources = sources;
+        this.lanes = lanes;
+        this.summaryCache = summaryCache;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.duration = Timer.builder("balance.reconciliation.duration")
+                .description("Duration of balance reconciliation runs")
+                .register(meterRegistry);
+        this.pairsMismatched = Counter.builder("balance.reconciliation.pairs")
+                .description("User pairs checked by reconciliation, by outcome")
+                .tag("result", "mismatched")
+                .register(meterRegistry);
+        this.pairsRepaired = Counter.builder("balance.reconciliation.pairs")
+                .description("User pairs checked by reconciliation, by outcome")
+                .tag("result", "repaired")
+                .register(meterRegistry);
+        this.runs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Run> eldest) {
+                return size() > retainedReports;
+            }
+        });
+    }
+
+    /**
+     * Start a reconciliation of every group in the background. While a run is in progress,
+     * its report is returned instead of starting another.
+     *
+     * @param repair Whether to correct mismatched pairs
+     * @return The report of the started or running run
+     */
+    public synchronized Mono<ReconciliationReport> start(boolean repair) {
+        Run running = current;
+        if (running != null && running.finishedAt == null) {
+            return Mono.just(running.toReport());
+        }
+
+        Run run = new Run(UUID.randomUUID(), repair, Instant.now());
+        runs.put(run.id, run);
+        current = run;
+        log.info("Starting balance reconciliation {} (repair: {})", run.id, repair);
+
+        long startedAt = System.nanoTime();
+        Instant quietSince = run.startedAt.minusSeconds(quietSeconds);
+        balanceRepository.findAllGroupIds()
+                .flatMap(groupId -> reconcileGroup(run, groupId, quietSince), concurrency)
+                .then()
+                .doFinally(signal -> duration.record(Duration.ofNanos(System.nanoTime() - startedAt)))
+                .subscribe(v -> { },
+                        error -> {
+                            log.error("Balance reconciliation {} failed", run.id, error);
+                            run.finish("FAILED");
+                        },
+                        () -> {
+                            log.info("Balance reconciliation {} finished: {} groups checked, {} mismatched, {} pairs repaired",
+                                    run.id, run.checked.get(), run.mismatched.get(), run.repairedPairs.get());
+                            run.finish("COMPLETED");
+                        });
+        return Mono.just(run.toReport());
+    }
+
+    /**
+     * Get the report of a recent run.
+     */
+    public Mono<ReconciliationReport> getReport(UUID runId) {
+        return Mono.justOrEmpty(runs.get(runId))
+                .map(Run::toReport)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Unknown reconciliation run: " + runId)));
+    }
+
+    private Mono<Void> reconcileGroup(Run run, UUID groupId, Instant quietSince) {
+        return Mono.defer(() -> {
+            PairLedger expected = new PairLedger();
+            PairLedger stored = new PairLedger();
+
+            // Sequential, since both source streams fold into the same ledger
+            Mono<Boolean> sourcesQuiet = Flux.concat(
+                            sources.expenseShares(groupId, quietSince)
+                                    .doOnNext(share -> {
+                                        // A deleted expense only counts towards the quiet check
+                                        if (!share.isDeleted()) {
+                                            expected.add(share.getUserId(), share.getPaidBy(), share.getAmount(),
+                                                    share.getCurrency());
+                                        }
+                                    })
+                                    .map(share -> Optional.ofNullable(share.getUpdatedAt())),
+                            sources.confirmedSettlements(groupId)
+                                    // Mirrors the delta BalanceService applies for a settlement event
+                                    .doOnNext(settlement -> expected.add(settlement.getToUserId(),
+                                            settlement.getFromUserId(), settlement.getAmount().negate(),
+                                            settlement.getCurrency()))
+                                    .map(settlement -> Optional.ofNullable(settlement.getUpdatedAt())))
+                    .all(updatedAt -> updatedAt.map(at -> at.isBefore(quietSince)).orElse(true));
+
+            Mono<Boolean> balancesQuiet = balanceRepository.findByGroupId(groupId)
+                    .doOnNext(balance -> stored.add(
+                            balance.getFromUserId(), balance.getToUserId(), balance.getAmount(), balance.getCurrency()))
+                    .all(balance -> balance.getUpdatedAt() == null || balance.getUpdatedAt().isBefore(quietSince));
+
+            return sourcesQuiet.zipWhen(ignored -> balancesQuiet)
+                    .flatMap(quiet -> {
+                        run.checked.incrementAndGet();
+                        if (!quiet.getT1() || !quiet.getT2()) {
+                            groupResult("skipped");
+                            run.skipped.incrementAndGet();
+                            return Mono.empty();
+                        }
+                        List<PairLedger.Difference> differences = PairLedger.diff(expected, stored);
+                        if (differences.isEmpty()) {
+                            groupResult("matched");
+                            run.matched.incrementAndGet();
+                            return Mono.empty();
+                        }
+
+                        groupResult("mismatched");
+                        run.mismatched.incrementAndGet();
+                        pairsMismatched.increment(differences.size());
+                        log.warn("Group {} has {} mismatched balance pairs", groupId, differences.size());
+                        if (!run.repair) {
+                            run.record(groupId, differences, false, maxReportedDiscrepancies);
+                            return Mono.empty();
+                        }
+                        return repair(run, groupId, differences)
+                                .doOnSuccess(v -> run.record(groupId, differences, true, maxReportedDiscrepancies));
+                    })
+                    .onErrorResume(error -> {
+                        log.error("Failed to reconcile balances of group: {}", groupId, error);
+                        groupResult("failed");
+                        run.failed.incrementAndGet();
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    /**
+     * Write one ADJUSTMENT delta per mismatched pair, referencing the run, on the group's lane.
+     */
+    private Mono<Void> repair(Run run, UUID groupId, List<PairLedger.Difference> differences) {
+        List<BalanceDelta> deltas = new ArrayList<>(differences.size());
+        Set<UUID> affectedUsers = new LinkedHashSet<>();
+        for (PairLedger.Difference difference : differences) {
+            PairLedger.PairKey key = difference.key();
+            deltas.add(new BalanceDelta(groupId, key.userA(), key.userB(), difference.correction(),
+                    key.currency(), BalanceTransaction.TransactionType.ADJUSTMENT, run.id,
+                    "Reconciliation adjustment"));
+            affectedUsers.add(key.userA());
+            affectedUsers.add(key.userB());
+        }
+
+        return lanes.submit(groupId, batchWriter.write(deltas))
+                .then(summaryCache.bumpVersion(groupId)
+                        .doOnNext(version -> eventPublisher.groupChanged(groupId, affectedUsers, version))
+                        .onErrorResume(error -> Mono.empty()))
+                .doOnSuccess(v -> {
+                    run.repairedPairs.addAndGet(differences.size());
+                    pairsRepaired.increment(differences.size());
+                })
+                .then();
+    }
+
+    private void groupResult(String result) {
+        meterRegistry.counter("balance.reconciliation.groups", "result", result).increment();
+    }
+
+    /**
+     * Mutable progress of one run.
+     */
+    private static final class Run {
+
+        private final UUID id;
+        private final boolean repair;
+        private final Instant startedAt;
+        private final AtomicInteger checked = new AtomicInteger();
+        private final AtomicInteger matched = new AtomicInteger();
+        private final AtomicInteger mismatched = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger mismatchedPairs = new AtomicInteger();
+        private final AtomicInteger repairedPairs = new AtomicInteger();
+        private final List<ReconciliationReport.Discrepancy> discrepancies = new ArrayList<>();
+        private volatile String status = "RUNNING";
+        private volatile Instant finishedAt;
+
+        Run(UUID id, boolean repair, Instant startedAt) {
+            this.id = id;
+            this.repair = repair;
+            this.startedAt = startedAt;
+        }
+
+        void record(UUID groupId, List<PairLedger.Difference> differences, boolean repaired, int limit) {
+            mismatchedPairs.addAndGet(differences.size());
+            synchronized (discrepancies) {
+                for (PairLedger.Difference difference : differences) {
+                    if (discrepancies.size() >= limit) {
+                        return;
+                    }
+                    discrepancies.add(ReconciliationReport.Discrepancy.builder()
+                            .groupId(groupId)
+                            .fromUserId(difference.key().userA())
+                            .toUserId(difference.key().userB())
+                            .currency(difference.key().currency())
+                            .expectedAmount(difference.expectedAmount())
+                            .storedAmount(difference.actualAmount())
+                            .repaired(repaired)
+                            .build());
+                }
+            }
+        }
+
+        void finish(String finalStatus) {
+            status = finalStatus;
+            finishedAt = Instant.now();
+        }
+
+        ReconciliationReport toReport() {
+            List<ReconciliationReport.Discrepancy> reported;
+            synchronized (discrepancies) {
+                reported = List.copyOf(discrepancies);
+            }
+            return ReconciliationReport.builder()
+                    .runId(id)
+                    .status(status)
+                    .repair(repair)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .groupsChecked(checked.get())
+                    .groupsMatched(matched.get())
+                    .groupsMismatched(mismatched.get())
+                    .groupsSkipped(skipped.get())
+                    .groupsFailed(failed.get())
+                    .pairsMismatched(mismatchedPairs.get())
+                    .pairsRepaired(repairedPairs.get())
+                    .discrepanciesTruncated(reported.size() < mismatchedPairs.get())
+                    .discrepancies(reported)
+                    .build();
+        }
+    }
+}
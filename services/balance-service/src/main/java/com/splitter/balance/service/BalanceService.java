@@ -3,26 +3,32 @@ package com.splitter.balance.service;
 import com.splitter.balance.dto.BalanceDto;
 import com.splitter.balance.dto.GroupBalanceSummary;
 import com.splitter.balance.dto.UserBalanceSummary;
+import com.splitter.balance.exception.ExchangeRateUnavailableException;
 import com.splitter.balance.model.Balance;
+import com.splitter.balance.model.BalanceDelta;
 import com.splitter.balance.model.BalanceTransaction;
+import com.splitter.balance.model.GroupSettings;
+import com.splitter.balance.model.UserNetPosition;
 import com.splitter.balance.repository.BalanceRepository;
 import com.splitter.balance.repository.BalanceTransactionRepository;
+import com.splitter.balance.repository.UserNetPositionRepository;
 import com.splitter.common.events.EventTopics;
 import com.splitter.common.events.expense.ExpenseCreatedEvent;
+import com.splitter.common.events.expense.ExpensesImportedEvent;
 import com.splitter.common.events.expense.ExpenseDeletedEvent;
 import com.splitter.common.events.settlement.SettlementCreatedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -37,18 +43,37 @@ public class BalanceService {
 
     private final BalanceRepository balanceRepository;
     private final BalanceTransactionRepository transactionRepository;
+    private final UserNetPositionRepository netPositionRepository;
     private final DebtSimplifier debtSimplifier;
-    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final GroupDebtPlans debtPlans;
+    private final GroupSettingsService groupSettingsService;
+    private final BalanceBatchWriter batchWriter;
+    private final GroupSummaryCache summaryCache;
+    private final HotGroupTracker hotGroups;
+    private final ResidentGroups residentGroups;
+    private final TransactionalOperator transactionalOperator;
+    private final GroupLaneExecutor lanes;
+    private final ExchangeRateTable exchangeRates;
+    private final ProcessedEventStore processedEvents;
+    private final BalanceEventPublisher eventPublisher;
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
-    private static final String BALANCE_CACHE_PREFIX = "balance:group:";
-    private static final Duration CACHE_TTL = Duration.ofMinutes(5);
+    private static final int REVERSAL_CHUNK_SIZE = 500;
+
+    @Value("${balance.ledger.canonical-pairs:true}")
+    private boolean canonicalPairs;
+
+    @Value("${balance.summary-cache.refresh-on-write:true}")
+    private boolean refreshSummaryOnWrite;
 
     /**
      * Get all balances for a group.
      */
     public Flux<BalanceDto> getGroupBalances(UUID groupId) {
-        return balanceRepository.findByGroupId(groupId)
+        return resident(groupId)
+                .map(resident -> Flux.fromIterable(resident.balances()))
+                .defaultIfEmpty(balanceRepository.findByGroupId(groupId))
+                .flatMapMany(balances -> balances)
                 .map(this::toDto);
     }
 
@@ -56,7 +81,11 @@ public class BalanceService {
      * Get non-zero balances (active debts) for a group.
      */
     public Flux<BalanceDto> getActiveDebts(UUID groupId) {
-        return balanceRepository.findNonZeroBalancesByGroupId(groupId)
+        return resident(groupId)
+                .map(resident -> Flux.fromIterable(resident.balances())
+                        .filter(balance -> balance.getAmount().signum() != 0))
+                .defaultIfEmpty(balanceRepository.findNonZeroBalancesByGroupId(groupId))
+                .flatMapMany(balances -> balances)
                 .map(this::toDto);
     }
 
@@ -64,49 +93,228 @@ public class BalanceService {
      * Get balance summary for a group.
      */
     public Mono<GroupBalanceSummary> getGroupBalanceSummary(UUID groupId) {
-        return balanceRepository.findNonZeroBalancesByGroupId(groupId)
+        return resident(groupId)
+                .mapNotNull(ResidentGroups.Resident::summary)
+                .switchIfEmpty(Mono.defer(() -> summaryCache.get(groupId, () -> computeGroupBalanceSummary(groupId))));
+    }
+
+    /**
+     * Resident state of a hot group at its current version, loading it if needed. Completes
+     * empty for cold groups, or when the state cannot be read, so callers use the database.
+     */
+    private Mono<ResidentGroups.Resident> resident(UUID groupId) {
+        hotGroups.record(groupId);
+        if (!hotGroups.isHot(groupId)) {
+            return Mono.empty();
+        }
+        return summaryCache.currentVersion(groupId)
+                .flatMap(version -> Mono.justOrEmpty(residentGroups.get(groupId, version))
+                        .switchIfEmpty(Mono.defer(() -> residentGroups.load(groupId, version))))
+                .onErrorResume(error -> {
+                    log.warn("Resident state unavailable for group {}: {}", groupId, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Compute the balance summary for a group from stored balances. If a bucket's currency
+     * has no exchange rate, each currency is simplified on its own instead.
+     */
+    private Mono<GroupBalanceSummary> computeGroupBalanceSummary(UUID groupId) {
+        return groupSettingsService.getSettings(groupId)
+                .flatMap(settings -> balanceRepository.findNonZeroBalancesByGroupId(groupId)
+                        .collectList()
+                        .map(balances -> {
+                            String currency = settings.getDefaultCurrency();
+                            if (!canConvertAll(balances, currency)) {
+                                return toPerCurrencySummary(groupId, balances, simplifyMode(settings));
+                            }
+                            return toSummary(groupId, currency,
+                                    debtSimplifier.simplify(toDebts(balances, currency), simplifyMode(settings)));
+                        }));
+    }
+
+    /**
+     * Read what the summary of a write needs while the group's lane is still held: the
+     * group's settings and, if its plan can be patched, the new positions of the affected
+     * users. Read later, the positions could already include the next write on the lane.
+     * Plans are only patched for groups whose positions are all in the plan currency.
+     */
+    private Mono<SummaryInput> readSummaryInput(UUID groupId, long version, Set<UUID> affectedUserIds) {
+        return groupSettingsService.getSettings(groupId).flatMap(settings -> {
+            String currency = settings.getDefaultCurrency();
+            if (!debtPlans.canPatch(groupId, version, currency)) {
+                return Mono.just(new SummaryInput(settings, null));
+            }
+            return netPositionRepository.findByGroupIdAndUserIds(groupId, affectedUserIds)
+                    .collectList()
+                    .map(rows -> {
+                        if (!rows.stream().allMatch(row -> currency.equals(row.getCurrency()))) {
+                            return new SummaryInput(settings, null);
+                        }
+                        Map<UUID, BigDecimal> positions = new HashMap<>();
+                        affectedUserIds.forEach(userId -> positions.put(userId, BigDecimal.ZERO));
+                        for (UserNetPosition row : rows) {
+                            positions.merge(row.getUserId(), row.getNetAmount(), BigDecimal::add);
+                        }
+                        return new SummaryInput(settings, positions);
+                    });
+        });
+    }
+
+    /**
+     * Compute the summary for the version a write just produced. Large single-currency groups
+     * with a plan at the previous version are patched with the positions read for the write;
+     * otherwise the group is simplified in full, and its plan kept for the next write if all
+     * its balances are in the group currency. Completes empty if an exchange rate is missing,
+     * so no per-currency summary is stored.
+     */
+    private Mono<GroupBalanceSummary> computeSummaryAfterWrite(UUID groupId, long version, SummaryInput input) {
+        GroupSettings settings = input.settings();
+        String currency = settings.getDefaultCurrency();
+        Mono<GroupBalanceSummary> full = Mono.defer(() -> balanceRepository.findNonZeroBalancesByGroupId(groupId)
                 .collectList()
+                .filter(balances -> canConvertAll(balances, currency))
                 .map(balances -> {
-                    // Convert to simplified debts
-                    List<DebtSimplifier.Debt> debts = balances.stream()
-                            .filter(b -> b.getAmount().compareTo(BigDecimal.ZERO) > 0)
-                            .map(b -> new DebtSimplifier.Debt(
-                                    b.getFromUserId(),
-                                    b.getToUserId(),
-                                    b.getAmount()))
-                            .collect(Collectors.toList());
-
-                    List<DebtSimplifier.Debt> simplified = debtSimplifier.simplify(debts);
-
-                    List<GroupBalanceSummary.SimplifiedDebt> simplifiedDebts = simplified.stream()
-                            .map(d -> GroupBalanceSummary.SimplifiedDebt.builder()
-                                    .fromUserId(d.fromUserId())
-                                    .toUserId(d.toUserId())
-                                    .amount(d.amount())
-                                    .currency("USD")
-                                    .build())
-                            .collect(Collectors.toList());
-
-                    return GroupBalanceSummary.builder()
-                            .groupId(groupId)
-                            .simplifiedDebts(simplifiedDebts)
-                            .build();
-                });
+                    List<DebtSimplifier.Debt> debts = toDebts(balances, currency);
+                    List<DebtSimplifier.Debt> simplified = debtSimplifier.simplify(debts, simplifyMode(settings));
+                    // Converted amounts move with exchange rates, so only single-currency plans are kept
+                    if (balances.stream().allMatch(b -> currency.equals(b.getCurrency()))) {
+                        debtPlans.put(groupId, version, currency, debts, simplified);
+                    }
+                    return toSummary(groupId, currency, simplified);
+                }));
+        if (input.positions() == null) {
+            return full;
+        }
+
+        return Mono.fromSupplier(() -> debtPlans.patch(groupId, version, currency, input.positions()))
+                .map(patched -> toSummary(groupId, currency, patched))
+                .switchIfEmpty(full);
+    }
+
+    /**
+     * Convert a group's non-zero balances into debts in the given currency. Canonical rows
+     * carry a signed amount, so negative rows are reversed debts.
+     */
+    private List<DebtSimplifier.Debt> toDebts(List<Balance> balances, String currency) {
+        List<DebtSimplifier.Debt> debts = new ArrayList<>(balances.size());
+        for (Balance b : balances) {
+            BigDecimal amount = exchangeRates.convert(b.getAmount(), b.getCurrency(), currency);
+            if (amount.signum() > 0) {
+                debts.add(new DebtSimplifier.Debt(b.getFromUserId(), b.getToUserId(), amount));
+            } else if (amount.signum() < 0) {
+                debts.add(new DebtSimplifier.Debt(b.getToUserId(), b.getFromUserId(), amount.negate()));
+            }
+        }
+        return debts;
+    }
+
+    private boolean canConvertAll(List<Balance> balances, String currency) {
+        return balances.stream().allMatch(b -> exchangeRates.canConvert(b.getCurrency(), currency));
+    }
+
+    private DebtSimplifier.Mode simplifyMode(GroupSettings settings) {
+        return settings.isSimplifyDebts() ? DebtSimplifier.Mode.OPTIMAL : DebtSimplifier.Mode.GREEDY;
+    }
+
+    private GroupBalanceSummary toSummary(UUID groupId, String currency, List<DebtSimplifier.Debt> simplified) {
+        return GroupBalanceSummary.builder()
+                .groupId(groupId)
+                .currency(currency)
+                .simplifiedDebts(toSimplifiedDebts(simplified, currency))
+                .build();
+    }
+
+    /**
+     * Summary without conversion, used while an exchange rate is missing: each currency's
+     * buckets are simplified separately and the summary itself has no currency.
+     */
+    private GroupBalanceSummary toPerCurrencySummary(UUID groupId, List<Balance> balances, DebtSimplifier.Mode mode) {
+        log.warn("Missing exchange rate for group {}, summarizing its balances per currency", groupId);
+        Map<String, List<Balance>> byCurrency = balances.stream()
+                .collect(Collectors.groupingBy(Balance::getCurrency, TreeMap::new, Collectors.toList()));
+        List<GroupBalanceSummary.SimplifiedDebt> simplifiedDebts = new ArrayList<>();
+        byCurrency.forEach((currency, bucket) -> simplifiedDebts.addAll(
+                toSimplifiedDebts(debtSimplifier.simplify(toDebts(bucket, currency), mode), currency)));
+
+        return GroupBalanceSummary.builder()
+                .groupId(groupId)
+                .simplifiedDebts(simplifiedDebts)
+                .build();
+    }
+
+    private List<GroupBalanceSummary.SimplifiedDebt> toSimplifiedDebts(List<DebtSimplifier.Debt> simplified,
+                                                                       String currency) {
+        return simplified.stream()
+                .map(d -> GroupBalanceSummary.SimplifiedDebt.builder()
+                        .fromUserId(d.fromUserId())
+                        .toUserId(d.toUserId())
+                        .amount(d.amount())
+                        .currency(currency)
+                        .build())
+                .collect(Collectors.toList());
     }
 
     /**
-     * Get balance between two users in a group.
+     * Get balance between two users in a group, with every currency bucket converted
+     * into the group currency. If a rate is missing and the pair has a single bucket, that
+     * bucket is returned unconverted.
+     *
+     * @throws ExchangeRateUnavailableException if a rate is missing for a pair with several
+     *         currencies; {@link #getBalancesBetweenByCurrency} still answers then
      */
     public Mono<BalanceDto> getBalanceBetween(UUID groupId, UUID userId1, UUID userId2) {
-        return balanceRepository.findByGroupIdAndFromUserIdAndToUserId(groupId, userId1, userId2)
-                .map(this::toDto)
-                .switchIfEmpty(Mono.just(BalanceDto.builder()
-                        .groupId(groupId)
-                        .fromUserId(userId1)
-                        .toUserId(userId2)
-                        .amount(BigDecimal.ZERO)
-                        .currency("USD")
-                        .build()));
+        return Mono.zip(getBalancesBetweenByCurrency(groupId, userId1, userId2).collectList(),
+                        groupSettingsService.getSettings(groupId))
+                .flatMap(tuple -> {
+                    List<BalanceDto> buckets = tuple.getT1();
+                    String currency = tuple.getT2().getDefaultCurrency();
+                    if (buckets.stream().allMatch(bucket -> exchangeRates.canConvert(bucket.currency(), currency))) {
+                        return Mono.just(convertBuckets(groupId, userId1, userId2, buckets, currency));
+                    }
+                    if (buckets.size() == 1) {
+                        return Mono.just(buckets.get(0));
+                    }
+                    return Mono.error(new ExchangeRateUnavailableException(currency));
+                });
+    }
+
+    /**
+     * Get balance between two users in a group, one entry per currency, without conversion.
+     */
+    public Flux<BalanceDto> getBalancesBetweenByCurrency(UUID groupId, UUID userId1, UUID userId2) {
+        Flux<Balance> rows = resident(groupId)
+                .map(resident -> Flux.fromIterable(resident.balances())
+                        .filter(b -> (b.getFromUserId().equals(userId1) && b.getToUserId().equals(userId2))
+                                || (canonicalPairs && b.getFromUserId().equals(userId2) && b.getToUserId().equals(userId1))))
+                .defaultIfEmpty(canonicalPairs
+                        ? balanceRepository.findCanonicalPair(groupId, userId1, userId2)
+                        : balanceRepository.findByGroupIdAndFromUserIdAndToUserId(groupId, userId1, userId2))
+                .flatMapMany(balances -> balances);
+        return canonicalPairs
+                ? rows.map(b -> orientTo(toDto(b), userId1, userId2))
+                : rows.map(this::toDto);
+    }
+
+    private BalanceDto convertBuckets(UUID groupId, UUID userId1, UUID userId2,
+                                      List<BalanceDto> buckets, String currency) {
+        BigDecimal amount = BigDecimal.ZERO;
+        Instant updatedAt = null;
+        for (BalanceDto bucket : buckets) {
+            amount = amount.add(exchangeRates.convert(bucket.amount(), bucket.currency(), currency));
+            if (updatedAt == null || (bucket.updatedAt() != null && bucket.updatedAt().isAfter(updatedAt))) {
+                updatedAt = bucket.updatedAt();
+            }
+        }
+        return BalanceDto.builder()
+                .groupId(groupId)
+                .fromUserId(userId1)
+                .toUserId(userId2)
+                .amount(amount)
+                .currency(currency)
+                .updatedAt(updatedAt)
+                .build();
     }
 
     /**
@@ -119,41 +327,309 @@ public class BalanceService {
         ).map(this::toDto);
     }
 
+    /**
+     * Get a user's net position in each group and overall, from the net position projection.
+     * Group debts are listed per currency; overall totals are converted into the user's
+     * most common currency, and left out while an exchange rate for that is missing.
+     */
+    public Mono<UserBalanceSummary> getUserBalanceSummary(UUID userId) {
+        return netPositionRepository.findNonZeroByUserId(userId)
+                .collectList()
+                .map(positions -> {
+                    String primaryCurrency = positions.stream()
+                            .collect(Collectors.groupingBy(UserNetPosition::getCurrency, LinkedHashMap::new,
+                                    Collectors.counting()))
+                            .entrySet().stream()
+                            .max(Map.Entry.comparingByValue())
+                            .map(Map.Entry::getKey)
+                            .orElse("USD");
+
+                    Map<UUID, BigDecimal> groupNets = new LinkedHashMap<>();
+                    List<UserBalanceSummary.GroupDebt> groupDebts = new ArrayList<>(positions.size());
+                    boolean convertible = positions.stream()
+                            .allMatch(position -> exchangeRates.canConvert(position.getCurrency(), primaryCurrency));
+                    for (UserNetPosition position : positions) {
+                        if (convertible) {
+                            groupNets.merge(position.getGroupId(), exchangeRates.convert(
+                                    position.getNetAmount(), position.getCurrency(), primaryCurrency), BigDecimal::add);
+                        }
+                        groupDebts.add(UserBalanceSummary.GroupDebt.builder()
+                                .groupId(position.getGroupId())
+                                .netBalance(position.getNetAmount())
+                                .currency(position.getCurrency())
+                                .build());
+                    }
+
+                    BigDecimal totalOwed = BigDecimal.ZERO;
+                    BigDecimal totalOwing = BigDecimal.ZERO;
+                    for (BigDecimal net : groupNets.values()) {
+                        if (net.signum() > 0) {
+                            totalOwed = totalOwed.add(net);
+                        } else {
+                            totalOwing = totalOwing.add(net.negate());
+                        }
+                    }
+
+                    return UserBalanceSummary.builder()
+                            .userId(userId)
+                            .totalOwed(convertible ? totalOwed : null)
+                            .totalOwing(convertible ? totalOwing : null)
+                            .netBalance(convertible ? totalOwed.subtract(totalOwing) : null)
+                            .primaryCurrency(primaryCurrency)
+                            .groupDebts(groupDebts)
+                            .build();
+                });
+    }
+
     /**
      * Process expense creation event to update balances.
      */
-    @Transactional
     public Mono<Void> processExpenseCreated(ExpenseCreatedEvent event) {
-        log.info("Processing expense created event: {}", event.getExpenseId());
+        UUID groupId = event.getData().getGroupId();
+        log.info("Processing expense created event: {}", event.getData().getExpenseId());
+        hotGroups.record(groupId);
 
-        UUID groupId = event.getGroupId();
-        UUID paidBy = event.getPaidBy();
+        List<BalanceDelta> deltas = toDeltas(event);
+        // concatMap keeps the expense's own deltas in order within its lane
+        return lanes.submit(groupId,
+                applyOnce(ProcessedEventStore.keyOf(event), Flux.fromIterable(deltas)
+                                .concatMap(this::updateBalance)
+                                .then(Mono.fromSupplier(() -> affectedUsers(deltas))))
+                        .flatMap(users -> onGroupChanged(groupId, users)));
+    }
+
+    /**
+     * Process one chunk of a bulk import, writing all its deltas with one batched write.
+     */
+    public Mono<Void> processExpensesImported(ExpensesImportedEvent event) {
+        log.info("Processing {} imported expenses for group {}", event.getExpenses().size(), event.getGroupId());
+        hotGroups.record(event.getGroupId());
 
-        // Create balance updates for each share
-        return Flux.fromIterable(event.getShares())
+        List<BalanceDelta> deltas = toDeltas(event);
+        return lanes.submit(event.getGroupId(),
+                applyOnce(ProcessedEventStore.keyOf(event), batchWriter.write(deltas)
+                                .then(Mono.fromSupplier(() -> affectedUsers(deltas))))
+                        .flatMap(users -> onGroupChanged(event.getGroupId(), users)));
+    }
+
+    /**
+     * Process settlement event to update balances.
+     */
+    public Mono<Void> processSettlement(SettlementCreatedEvent event) {
+        log.info("Processing settlement event: {}", event.getSettlementId());
+        hotGroups.record(event.getGroupId());
+
+        BalanceDelta delta = toDelta(event);
+        return lanes.submit(event.getGroupId(),
+                applyOnce(ProcessedEventStore.keyOf(event), updateBalance(delta)
+                                .then(Mono.fromSupplier(() -> affectedUsers(List.of(delta)))))
+                        .flatMap(users -> onGroupChanged(event.getGroupId(), users)));
+    }
+
+    /**
+     * Process expense deletion by reversing the balance transactions the expense recorded.
+     */
+    public Mono<Void> processExpenseDeleted(ExpenseDeletedEvent event) {
+        UUID groupId = event.getData().getGroupId();
+        UUID expenseId = event.getData().getExpenseId();
+        log.info("Processing expense deleted event: {}", expenseId);
+        hotGroups.record(groupId);
+
+        return lanes.submit(groupId,
+                applyOnce(ProcessedEventStore.keyOf(event), reverseExpense(expenseId))
+                        .flatMap(users -> onGroupChanged(groupId, users)));
+    }
+
+    /**
+     * Apply one event's changes in a single transaction together with its processed-event
+     * record, unless the event has been applied before or is claimed by a concurrent consumer.
+     *
+     * @return The users whose balances changed, or empty for a duplicate
+     */
+    private Mono<Set<UUID>> applyOnce(String eventKey, Mono<Set<UUID>> changes) {
+        List<String> keys = eventKey != null ? List.of(eventKey) : List.of();
+        return processedEvents.findProcessed(keys)
+                .flatMap(processed -> {
+                    if (!processed.isEmpty()) {
+                        log.debug("Skipping already processed event {}", eventKey);
+                        return Mono.<Set<UUID>>empty();
+                    }
+                    return transactionalOperator.transactional(processedEvents.markProcessed(keys)
+                                    .flatMap(claimed -> {
+                                        if (claimed.size() < keys.size()) {
+                                            log.debug("Skipping event {} applied by another consumer", eventKey);
+                                            return Mono.<Set<UUID>>empty();
+                                        }
+                                        return changes;
+                                    }))
+                            .doOnNext(users -> processedEvents.remember(keys));
+                });
+    }
+
+    /**
+     * Apply a batch of expense and settlement events. Events already applied, or repeated
+     * within the batch, are skipped. The rest are partitioned by lane; each lane writes its
+     * deltas as one batched write, then reverses its deleted expenses.
+     */
+    public Mono<Void> processBatch(List<Object> events) {
+        Set<String> batchKeys = new LinkedHashSet<>();
+        for (Object event : events) {
+            String key = ProcessedEventStore.keyOf(event);
+            if (key != null) {
+                batchKeys.add(key);
+            }
+        }
+
+        return processedEvents.findProcessed(batchKeys).flatMap(processed -> {
+            Map<Integer, List<LaneEvent>> batchesByLane = new HashMap<>();
+            Set<String> seen = new HashSet<>(processed);
+
+            for (Object event : events) {
+                String key = ProcessedEventStore.keyOf(event);
+                if (key != null && !seen.add(key)) {
+                    continue;
+                }
+                LaneEvent laneEvent;
+                if (event instanceof ExpenseCreatedEvent expenseCreated) {
+                    laneEvent = new LaneEvent(key, expenseCreated.getData().getGroupId(),
+                            toDeltas(expenseCreated), null);
+                } else if (event instanceof ExpensesImportedEvent expensesImported) {
+                    laneEvent = new LaneEvent(key, expensesImported.getGroupId(), toDeltas(expensesImported), null);
+                } else if (event instanceof SettlementCreatedEvent settlementCreated) {
+                    laneEvent = new LaneEvent(key, settlementCreated.getGroupId(),
+                            List.of(toDelta(settlementCreated)), null);
+                } else if (event instanceof ExpenseDeletedEvent expenseDeleted) {
+                    laneEvent = new LaneEvent(key, expenseDeleted.getData().getGroupId(), List.of(), expenseDeleted);
+                } else {
+                    continue;
+                }
+                batchesByLane.computeIfAbsent(lanes.laneOf(laneEvent.groupId()), lane -> new ArrayList<>())
+                        .add(laneEvent);
+                hotGroups.record(laneEvent.groupId());
+            }
+
+            log.debug("Processing batch of {} events ({} already processed) on {} lanes",
+                    events.size(), processed.size(), batchesByLane.size());
+            return Flux.fromIterable(batchesByLane.entrySet())
+                    .flatMap(entry -> lanes.submitToLane(entry.getKey(), applyLaneBatch(entry.getValue())))
+                    .then();
+        });
+    }
+
+    /**
+     * Claim the lane's event IDs, then apply the events claimed, all in one transaction;
+     * events claimed meanwhile by a concurrent consumer are skipped. Deletions run after the
+     * creations so an expense created and deleted within the same batch is reversed.
+     */
+    private Mono<Void> applyLaneBatch(List<LaneEvent> events) {
+        List<String> keys = events.stream().map(LaneEvent::key).filter(Objects::nonNull).toList();
+        Map<UUID, Set<UUID>> usersByGroup = new LinkedHashMap<>();
+        return transactionalOperator.transactional(processedEvents.markProcessed(keys)
+                        .flatMap(claimed -> {
+                            List<LaneEvent> applied = events.stream()
+                                    .filter(event -> event.key() == null || claimed.contains(event.key()))
+                                    .toList();
+                            List<BalanceDelta> deltas = new ArrayList<>();
+                            for (LaneEvent event : applied) {
+                                deltas.addAll(event.deltas());
+                                usersByGroup.computeIfAbsent(event.groupId(), id -> new LinkedHashSet<>())
+                                        .addAll(affectedUsers(event.deltas()));
+                            }
+                            return batchWriter.write(deltas)
+                                    .thenMany(Flux.fromIterable(applied))
+                                    .filter(event -> event.deletion() != null)
+                                    .concatMap(event -> reverseExpense(event.deletion().getData().getExpenseId())
+                                            .doOnNext(users -> usersByGroup.get(event.groupId()).addAll(users)))
+                                    .then(Mono.just(claimed));
+                        }))
+                .doOnNext(processedEvents::remember)
+                .thenMany(Flux.defer(() -> Flux.fromIterable(usersByGroup.entrySet())))
+                .flatMap(entry -> onGroupChanged(entry.getKey(), entry.getValue()))
+                .then();
+    }
+
+    /**
+     * Reverse every expense transaction recorded for an expense, streaming negated deltas
+     * through the batched writer in one database transaction. Reversals are logged under
+     * the expense ID, so an expense that has already been reversed is skipped.
+     *
+     * @return The users whose balances changed
+     */
+    private Mono<Set<UUID>> reverseExpense(UUID expenseId) {
+        return transactionalOperator.transactional(transactionRepository
+                .existsByReferenceIdAndTransactionType(expenseId, BalanceTransaction.TransactionType.EXPENSE_REVERSAL)
+                .flatMap(alreadyReversed -> {
+                    if (alreadyReversed) {
+                        log.debug("Expense {} already reversed, skipping", expenseId);
+                        return Mono.just(Set.<UUID>of());
+                    }
+                    return transactionRepository.findByReferenceId(expenseId)
+                            .filter(tx -> tx.getTransactionType() == BalanceTransaction.TransactionType.EXPENSE)
+                            .map(tx -> new BalanceDelta(
+                                    tx.getGroupId(),
+                                    tx.getFromUserId(),
+                                    tx.getToUserId(),
+                                    tx.getAmount().negate(),
+                                    tx.getCurrency(),
+                                    BalanceTransaction.TransactionType.EXPENSE_REVERSAL,
+                                    expenseId,
+                                    "Expense deleted"))
+                            .buffer(REVERSAL_CHUNK_SIZE)
+                            .concatMap(chunk -> batchWriter.write(chunk).thenReturn(affectedUsers(chunk)))
+                            .reduceWith(LinkedHashSet<UUID>::new, (users, chunkUsers) -> {
+                                users.addAll(chunkUsers);
+                                return users;
+                            });
+                }));
+    }
+
+    /**
+     * Convert an expense into one delta per non-payer share.
+     */
+    private List<BalanceDelta> toDeltas(ExpenseCreatedEvent event) {
+        ExpenseCreatedEvent.ExpenseData expense = event.getData();
+        UUID paidBy = expense.getPaidBy();
+        return expense.getShares().stream()
                 .filter(share -> !share.getUserId().equals(paidBy)) // Exclude payer
-                .flatMap(share -> updateBalance(
-                        groupId,
+                .map(share -> new BalanceDelta(
+                        expense.getGroupId(),
                         share.getUserId(), // owes money
                         paidBy,            // is owed money
                         share.getAmount(),
-                        event.getCurrency(),
+                        expense.getCurrency(),
                         BalanceTransaction.TransactionType.EXPENSE,
-                        event.getExpenseId(),
-                        event.getDescription()
-                ))
-                .then()
-                .doOnSuccess(v -> invalidateCache(groupId));
+                        expense.getExpenseId(),
+                        expense.getDescription()))
+                .collect(Collectors.toList());
     }
 
     /**
-     * Process settlement event to update balances.
+     * Convert a chunk of imported expenses into one delta per non-payer share.
      */
-    @Transactional
-    public Mono<Void> processSettlement(SettlementCreatedEvent event) {
-        log.info("Processing settlement event: {}", event.getSettlementId());
+    private List<BalanceDelta> toDeltas(ExpensesImportedEvent event) {
+        List<BalanceDelta> deltas = new ArrayList<>();
+        for (ExpensesImportedEvent.ImportedExpense expense : event.getExpenses()) {
+            UUID paidBy = expense.getPaidBy();
+            for (ExpensesImportedEvent.ShareInfo share : expense.getShares()) {
+                if (share.getUserId().equals(paidBy)) {
+                    continue;
+                }
+                deltas.add(new BalanceDelta(
+                        event.getGroupId(),
+                        share.getUserId(),
+                        paidBy,
+                        share.getAmount(),
+                        expense.getCurrency(),
+                        BalanceTransaction.TransactionType.EXPENSE,
+                        expense.getExpenseId(),
+                        expense.getDescription()));
+            }
+        }
+        return deltas;
+    }
 
-        return updateBalance(
+    private BalanceDelta toDelta(SettlementCreatedEvent event) {
+        return new BalanceDelta(
                 event.getGroupId(),
                 event.getToUserId(),   // Was owed, now receiving less
                 event.getFromUserId(), // Was owing, now owes less
@@ -161,15 +637,34 @@ public class BalanceService {
                 event.getCurrency(),
                 BalanceTransaction.TransactionType.SETTLEMENT,
                 event.getSettlementId(),
-                "Settlement payment"
-        ).then()
-        .doOnSuccess(v -> invalidateCache(event.getGroupId()));
+                "Settlement payment");
     }
 
     /**
      * Update balance between two users.
      */
-    private Mono<Balance> updateBalance(
+    private Mono<Void> updateBalance(BalanceDelta delta) {
+        if (!canonicalPairs) {
+            return updateBalanceLegacy(delta.groupId(), delta.fromUserId(), delta.toUserId(),
+                    delta.amount(), delta.currency(), delta.type(),
+                    delta.referenceId(), delta.description())
+                    .then(netPositionRepository.applyDelta(delta.groupId(), delta.fromUserId(),
+                            delta.toUserId(), delta.amount(), delta.currency()))
+                    .then();
+        }
+
+        // One round trip: transaction insert, pair upsert and net positions share a single statement
+        return balanceRepository.applyDelta(
+                delta.groupId(), delta.fromUserId(), delta.toUserId(), delta.amount(),
+                delta.currency(), delta.type().name(), delta.referenceId(), delta.description()
+        ).then();
+    }
+
+    /**
+     * Update balance between two users with separate lookups for each direction.
+     * Only used when the canonical pair ledger is disabled.
+     */
+    private Mono<Balance> updateBalanceLegacy(
             UUID groupId,
             UUID fromUserId,
             UUID toUserId,
@@ -193,7 +688,7 @@ public class BalanceService {
                 .build();
 
         return transactionRepository.save(transaction)
-                .then(balanceRepository.findByGroupIdAndFromUserIdAndToUserId(groupId, fromUserId, toUserId)
+                .then(balanceRepository.findByGroupIdAndFromUserIdAndToUserIdAndCurrency(groupId, fromUserId, toUserId, currency)
                         .flatMap(balance -> {
                             balance.setAmount(balance.getAmount().add(amount));
                             balance.setUpdatedAt(Instant.now());
@@ -201,7 +696,7 @@ public class BalanceService {
                         })
                         .switchIfEmpty(Mono.defer(() -> {
                             // Check reverse direction
-                            return balanceRepository.findByGroupIdAndFromUserIdAndToUserId(groupId, toUserId, fromUserId)
+                            return balanceRepository.findByGroupIdAndFromUserIdAndToUserIdAndCurrency(groupId, toUserId, fromUserId, currency)
                                     .flatMap(reverseBalance -> {
                                         reverseBalance.setAmount(reverseBalance.getAmount().subtract(amount));
                                         reverseBalance.setUpdatedAt(Instant.now());
@@ -223,36 +718,128 @@ public class BalanceService {
     }
 
     /**
-     * Invalidate cached balance data.
+     * Bump the group's summary version once its balance changes have committed, optionally
+     * recompute the summary in the background so the next read is a hit, refresh the
+     * in-memory state of hot groups, and queue a balance event for the affected users.
+     * Runs on the group's lane; the inputs of the summary are read before it completes.
+     * Cache failures are logged but never fail the write that triggered them. If the version
+     * cannot be bumped, the cached summary and resident state are dropped rather than kept
+     * at a version that still looks current.
+     */
+    private Mono<Void> onGroupChanged(UUID groupId, Set<UUID> affectedUserIds) {
+        return summaryCache.bumpVersion(groupId)
+                .doOnError(error -> residentGroups.evict(groupId))
+                .flatMap(version -> {
+                    boolean hot = hotGroups.isHot(groupId);
+                    if (!refreshSummaryOnWrite && !hot) {
+                        return Mono.just(version);
+                    }
+                    return readSummaryInput(groupId, version, affectedUserIds)
+                            .doOnNext(input -> {
+                                Mono<GroupBalanceSummary> summary =
+                                        computeSummaryAfterWrite(groupId, version, input).cache();
+                                if (refreshSummaryOnWrite) {
+                                    summaryCache.refresh(groupId, version, summary).subscribe();
+                                }
+                                if (hot) {
+                                    // Write-through: keep the hot group's pairs and plan resident at the new version
+                                    residentGroups.refresh(groupId, version, affectedUserIds, summary).subscribe();
+                                }
+                            })
+                            .thenReturn(version);
+                })
+                .doOnNext(version -> eventPublisher.groupChanged(groupId, affectedUserIds, version))
+                .doOnError(error -> log.warn("Failed to update the summary cache of group {}: {}",
+                        groupId, error.getMessage()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Batch Kafka listener for expense and settlement events. Offsets are acknowledged
+     * only after the batch has been written. A failed batch is retried with backoff and,
+     * if it keeps failing, its events are sent to the dead-letter topic before moving on.
      */
-    private void invalidateCache(UUID groupId) {
-        redisTemplate.delete(BALANCE_CACHE_PREFIX + groupId).subscribe();
+    @KafkaListener(
+            id = "balance-batch",
+            topics = {EventTopics.EXPENSE_EVENTS, EventTopics.SETTLEMENT_EVENTS},
+            groupId = "balance-service",
+            containerFactory = "batchListenerContainerFactory",
+            autoStartup = "${balance.consumer.batch.enabled:true}")
+    public void handleEventBatch(List<Object> events, Acknowledgment acknowledgment) {
+        // Blocking the consumer thread until the write completes is what applies backpressure
+        processBatch(events).block();
+        acknowledgment.acknowledge();
     }
 
     /**
      * Kafka listener for expense events.
      */
-    @KafkaListener(topics = EventTopics.EXPENSE_EVENTS, groupId = "balance-service")
+    @KafkaListener(
+            topics = EventTopics.EXPENSE_EVENTS,
+            groupId = "balance-service",
+            autoStartup = "#{!${balance.consumer.batch.enabled:true}}")
     public void handleExpenseEvent(Object event) {
         if (event instanceof ExpenseCreatedEvent expenseCreated) {
             processExpenseCreated(expenseCreated).subscribe();
+        } else if (event instanceof ExpensesImportedEvent expensesImported) {
+            processExpensesImported(expensesImported).subscribe();
         } else if (event instanceof ExpenseDeletedEvent expenseDeleted) {
-            log.info("Expense deleted: {} - balance recalculation may be needed", 
-                    expenseDeleted.getExpenseId());
-            // TODO: Handle expense deletion - recalculate balances
+            processExpenseDeleted(expenseDeleted).subscribe();
         }
     }
 
     /**
      * Kafka listener for settlement events.
      */
-    @KafkaListener(topics = EventTopics.SETTLEMENT_EVENTS, groupId = "balance-service")
+    @KafkaListener(
+            topics = EventTopics.SETTLEMENT_EVENTS,
+            groupId = "balance-service",
+            autoStartup = "#{!${balance.consumer.batch.enabled:true}}")
     public void handleSettlementEvent(Object event) {
         if (event instanceof SettlementCreatedEvent settlementCreated) {
             processSettlement(settlementCreated).subscribe();
         }
     }
 
+    /**
+     * Present a canonical pair row from the perspective of the requested user order.
+     */
+    private BalanceDto orientTo(BalanceDto dto, UUID fromUserId, UUID toUserId) {
+        if (dto.fromUserId().equals(fromUserId)) {
+            return dto;
+        }
+        return BalanceDto.builder()
+                .id(dto.id())
+                .groupId(dto.groupId())
+                .fromUserId(fromUserId)
+                .toUserId(toUserId)
+                .amount(dto.amount().negate())
+                .currency(dto.currency())
+                .updatedAt(dto.updatedAt())
+                .build();
+    }
+
+    /**
+     * Settings of a changed group and, when its plan can be patched, the new positions of the
+     * users the write touched.
+     */
+    private record SummaryInput(GroupSettings settings, Map<UUID, BigDecimal> positions) {}
+
+    /**
+     * One event of a lane batch: its deltas, or the expense deletion to reverse.
+     */
+    private record LaneEvent(String key, UUID groupId, List<BalanceDelta> deltas, ExpenseDeletedEvent deletion) {}
+
+    private static Set<UUID> affectedUsers(Collection<BalanceDelta> deltas) {
+        Set<UUID> users = new LinkedHashSet<>();
+        for (BalanceDelta delta : deltas) {
+            users.add(delta.fromUserId());
+            users.add(delta.toUserId());
+        }
+        return users;
+    }
+
     private BalanceDto toDto(Balance balance) {
         return BalanceDto.builder()
                 .id(balance.getId())
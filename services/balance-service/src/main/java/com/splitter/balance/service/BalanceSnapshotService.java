@@ -0,0 +1,255 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.dto.BalanceRebuildResult;
+import com.splitter.balance.dto.BalanceSnapshotDto;
+import com.splitter.balance.model.BalanceSnapshot;
+import com.splitter.balance.repository.BalanceSnapshotRepository;
+import com.splitter.balance.repository.BalanceTransactionRepository;
+import com.splitter.balance.repository.UserNetPositionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Periodic per-group snapshots of the canonical pair ledger, and rebuilds of the
+ * balances table (and the net positions derived from it) from the latest snapshot
+ * plus the transactions logged after it.
+ *
+ * Both operations aggregate inside Postgres, so memory use does not grow with the
+ * length of the transaction log.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotService {
+
+    /** Watermark used when a group has no snapshot yet; orders before every transaction. */
+    private static final Instant NO_WATERMARK_AT = Instant.EPOCH;
+    private static final UUID NO_WATERMARK_ID = new UUID(0L, 0L);
+
+    private static final String REPLAYED_TRANSACTIONS = """
+            SELECT LEAST(t.from_user_id, t.to_user_id) AS user_a,
+                   GREATEST(t.from_user_id, t.to_user_id) AS user_b,
+                   CASE WHEN t.from_user_id < t.to_user_id THEN t.amount ELSE -t.amount END AS amount,
+                   t.currency
+            FROM balance_transactions t
+            WHERE t.group_id = :groupId AND (t.created_at, t.id) > (:afterAt, :afterId)
+            """;
+
+    private static final String SNAPSHOT_PAIRS = """
+            SELECT s.from_user_id AS user_a, s.to_user_id AS user_b, s.amount, s.currency
+            FROM balance_snapshot_pairs s
+            WHERE s.snapshot_id = :baseSnapshotId
+            """;
+
+    private static final String INSERT_SNAPSHOT_PAIRS = """
+            INSERT INTO balance_snapshot_pairs (snapshot_id, from_user_id, to_user_id, amount, currency)
+            SELECT :snapshotId, p.user_a, p.user_b, SUM(p.amount), p.currency
+            FROM (""" + SNAPSHOT_PAIRS + " UNION ALL " + REPLAYED_TRANSACTIONS + """
+                  AND (t.created_at, t.id) <= (:untilAt, :untilId)) p
+            GROUP BY p.user_a, p.user_b, p.currency
+            HAVING SUM(p.amount) <> 0
+            """;
+
+    private static final String DELETE_GROUP_BALANCES = """
+            DELETE FROM balances WHERE group_id = :groupId
+            """;
+
+    private static final String INSERT_REBUILT_BALANCES = """
+            INSERT INTO balances (group_id, from_user_id, to_user_id, amount, currency, updated_at)
+            SELECT :groupId, p.user_a, p.user_b, SUM(p.amount), p.currency, NOW()
+            FROM (""" + SNAPSHOT_PAIRS + " UNION ALL " + REPLAYED_TRANSACTIONS + """
+                 ) p
+            GROUP BY p.user_a, p.user_b, p.currency
+            """;
+
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final BalanceTransactionRepository transactionRepository;
+    private final UserNetPositionRepository netPositionRepository;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final GroupLaneExecutor lanes;
+    private final GroupSummaryCache summaryCache;
+
+    @Value("${balance.ledger.canonical-pairs:true}")
+    private boolean canonicalPairs;
+
+    @Value("${balance.snapshots.enabled:true}")
+    private boolean snapshotsEnabled;
+
+    @Value("${balance.snapshots.interval-ms:3600000}")
+    private long intervalMs;
+
+    @Value("${balance.snapshots.commit-lag-seconds:300}")
+    private long commitLagSeconds;
+
+    @Value("${balance.snapshots.retain:2}")
+    private int retain;
+
+    @Value("${balance.snapshots.concurrency:4}")
+    private int concurrency;
+
+    private volatile Instant lastCutoff;
+
+    /**
+     * Snapshot every group that logged transactions since the previous run.
+     */
+    @Scheduled(
+            initialDelayString = "${balance.snapshots.interval-ms:3600000}",
+            fixedDelayString = "${balance.snapshots.interval-ms:3600000}")
+    public void snapshotActiveGroups() {
+        if (!snapshotsEnabled || !canonicalPairs) {
+            return;
+        }
+        Instant cutoff = cutoff();
+        Instant since = lastCutoff != null ? lastCutoff : cutoff.minusMillis(intervalMs);
+
+        log.info("Snapshotting groups with transactions between {} and {}", since, cutoff);
+        transactionRepository.findGroupIdsActiveBetween(since, cutoff)
+                .flatMap(groupId -> createSnapshot(groupId, cutoff)
+                        .onErrorResume(error -> {
+                            log.error("Failed to snapshot balances for group: {}", groupId, error);
+                            return Mono.empty();
+                        }), concurrency)
+                .count()
+                .doOnSuccess(count -> {
+                    lastCutoff = cutoff;
+                    log.info("Created {} balance snapshots", count);
+                })
+                .doOnError(error -> log.error("Error creating balance snapshots", error))
+                .subscribe();
+    }
+
+    /**
+     * Snapshot a group now, covering transactions older than the commit lag.
+     */
+    public Mono<BalanceSnapshotDto> snapshotGroup(UUID groupId) {
+        requireCanonicalPairs();
+        return createSnapshot(groupId, cutoff())
+                .switchIfEmpty(snapshotRepository.findLatestByGroupId(groupId))
+                .map(this::toDto);
+    }
+
+    /**
+     * Rebuild a group's balances from its latest snapshot and the transactions after it.
+     * Runs on the group's lane so it cannot interleave with event processing.
+     */
+    public Mono<BalanceRebuildResult> rebuildGroup(UUID groupId) {
+        requireCanonicalPairs();
+        return lanes.submit(groupId, Mono.defer(() -> {
+                    long startedAt = System.nanoTime();
+                    return snapshotRepository.findLatestByGroupId(groupId)
+                            .map(snapshot -> new Watermark(snapshot.getId(),
+                                    snapshot.getLastTransactionAt(), snapshot.getLastTransactionId()))
+                            .defaultIfEmpty(new Watermark(null, NO_WATERMARK_AT, NO_WATERMARK_ID))
+                            .flatMap(watermark -> transactionalOperator.transactional(
+                                    databaseClient.sql(DELETE_GROUP_BALANCES)
+                                            .bind("groupId", groupId)
+                                            .then()
+                                            .then(bindWatermark(databaseClient.sql(INSERT_REBUILT_BALANCES), groupId, watermark)
+                                                    .fetch()
+                                                    .rowsUpdated())
+                                            .flatMap(pairs -> netPositionRepository.deleteByGroupId(groupId)
+                                                    .then(netPositionRepository.insertFromBalances(groupId))
+                                                    .thenReturn(pairs))
+                                            .zipWhen(pairs -> transactionRepository.countAfter(
+                                                    groupId, watermark.at(), watermark.id())))
+                                    .map(result -> BalanceRebuildResult.builder()
+                                            .groupId(groupId)
+                                            .snapshotId(watermark.snapshotId())
+                                            .snapshotWatermark(watermark.snapshotId() != null ? watermark.at() : null)
+                                            .pairs(result.getT1())
+                                            .replayedTransactions(result.getT2())
+                                            .durationMs(Duration.ofNanos(System.nanoTime() - startedAt).toMillis())
+                                            .build()));
+                }))
+                .flatMap(result -> summaryCache.bumpVersion(groupId)
+                        .onErrorResume(error -> Mono.empty())
+                        .thenReturn(result))
+                .doOnSuccess(result -> log.info("Rebuilt {} balance pairs for group {} replaying {} transactions in {} ms",
+                        result.pairs(), groupId, result.replayedTransactions(), result.durationMs()));
+    }
+
+    /**
+     * Fold the transactions up to the cutoff into a new snapshot based on the latest one.
+     * Completes empty when there is nothing new to fold.
+     */
+    private Mono<BalanceSnapshot> createSnapshot(UUID groupId, Instant cutoff) {
+        return snapshotRepository.findLatestByGroupId(groupId)
+                .map(snapshot -> new Watermark(snapshot.getId(),
+                        snapshot.getLastTransactionAt(), snapshot.getLastTransactionId()))
+                .defaultIfEmpty(new Watermark(null, NO_WATERMARK_AT, NO_WATERMARK_ID))
+                .flatMap(base -> transactionRepository.findLastAfter(groupId, base.at(), base.id(), cutoff)
+                        .flatMap(last -> transactionalOperator.transactional(
+                                snapshotRepository.save(BalanceSnapshot.builder()
+                                                .groupId(groupId)
+                                                .lastTransactionAt(last.getCreatedAt())
+                                                .lastTransactionId(last.getId())
+                                                .createdAt(Instant.now())
+                                                .build())
+                                        .flatMap(snapshot -> bindWatermark(
+                                                        databaseClient.sql(INSERT_SNAPSHOT_PAIRS), groupId, base)
+                                                .bind("snapshotId", snapshot.getId())
+                                                .bind("untilAt", last.getCreatedAt())
+                                                .bind("untilId", last.getId())
+                                                .fetch()
+                                                .rowsUpdated()
+                                                .flatMap(pairs -> {
+                                                    snapshot.setPairCount(pairs.intValue());
+                                                    return snapshotRepository.updatePairCount(snapshot.getId(), pairs.intValue());
+                                                })
+                                                .thenReturn(snapshot))))
+                        .flatMap(snapshot -> snapshotRepository.deleteAllButLatest(groupId, retain)
+                                .thenReturn(snapshot)))
+                .doOnNext(snapshot -> log.debug("Snapshot {} of group {} holds {} pairs up to {}",
+                        snapshot.getId(), groupId, snapshot.getPairCount(), snapshot.getLastTransactionAt()));
+    }
+
+    private DatabaseClient.GenericExecuteSpec bindWatermark(
+            DatabaseClient.GenericExecuteSpec spec, UUID groupId, Watermark watermark) {
+        // A missing base snapshot binds the nil UUID, which matches no snapshot pairs
+        return spec.bind("groupId", groupId)
+                .bind("baseSnapshotId", watermark.snapshotId() != null ? watermark.snapshotId() : NO_WATERMARK_ID)
+                .bind("afterAt", watermark.at())
+                .bind("afterId", watermark.id());
+    }
+
+    /**
+     * Transactions take their timestamp when their database transaction starts, so only
+     * rows older than the commit lag are guaranteed to be visible in timestamp order.
+     */
+    private Instant cutoff() {
+        return Instant.now().minusSeconds(commitLagSeconds);
+    }
+
+    private void requireCanonicalPairs() {
+        if (!canonicalPairs) {
+            throw new IllegalStateException("Snapshots and rebuilds require the canonical pair ledger");
+        }
+    }
+
+    private BalanceSnapshotDto toDto(BalanceSnapshot snapshot) {
+        return BalanceSnapshotDto.builder()
+                .id(snapshot.getId())
+                .groupId(snapshot.getGroupId())
+                .lastTransactionAt(snapshot.getLastTransactionAt())
+                .lastTransactionId(snapshot.getLastTransactionId())
+                .pairCount(snapshot.getPairCount())
+                .createdAt(snapshot.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Position in the transaction log, optionally backed by a snapshot.
+     */
+    private record Watermark(UUID snapshotId, Instant at, UUID id) {}
+}
@@ -1,19 +1,57 @@
 package com.splitter.balance.service;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for simplifying debts using graph-based algorithm.
  * Minimizes the number of transactions needed to settle all debts.
  */
+@Slf4j
 @Component
 public class DebtSimplifier {
 
+    @Value("${balance.simplifier.long-cents:true}")
+    private boolean longCentsEnabled = true;
+
+    @Value("${balance.simplifier.optimal.max-exact-members:20}")
+    private int maxExactMembers = 20;
+
+    @Value("${balance.simplifier.optimal.time-budget-ms:100}")
+    private long optimalTimeBudgetMs = 100;
+
+    /**
+     * Simplify debts with the given strategy. OPTIMAL falls back to greedy matching
+     * when its time budget runs out.
+     *
+     * @param debts List of debts as (fromUserId, toUserId, amount)
+     * @param mode  Simplification strategy
+     * @return Simplified list of debts
+     */
+    public List<Debt> simplify(List<Debt> debts, Mode mode) {
+        List<Debt> greedy = simplify(debts);
+        if (mode != Mode.OPTIMAL || greedy.size() <= 1) {
+            return greedy;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(optimalTimeBudgetMs);
+        List<Debt> optimal = OptimalDebtSolver.trySolve(debts, maxExactMembers, deadline);
+        if (optimal == null) {
+            log.debug("Optimal simplification exceeded its budget for {} debts, using greedy", debts.size());
+            return greedy;
+        }
+        // Above the exact-search size the result is heuristic, so never return more transfers than greedy
+        return optimal.size() <= greedy.size() ? optimal : greedy;
+    }
+
     /**
      * Simplify debts to minimize the number of transactions.
+     * Uses the primitive long-cents engine when the amounts allow it.
      *
      * @param debts List of debts as (fromUserId, toUserId, amount)
      * @return Simplified list of debts
@@ -23,6 +61,32 @@ public class DebtSimplifier {
             return Collections.emptyList();
         }
 
+        if (longCentsEnabled) {
+            List<Debt> simplified = LongCentsDebtEngine.trySimplify(debts);
+            if (simplified != null) {
+                return simplified;
+            }
+        }
+
+        return simplifyBigDecimal(debts);
+    }
+
+    /**
+     * Keep a simplification as a plan that can be patched as net positions change,
+     * without simplifying the whole group again.
+     *
+     * @param debts      Debts the simplification was computed from
+     * @param simplified Result of {@link #simplify(List, Mode)} for those debts
+     * @return The plan, or null when the amounts cannot be represented in long minor units
+     */
+    IncrementalDebtPlan incrementalPlan(List<Debt> debts, List<Debt> simplified) {
+        return IncrementalDebtPlan.of(debts, simplified);
+    }
+
+    /**
+     * Reference BigDecimal implementation, used for amounts the long-cents engine cannot represent.
+     */
+    List<Debt> simplifyBigDecimal(List<Debt> debts) {
         // Calculate net balance for each person
         Map<UUID, BigDecimal> netBalances = new HashMap<>();
         
@@ -75,6 +139,14 @@ public class DebtSimplifier {
         return simplified;
     }
 
+    /**
+     * Debt simplification strategies.
+     */
+    public enum Mode {
+        GREEDY,     // Match largest debtor with largest creditor
+        OPTIMAL     // Minimum number of transfers via zero-sum subset partitioning
+    }
+
     /**
      * Record representing a debt from one user to another.
      */
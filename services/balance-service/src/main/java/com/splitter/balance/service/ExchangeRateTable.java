@@ -0,0 +1,131 @@
+package com.splitter.balance.service;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process table of exchange rates, refreshed periodically from currency-service.
+ *
+ * Rates are held against a single base currency, so converting between any two
+ * currencies is two map lookups and never a remote call. A failed load is retried with
+ * backoff and the last loaded table stays in use meanwhile; until the first load succeeds
+ * only the base currency is known, so callers check {@link #canConvert} before converting.
+ */
+@Slf4j
+@Component
+public class ExchangeRateTable {
+
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+    private static final int DEFAULT_AMOUNT_SCALE = 2;
+
+    private final WebClient webClient;
+    private final String baseCurrency;
+    private final Retry retry;
+
+    /** Units of each currency per one unit of the base currency. */
+    private volatile Map<String, BigDecimal> rates;
+
+    public ExchangeRateTable(
+            WebClient.Builder webClientBuilder,
+            @Value("${balance.currency.service-url:http://localhost:8087}") String currencyServiceUrl,
+            @Value("${balance.currency.base:USD}") String baseCurrency,
+            @Value("${balance.currency.retry.attempts:5}") long retryAttempts,
+            @Value("${balance.currency.retry.initial-interval-ms:2000}") long retryInitialIntervalMs) {
+        this.webClient = webClientBuilder.baseUrl(currencyServiceUrl).build();
+        this.baseCurrency = baseCurrency;
+        this.retry = Retry.backoff(retryAttempts, Duration.ofMillis(retryInitialIntervalMs));
+        this.rates = Map.of(baseCurrency, BigDecimal.ONE);
+    }
+
+    /**
+     * Reload all rates for the base currency, retrying with backoff. The previous table stays
+     * in use if every attempt fails.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${balance.currency.refresh-interval-ms:3600000}")
+    public void refresh() {
+        webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/v1/currencies/rates")
+                        .queryParam("base", baseCurrency)
+                        .build())
+                .retrieve()
+                .bodyToFlux(RateResponse.class)
+                .filter(rate -> rate.getTargetCurrency() != null
+                        && rate.getRate() != null && rate.getRate().signum() > 0)
+                .collectMap(RateResponse::getTargetCurrency, RateResponse::getRate, HashMap::new)
+                .timeout(Duration.ofSeconds(30))
+                .retryWhen(retry)
+                .subscribe(loaded -> {
+                    loaded.put(baseCurrency, BigDecimal.ONE);
+                    rates = Map.copyOf(loaded);
+                    log.info("Loaded {} exchange rates against {}", loaded.size(), baseCurrency);
+                }, error -> log.error("Failed to refresh exchange rates, keeping {} cached rates: {}",
+                        rates.size(), error.getMessage()));
+    }
+
+    /**
+     * Whether {@link #convert} can convert between the two currencies with the current table.
+     */
+    public boolean canConvert(String fromCurrency, String toCurrency) {
+        Map<String, BigDecimal> table = rates;
+        return fromCurrency.equals(toCurrency)
+                || (table.containsKey(fromCurrency) && table.containsKey(toCurrency));
+    }
+
+    /**
+     * Convert an amount between currencies, rounded to the minor unit of the target currency.
+     *
+     * @throws IllegalStateException if no rate is known for either currency; see {@link #canConvert}
+     */
+    public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency) || amount.signum() == 0) {
+            return amount;
+        }
+        Map<String, BigDecimal> table = rates;
+        BigDecimal inBase = amount.divide(rateOf(table, fromCurrency), PRECISION);
+        return inBase.multiply(rateOf(table, toCurrency), PRECISION)
+                .setScale(scaleOf(toCurrency), RoundingMode.HALF_UP);
+    }
+
+    private static int scaleOf(String currency) {
+        try {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            return digits >= 0 ? digits : DEFAULT_AMOUNT_SCALE;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_AMOUNT_SCALE;
+        }
+    }
+
+    private BigDecimal rateOf(Map<String, BigDecimal> table, String currency) {
+        BigDecimal rate = table.get(currency);
+        if (rate == null) {
+            throw new IllegalStateException("No exchange rate available for " + currency);
+        }
+        return rate;
+    }
+
+    /**
+     * Exchange rate as returned by currency-service.
+     */
+    @Data
+    @NoArgsConstructor
+    static class RateResponse {
+        private String baseCurrency;
+        private String targetCurrency;
+        private BigDecimal rate;
+    }
+}
@@ -0,0 +1,122 @@
+package com.splitter.balance.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * In-memory incremental debt plans of recently written, large groups.
+ *
+ * Each plan is tagged with the summary cache version it reflects. A write at version
+ * v + 1 patches a plan at version v with the new positions of the users it touched; any
+ * other version means another writer or a settings change got in between, and the plan
+ * is dropped so the caller falls back to a full simplification. Plans are also rebuilt
+ * after a number of patches or an age limit to bound their drift from a full result.
+ * A patch whose positions do not fit the plan is rejected, and the plan rebuilt.
+ */
+@Slf4j
+@Component
+public class GroupDebtPlans {
+
+    private final DebtSimplifier debtSimplifier;
+    private final boolean enabled;
+    private final int minUsers;
+    private final int recomputeAfterUpdates;
+    private final long recomputeIntervalNanos;
+    private final Map<UUID, Entry> plans;
+    private final Counter patched;
+    private final Counter rebuilt;
+
+    public GroupDebtPlans(
+            DebtSimplifier debtSimplifier,
+            MeterRegistry meterRegistry,
+            @Value("${balance.simplifier.incremental.enabled:true}") boolean enabled,
+            @Value("${balance.simplifier.incremental.max-groups:1000}") int maxGroups,
+            @Value("${balance.simplifier.incremental.min-users:50}") int minUsers,
+            @Value("${balance.simplifier.incremental.recompute-after-updates:200}") int recomputeAfterUpdates,
+            @Value("${balance.simplifier.incremental.recompute-interval-ms:600000}") long recomputeIntervalMs) {
+        this.debtSimplifier = debtSimplifier;
+        this.enabled = enabled;
+        this.minUsers = minUsers;
+        this.recomputeAfterUpdates = recomputeAfterUpdates;
+        this.recomputeIntervalNanos = Duration.ofMillis(recomputeIntervalMs).toNanos();
+        this.plans = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > maxGroups;
+            }
+        });
+        this.patched = Counter.builder("balance.simplifier.incremental")
+                .description("Group summaries refreshed by patching or rebuilding an incremental plan")
+                .tag("result", "patched")
+                .register(meterRegistry);
+        this.rebuilt = Counter.builder("balance.simplifier.incremental")
+                .description("Group summaries refreshed by patching or rebuilding an incremental plan")
+                .tag("result", "rebuilt")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a plan for the version just before {@code version} is held, so the write that
+     * produced {@code version} can be applied as a patch.
+     */
+    public boolean canPatch(UUID groupId, long version, String currency) {
+        Entry entry = plans.get(groupId);
+        return entry != null && entry.version() == version - 1 && entry.currency().equals(currency);
+    }
+
+    /**
+     * Patch a group's plan with the new positions of the users a write touched.
+     *
+     * @param positions Net positions in the plan currency; users without a position are zero
+     * @return The patched transfers, or null when the plan has to be rebuilt instead
+     */
+    public List<DebtSimplifier.Debt> patch(UUID groupId, long version, String currency,
+                                           Map<UUID, BigDecimal> positions) {
+        Entry entry = plans.remove(groupId);
+        if (entry == null || entry.version() != version - 1 || !entry.currency().equals(currency)) {
+            return null;
+        }
+
+        IncrementalDebtPlan plan = entry.plan();
+        if (plan.updates() >= recomputeAfterUpdates
+                || System.nanoTime() - entry.builtAt() >= recomputeIntervalNanos
+                || !plan.update(positions)) {
+            log.debug("Rebuilding incremental debt plan of group {} after {} updates", groupId, plan.updates());
+            return null;
+        }
+
+        plans.put(groupId, new Entry(version, currency, plan, entry.builtAt()));
+        patched.increment();
+        return plan.transfers();
+    }
+
+    /**
+     * Keep a fresh plan for a group simplified in full at the given version. Only groups
+     * large enough for patching to pay off are kept.
+     */
+    public void put(UUID groupId, long version, String currency,
+                    List<DebtSimplifier.Debt> debts, List<DebtSimplifier.Debt> simplified) {
+        if (!enabled) {
+            return;
+        }
+        IncrementalDebtPlan plan = debtSimplifier.incrementalPlan(debts, simplified);
+        if (plan == null || plan.userCount() < minUsers) {
+            plans.remove(groupId);
+            return;
+        }
+        plans.put(groupId, new Entry(version, currency, plan, System.nanoTime()));
+        rebuilt.increment();
+    }
+
+    /**
+     * Plan of one group and the version and currency it reflects.
+     */
+    private record Entry(long version, String currency, IncrementalDebtPlan plan, long builtAt) {}
+}
@@ -0,0 +1,158 @@
+package com.splitter.balance.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs balance mutations on a fixed set of serial lanes keyed by group.
+ *
+ * Every group hashes to exactly one lane and each lane executes its work one task at a
+ * time in submission order, so writes for a group never interleave while different
+ * groups proceed in parallel on other lanes. A task that runs longer than the task timeout
+ * is cancelled and fails with a {@link TimeoutException}, so a hung
+ * task cannot hold its lane.
+ */
+@Slf4j
+@Component
+public class GroupLaneExecutor {
+
+    private static final Sinks.EmitFailureHandler EMIT_RETRY =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final Lane[] lanes;
+
+    public GroupLaneExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${balance.lanes.count:16}") int laneCount,
+            @Value("${balance.lanes.task-timeout-ms:30000}") long taskTimeoutMs) {
+        Duration taskTimeout = Duration.ofMillis(taskTimeoutMs);
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, meterRegistry, taskTimeout);
+        }
+        log.info("Started {} balance processing lanes", laneCount);
+    }
+
+    /**
+     * Number of lanes.
+     */
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Lane that owns the given group.
+     */
+    public int laneOf(UUID groupId) {
+        return Math.floorMod(groupId.hashCode(), lanes.length);
+    }
+
+    /**
+     * Run work on the lane that owns the group. The work is subscribed only once every
+     * task queued before it on the same lane has completed.
+     */
+    public <T> Mono<T> submit(UUID groupId, Mono<T> work) {
+        return submitToLane(laneOf(groupId), work);
+    }
+
+    /**
+     * Run work on a specific lane, for callers that have already partitioned by {@link #laneOf(UUID)}.
+     */
+    public <T> Mono<T> submitToLane(int lane, Mono<T> work) {
+        return Mono.defer(() -> {
+            Sinks.One<T> result = Sinks.one();
+            lanes[lane].enqueue(new Task<>(work, result, System.nanoTime()));
+            return result.asMono();
+        });
+    }
+
+    /**
+     * Queued work and the sink its caller is waiting on.
+     */
+    private record Task<T>(Mono<T> work, Sinks.One<T> result, long enqueuedAt) {
+
+        Mono<Void> run(Duration timeout, Runnable onTimeout) {
+            return work
+                    .timeout(timeout)
+                    .doOnError(TimeoutException.class, error -> onTimeout.run())
+                    .doOnSuccess(value -> {
+                        if (value == null) {
+                            result.tryEmitEmpty();
+                        } else {
+                            result.tryEmitValue(value);
+                        }
+                    })
+                    .doOnError(result::tryEmitError)
+                    // A failed task must not terminate the lane
+                    .onErrorResume(error -> Mono.empty())
+                    .then();
+        }
+    }
+
+    /**
+     * A single serial queue with its metrics.
+     */
+    private static final class Lane {
+
+        private final Sinks.Many<Task<?>> queue = Sinks.many().unicast().onBackpressureBuffer();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Timer waitTimer;
+        private final Timer executionTimer;
+        private final Counter timeouts;
+
+        Lane(int index, MeterRegistry meterRegistry, Duration taskTimeout) {
+            Tags tags = Tags.of("lane", String.valueOf(index));
+            meterRegistry.gauge("balance.lane.queue.depth", tags, depth);
+            waitTimer = Timer.builder("balance.lane.wait")
+                    .description("Time balance work spends queued before its lane runs it")
+                    .tags(tags)
+                    .register(meterRegistry);
+            executionTimer = Timer.builder("balance.lane.execution")
+                    .description("Time a lane spends running one unit of balance work")
+                    .tags(tags)
+                    .register(meterRegistry);
+            timeouts = Counter.builder("balance.lane.timeouts")
+                    .description("Balance work cancelled for running longer than the lane task timeout")
+                    .tags(tags)
+                    .register(meterRegistry);
+
+            queue.asFlux()
+                    .concatMap(task -> {
+                        depth.decrementAndGet();
+                        long startedAt = System.nanoTime();
+                        waitTimer.record(startedAt - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+                        return task.run(taskTimeout, () -> {
+                                    timeouts.increment();
+                                    log.warn("Cancelled balance work on lane {} after {} ms", index, taskTimeout.toMillis());
+                                })
+                                .doFinally(signal -> executionTimer.record(
+                                        System.nanoTime() - startedAt, TimeUnit.NANOSECONDS));
+                    })
+                    .subscribe();
+        }
+
+        void enqueue(Task<?> task) {
+            depth.incrementAndGet();
+            try {
+                // Producers race on the same sink; retry until the concurrent emission finishes
+                queue.emitNext(task, EMIT_RETRY);
+            } catch (Sinks.EmissionException e) {
+                depth.decrementAndGet();
+                task.result().tryEmitError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.model.GroupSettings;
+import com.splitter.balance.repository.GroupSettingsRepository;
+import com.splitter.common.events.EventTopics;
+import com.splitter.common.events.group.GroupCreatedEvent;
+import com.splitter.common.events.group.GroupUpdatedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Keeps the balance-relevant group settings in sync with group-service.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GroupSettingsService {
+
+    private final GroupSettingsRepository groupSettingsRepository;
+    private final GroupSummaryCache summaryCache;
+
+    /**
+     * Get settings for a group, falling back to group-service defaults for unknown groups.
+     *
+     * Rows only exist for groups created or updated since settings were replicated; groups
+     * that predate that have no row until their next update. A missing row therefore means
+     * the group-service defaults: debts simplified, in USD.
+     */
+    public Mono<GroupSettings> getSettings(UUID groupId) {
+        return groupSettingsRepository.findById(groupId)
+                .defaultIfEmpty(GroupSettings.builder().groupId(groupId).build());
+    }
+
+    /**
+     * Kafka listener for group events.
+     */
+    @KafkaListener(topics = EventTopics.GROUP_EVENTS, groupId = "balance-service")
+    public void handleGroupEvent(Object event) {
+        if (event instanceof GroupCreatedEvent groupCreated) {
+            GroupCreatedEvent.GroupData data = groupCreated.getData();
+            save(data.getGroupId(), data.isSimplifyDebts(), data.getDefaultCurrency()).subscribe();
+        } else if (event instanceof GroupUpdatedEvent groupUpdated) {
+            save(groupUpdated.getGroupId(), groupUpdated.isSimplifyDebts(), groupUpdated.getDefaultCurrency())
+                    .subscribe();
+        }
+    }
+
+    private Mono<Void> save(UUID groupId, boolean simplifyDebts, String defaultCurrency) {
+        log.debug("Updating settings for group {}: simplifyDebts={}", groupId, simplifyDebts);
+        return groupSettingsRepository.upsert(groupId, simplifyDebts,
+                        defaultCurrency != null ? defaultCurrency : "USD")
+                .doOnError(error -> log.error("Failed to update settings for group: {}", groupId, error))
+                // The simplification mode is part of the summary, so cached summaries are now stale
+                .then(summaryCache.bumpVersion(groupId))
+                .then();
+    }
+}
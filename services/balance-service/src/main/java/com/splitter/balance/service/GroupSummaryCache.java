@@ -0,0 +1,144 @@
+package com.splitter.balance.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.splitter.balance.dto.GroupBalanceSummary;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Redis cache of computed group balance summaries, validated by a per-group version counter.
+ *
+ * Writers bump the version after their changes commit. A cached entry is only served while
+ * its stored version equals the current counter, so a summary computed from data older than
+ * the latest write can never be returned, even if it was stored after that write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GroupSummaryCache {
+
+    private static final String SUMMARY_KEY_PREFIX = "balance:group:";
+    private static final String VERSION_KEY_SUFFIX = ":version";
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${balance.summary-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    /**
+     * Return the cached summary if it matches the current version, otherwise load and cache it.
+     */
+    public Mono<GroupBalanceSummary> get(UUID groupId, Supplier<Mono<GroupBalanceSummary>> loader) {
+        return redisTemplate.opsForValue()
+                .multiGet(List.of(summaryKey(groupId), versionKey(groupId)))
+                .flatMap(values -> {
+                    long version = parseVersion(values.get(1));
+                    CachedSummary cached = decode(values.get(0));
+                    if (cached != null && cached.version() == version) {
+                        log.trace("Summary cache hit for group {} at version {}", groupId, version);
+                        return Mono.just(cached.summary());
+                    }
+                    // Store under the version read before loading; a concurrent write makes it stale at once
+                    return loader.get()
+                            .flatMap(summary -> put(groupId, version, summary).thenReturn(summary));
+                })
+                .onErrorResume(error -> {
+                    log.warn("Summary cache unavailable for group {}: {}", groupId, error.getMessage());
+                    return loader.get();
+                });
+    }
+
+    /**
+     * Read the group's current version, zero if it was never bumped.
+     */
+    public Mono<Long> currentVersion(UUID groupId) {
+        return redisTemplate.opsForValue().get(versionKey(groupId))
+                .map(this::parseVersion)
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Increment the group's version, invalidating any cached summary. If the increment fails,
+     * the cached summary is deleted instead, since it would otherwise still look current, and
+     * the error is passed on.
+     *
+     * @return The new version
+     */
+    public Mono<Long> bumpVersion(UUID groupId) {
+        return redisTemplate.opsForValue().increment(versionKey(groupId))
+                .onErrorResume(error -> {
+                    log.error("Failed to bump summary version for group: {}", groupId, error);
+                    return redisTemplate.delete(summaryKey(groupId))
+                            .doOnError(deleteError -> log.error("Failed to delete stale summary of group: {}",
+                                    groupId, deleteError))
+                            .onErrorResume(deleteError -> Mono.empty())
+                            .then(Mono.error(error));
+                });
+    }
+
+    /**
+     * Load a summary and store it for a version obtained from {@link #bumpVersion(UUID)}.
+     */
+    public Mono<Void> refresh(UUID groupId, long version, Mono<GroupBalanceSummary> loader) {
+        return loader
+                .flatMap(summary -> put(groupId, version, summary))
+                .doOnError(error -> log.warn("Failed to refresh summary for group {}: {}", groupId, error.getMessage()))
+                .onErrorResume(error -> Mono.empty());
+    }
+
+    private Mono<Void> put(UUID groupId, long version, GroupBalanceSummary summary) {
+        if (summary.currency() == null) {
+            // Per-currency fallback for a missing exchange rate; recompute once rates are loaded
+            return Mono.empty();
+        }
+        try {
+            String value = objectMapper.writeValueAsString(new CachedSummary(version, summary));
+            return redisTemplate.opsForValue()
+                    .set(summaryKey(groupId), value, Duration.ofMinutes(ttlMinutes))
+                    .then();
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize summary for group: {}", groupId, e);
+            return Mono.empty();
+        }
+    }
+
+    private CachedSummary decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, CachedSummary.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Discarding unreadable cached summary: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private long parseVersion(String value) {
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    private String summaryKey(UUID groupId) {
+        return SUMMARY_KEY_PREFIX + groupId;
+    }
+
+    private String versionKey(UUID groupId) {
+        return SUMMARY_KEY_PREFIX + groupId + VERSION_KEY_SUFFIX;
+    }
+
+    /**
+     * Cached summary tagged with the version it was computed for.
+     */
+    record CachedSummary(long version, GroupBalanceSummary summary) {}
+}
@@ -0,0 +1,122 @@
+package com.splitter.balance.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Tracks how often each group is read or written with a count-min sketch, and keeps the
+ * current heaviest groups as top-K candidates.
+ *
+ * The sketch uses a fixed amount of memory however many groups there are, and never
+ * underestimates a count. All counters are halved every decay interval, so estimates
+ * follow recent traffic and a group that cools down drops out of the hot set.
+ */
+@Slf4j
+@Component
+public class HotGroupTracker {
+
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int width;
+    private final long[][] counts;
+    private final int topK;
+    private final long threshold;
+    private final boolean enabled;
+
+    /** Heaviest groups seen since the last decay, with their latest estimates. */
+    private final Map<UUID, Long> candidates = new HashMap<>();
+
+    public HotGroupTracker(
+            @Value("${balance.hot-groups.enabled:true}") boolean enabled,
+            @Value("${balance.hot-groups.sketch-width:4096}") int width,
+            @Value("${balance.hot-groups.top-k:20}") int topK,
+            @Value("${balance.hot-groups.threshold:1000}") long threshold) {
+        this.enabled = enabled;
+        this.width = width;
+        this.counts = new long[DEPTH][width];
+        this.topK = topK;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Count one read of or write to a group.
+     */
+    public void record(UUID groupId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                int column = column(row, groupId);
+                estimate = Math.min(estimate, ++counts[row][column]);
+            }
+            offer(groupId, estimate);
+        }
+    }
+
+    /**
+     * Whether a group's recent traffic is above the hot threshold.
+     */
+    public synchronized boolean isHot(UUID groupId) {
+        Long estimate = candidates.get(groupId);
+        return estimate != null && estimate >= threshold;
+    }
+
+    /**
+     * The heaviest groups, largest estimate first.
+     */
+    public synchronized List<HotGroup> topGroups() {
+        return candidates.entrySet().stream()
+                .sorted(Map.Entry.<UUID, Long>comparingByValue().reversed())
+                .map(entry -> new HotGroup(entry.getKey(), entry.getValue(), entry.getValue() >= threshold))
+                .toList();
+    }
+
+    /**
+     * Halve every counter so estimates reflect recent traffic.
+     */
+    @Scheduled(fixedDelayString = "${balance.hot-groups.decay-interval-ms:60000}")
+    public synchronized void decay() {
+        for (long[] row : counts) {
+            for (int column = 0; column < width; column++) {
+                row[column] >>>= 1;
+            }
+        }
+        candidates.replaceAll((groupId, estimate) -> estimate >>> 1);
+        candidates.values().removeIf(estimate -> estimate == 0);
+    }
+
+    /**
+     * Keep the group among the candidates if it is one of the top K.
+     */
+    private void offer(UUID groupId, long estimate) {
+        if (candidates.containsKey(groupId) || candidates.size() < topK) {
+            candidates.put(groupId, estimate);
+            return;
+        }
+        Map.Entry<UUID, Long> smallest = Collections.min(candidates.entrySet(), Map.Entry.comparingByValue());
+        if (estimate > smallest.getValue()) {
+            candidates.remove(smallest.getKey());
+            candidates.put(groupId, estimate);
+        }
+    }
+
+    private int column(int row, UUID groupId) {
+        long hash = (groupId.getMostSignificantBits() ^ groupId.getLeastSignificantBits()) * SEEDS[row];
+        hash ^= hash >>> 31;
+        return (int) Math.floorMod(hash, (long) width);
+    }
+
+    /**
+     * A tracked group and its estimated recent traffic.
+     */
+    public record HotGroup(UUID groupId, long estimate, boolean hot) {}
+}
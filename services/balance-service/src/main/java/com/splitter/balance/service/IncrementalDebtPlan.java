@@ -0,0 +1,231 @@
+package com.splitter.balance.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A group's net positions together with a settlement plan for them, patched in place as
+ * positions change instead of being recomputed.
+ *
+ * The plan satisfies every user's net position. When some positions change, only the
+ * transfers touching those users are dropped; the changed users and the counterparties
+ * of the dropped transfers are then re-matched greedily against each other, leaving the
+ * rest of the plan untouched. Each patch may leave a few more transfers than a full
+ * simplification would, so owners should rebuild the plan periodically.
+ *
+ * Amounts are held in long minor units at a fixed scale. Instances are not thread-safe.
+ */
+final class IncrementalDebtPlan {
+
+    private static final int DEFAULT_SCALE = 2;
+
+    private final int scale;
+    private final Map<UUID, Long> net = new LinkedHashMap<>();
+    private final Map<UUID, Map<UUID, Long>> outgoing = new LinkedHashMap<>();
+    private final Map<UUID, Map<UUID, Long>> incoming = new LinkedHashMap<>();
+    private int updates;
+
+    private IncrementalDebtPlan(int scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * Build a plan from a group's debts and a simplification of them.
+     *
+     * @return The plan, or null when the amounts cannot be represented in long minor units
+     */
+    static IncrementalDebtPlan of(List<DebtSimplifier.Debt> debts, List<DebtSimplifier.Debt> simplified) {
+        int scale = debts.isEmpty() ? DEFAULT_SCALE : 0;
+        for (DebtSimplifier.Debt debt : debts) {
+            scale = Math.max(scale, debt.amount().scale());
+        }
+        if (scale > LongCentsDebtEngine.MAX_SCALE) {
+            return null;
+        }
+
+        IncrementalDebtPlan plan = new IncrementalDebtPlan(scale);
+        try {
+            for (DebtSimplifier.Debt debt : debts) {
+                long units = plan.toUnits(debt.amount());
+                plan.net.merge(debt.fromUserId(), -units, Math::addExact);
+                plan.net.merge(debt.toUserId(), units, Math::addExact);
+            }
+            for (DebtSimplifier.Debt transfer : simplified) {
+                plan.addTransfer(transfer.fromUserId(), transfer.toUserId(), plan.toUnits(transfer.amount()));
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        return plan;
+    }
+
+    /**
+     * Replace the net positions of some users and patch the plan around them.
+     *
+     * @param positions New net positions; positive amounts mean the user is owed
+     * @return false when an amount cannot be represented or the positions no longer sum to
+     *         zero across the group, for instance because they were read at a different
+     *         version than the plan. The plan must then be rebuilt.
+     */
+    boolean update(Map<UUID, BigDecimal> positions) {
+        Map<UUID, Long> changed = new LinkedHashMap<>();
+        long drift = 0;
+        try {
+            for (Map.Entry<UUID, BigDecimal> position : positions.entrySet()) {
+                long units = toUnits(position.getValue());
+                long previous = net.getOrDefault(position.getKey(), 0L);
+                if (previous != units) {
+                    changed.put(position.getKey(), units);
+                    drift = Math.addExact(drift, Math.subtractExact(units, previous));
+                }
+            }
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        // Positions summed to zero before, so the changes have to as well
+        if (drift != 0) {
+            return false;
+        }
+        updates++;
+        if (changed.isEmpty()) {
+            return true;
+        }
+
+        // Drop every transfer of a changed user; its counterparties join the re-match
+        Set<UUID> touched = new LinkedHashSet<>(changed.keySet());
+        for (UUID user : changed.keySet()) {
+            for (UUID creditor : List.copyOf(outgoing.getOrDefault(user, Map.of()).keySet())) {
+                removeTransfer(user, creditor);
+                touched.add(creditor);
+            }
+            for (UUID debtor : List.copyOf(incoming.getOrDefault(user, Map.of()).keySet())) {
+                removeTransfer(debtor, user);
+                touched.add(debtor);
+            }
+        }
+        changed.forEach((user, units) -> {
+            if (units == 0) {
+                net.remove(user);
+            } else {
+                net.put(user, units);
+            }
+        });
+
+        // What each touched user still needs beyond the transfers they keep
+        List<Residual> creditors = new ArrayList<>();
+        List<Residual> debtors = new ArrayList<>();
+        for (UUID user : touched) {
+            long residual = net.getOrDefault(user, 0L) - planned(user);
+            if (residual > 0) {
+                creditors.add(new Residual(user, residual));
+            } else if (residual < 0) {
+                debtors.add(new Residual(user, -residual));
+            }
+        }
+        creditors.sort(Comparator.comparingLong(Residual::amount).reversed());
+        debtors.sort(Comparator.comparingLong(Residual::amount).reversed());
+
+        int i = 0, j = 0;
+        while (i < debtors.size() && j < creditors.size()) {
+            Residual debtor = debtors.get(i);
+            Residual creditor = creditors.get(j);
+
+            long transfer = Math.min(debtor.amount(), creditor.amount());
+            addTransfer(debtor.userId(), creditor.userId(), transfer);
+
+            debtors.set(i, new Residual(debtor.userId(), debtor.amount() - transfer));
+            creditors.set(j, new Residual(creditor.userId(), creditor.amount() - transfer));
+
+            if (debtors.get(i).amount() == 0) i++;
+            if (creditors.get(j).amount() == 0) j++;
+        }
+        // Unmatched residuals mean the kept transfers no longer fit the positions
+        return i == debtors.size() && j == creditors.size();
+    }
+
+    /**
+     * Current transfers of the plan.
+     */
+    List<DebtSimplifier.Debt> transfers() {
+        List<DebtSimplifier.Debt> transfers = new ArrayList<>();
+        outgoing.forEach((debtor, creditors) -> creditors.forEach((creditor, units) ->
+                transfers.add(new DebtSimplifier.Debt(debtor, creditor, BigDecimal.valueOf(units, scale)))));
+        return transfers;
+    }
+
+    /**
+     * Number of users with a non-zero position.
+     */
+    int userCount() {
+        return net.size();
+    }
+
+    /**
+     * Number of updates applied since the plan was built.
+     */
+    int updates() {
+        return updates;
+    }
+
+    private long toUnits(BigDecimal amount) {
+        // setScale without rounding throws for amounts finer than the plan scale
+        return amount.setScale(scale).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Incoming minus outgoing transfers of a user.
+     */
+    private long planned(UUID user) {
+        long total = 0;
+        for (long units : incoming.getOrDefault(user, Map.of()).values()) {
+            total += units;
+        }
+        for (long units : outgoing.getOrDefault(user, Map.of()).values()) {
+            total -= units;
+        }
+        return total;
+    }
+
+    /**
+     * Add a transfer, netting it against an existing transfer between the same users.
+     */
+    private void addTransfer(UUID debtor, UUID creditor, long units) {
+        long reverse = incoming.getOrDefault(debtor, Map.of()).getOrDefault(creditor, 0L);
+        if (reverse > 0) {
+            removeTransfer(creditor, debtor);
+            units -= reverse;
+            if (units < 0) {
+                putTransfer(creditor, debtor, -units);
+                return;
+            }
+        }
+        if (units > 0) {
+            putTransfer(debtor, creditor, outgoing.getOrDefault(debtor, Map.of()).getOrDefault(creditor, 0L) + units);
+        }
+    }
+
+    private void putTransfer(UUID debtor, UUID creditor, long units) {
+        outgoing.computeIfAbsent(debtor, user -> new LinkedHashMap<>()).put(creditor, units);
+        incoming.computeIfAbsent(creditor, user -> new LinkedHashMap<>()).put(debtor, units);
+    }
+
+    private void removeTransfer(UUID debtor, UUID creditor) {
+        Map<UUID, Long> creditors = outgoing.get(debtor);
+        if (creditors != null && creditors.remove(creditor) != null && creditors.isEmpty()) {
+            outgoing.remove(debtor);
+        }
+        Map<UUID, Long> debtors = incoming.get(creditor);
+        if (debtors != null && debtors.remove(debtor) != null && debtors.isEmpty()) {
+            incoming.remove(creditor);
+        }
+    }
+
+    private record Residual(UUID userId, long amount) {}
+}
@@ -0,0 +1,154 @@
+package com.splitter.balance.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * Debt simplification engine working on long minor units.
+ *
+ * Users are mapped to dense int indices, net positions are kept in a long[] and the
+ * debtor/creditor matching loop only allocates the resulting transfers. The index map is
+ * built with the same sequence of merge calls as the BigDecimal implementation's balance
+ * map, and the sort is stable, so ties are broken identically and the output is exactly
+ * the same.
+ */
+final class LongCentsDebtEngine {
+
+    /**
+     * Largest amount scale handled on the primitive path.
+     */
+    static final int MAX_SCALE = 4;
+
+    private static final BiFunction<Integer, Integer, Integer> KEEP_EXISTING = (existing, candidate) -> existing;
+
+    private LongCentsDebtEngine() {
+        // Utility class
+    }
+
+    /**
+     * Simplify debts using primitive arithmetic.
+     *
+     * @param debts Non-empty list of debts
+     * @return Simplified debts, or null when the amounts do not share a single scale
+     *         or do not fit in a long, in which case the caller must use the BigDecimal path
+     */
+    static List<DebtSimplifier.Debt> trySimplify(List<DebtSimplifier.Debt> debts) {
+        int scale = debts.get(0).amount().scale();
+        if (scale < 0 || scale > MAX_SCALE) {
+            return null;
+        }
+
+        int capacity = debts.size() * 2;
+        Map<UUID, Integer> index = new HashMap<>();
+        UUID[] users = new UUID[capacity];
+        long[] net = new long[capacity];
+        int userCount = 0;
+
+        try {
+            for (DebtSimplifier.Debt debt : debts) {
+                BigDecimal amount = debt.amount();
+                if (amount.scale() != scale) {
+                    return null;
+                }
+                long units = amount.unscaledValue().longValueExact();
+
+                // merge() mirrors the BigDecimal path call for call, so the map resizes at the same points
+                int from = index.merge(debt.fromUserId(), userCount, KEEP_EXISTING);
+                if (from == userCount) {
+                    users[userCount++] = debt.fromUserId();
+                }
+                net[from] = Math.subtractExact(net[from], units);
+
+                int to = index.merge(debt.toUserId(), userCount, KEEP_EXISTING);
+                if (to == userCount) {
+                    users[userCount++] = debt.toUserId();
+                }
+                net[to] = Math.addExact(net[to], units);
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+
+        // Iterate in map order so creditors and debtors start in the same order as the BigDecimal path
+        int[] creditors = new int[userCount];
+        int[] debtors = new int[userCount];
+        long[] remaining = new long[userCount];
+        int creditorCount = 0;
+        int debtorCount = 0;
+
+        for (int user : index.values()) {
+            long balance = net[user];
+            if (balance > 0) {
+                creditors[creditorCount++] = user;
+                remaining[user] = balance;
+            } else if (balance < 0) {
+                debtors[debtorCount++] = user;
+                remaining[user] = -balance;
+            }
+        }
+
+        int[] buffer = new int[Math.max(creditorCount, debtorCount)];
+        sortDescending(creditors, creditorCount, remaining, buffer);
+        sortDescending(debtors, debtorCount, remaining, buffer);
+
+        List<DebtSimplifier.Debt> simplified = new ArrayList<>(Math.max(creditorCount, debtorCount));
+        int i = 0, j = 0;
+
+        while (i < debtorCount && j < creditorCount) {
+            int debtor = debtors[i];
+            int creditor = creditors[j];
+
+            long transfer = Math.min(remaining[debtor], remaining[creditor]);
+            if (transfer > 0) {
+                simplified.add(new DebtSimplifier.Debt(
+                        users[debtor], users[creditor], BigDecimal.valueOf(transfer, scale)));
+            }
+
+            remaining[debtor] -= transfer;
+            remaining[creditor] -= transfer;
+
+            if (remaining[debtor] == 0) i++;
+            if (remaining[creditor] == 0) j++;
+        }
+
+        return simplified;
+    }
+
+    /**
+     * Stable merge sort of the first {@code length} indices by descending key.
+     * Stability matters: equal amounts must keep their map order to match List.sort.
+     */
+    static void sortDescending(int[] indices, int length, long[] keys, int[] buffer) {
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = 0; low < length - width; low += 2 * width) {
+                int mid = low + width;
+                int high = Math.min(low + 2 * width, length);
+                merge(indices, low, mid, high, keys, buffer);
+            }
+        }
+    }
+
+    private static void merge(int[] indices, int low, int mid, int high, long[] keys, int[] buffer) {
+        System.arraycopy(indices, low, buffer, low, high - low);
+        int left = low, right = mid, out = low;
+        while (left < mid && right < high) {
+            // Take from the left run on ties to keep the sort stable
+            if (keys[buffer[left]] >= keys[buffer[right]]) {
+                indices[out++] = buffer[left++];
+            } else {
+                indices[out++] = buffer[right++];
+            }
+        }
+        while (left < mid) {
+            indices[out++] = buffer[left++];
+        }
+        while (right < high) {
+            indices[out++] = buffer[right++];
+        }
+    }
+}
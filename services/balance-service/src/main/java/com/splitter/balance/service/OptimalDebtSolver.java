@@ -0,0 +1,244 @@
+package com.splitter.balance.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Minimum-transfer debt simplification.
+ *
+ * A group of n users with non-zero net positions needs n - k transfers, where k is the
+ * largest number of disjoint zero-sum subsets the positions can be split into. Exactly
+ * opposite pairs are always split off first (this never hurts optimality), the rest is
+ * partitioned with a bitmask DP when small enough, and larger remainders are reduced by a
+ * bounded search for zero-sum triples. Each subset is then settled greedily with at most
+ * size - 1 transfers.
+ */
+final class OptimalDebtSolver {
+
+    /**
+     * Check the deadline once every this many DP states.
+     */
+    private static final int DEADLINE_CHECK_MASK = 0xFFF;
+
+    private OptimalDebtSolver() {
+        // Utility class
+    }
+
+    /**
+     * Solve the minimum-transfer problem within a deadline.
+     *
+     * @param debts           Non-empty list of debts
+     * @param maxExactMembers Largest remainder partitioned exactly with the bitmask DP
+     * @param deadlineNanos   {@link System#nanoTime()} value after which the search gives up
+     * @return Simplified debts, or null when the amounts cannot be represented in long minor
+     *         units or the deadline passed, in which case the caller should use greedy matching
+     */
+    static List<DebtSimplifier.Debt> trySolve(List<DebtSimplifier.Debt> debts, int maxExactMembers,
+                                              long deadlineNanos) {
+        int scale = debts.get(0).amount().scale();
+        Map<UUID, Long> netBalances = new LinkedHashMap<>();
+        try {
+            for (DebtSimplifier.Debt debt : debts) {
+                if (debt.amount().scale() != scale) {
+                    return null;
+                }
+                long units = debt.amount().unscaledValue().longValueExact();
+                netBalances.merge(debt.fromUserId(), -units, Math::addExact);
+                netBalances.merge(debt.toUserId(), units, Math::addExact);
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+
+        int count = 0;
+        UUID[] users = new UUID[netBalances.size()];
+        long[] amounts = new long[netBalances.size()];
+        for (Map.Entry<UUID, Long> entry : netBalances.entrySet()) {
+            if (entry.getValue() != 0) {
+                users[count] = entry.getKey();
+                amounts[count++] = entry.getValue();
+            }
+        }
+
+        List<int[]> subsets = new ArrayList<>();
+        boolean[] used = new boolean[count];
+        splitOppositePairs(amounts, count, used, subsets);
+
+        int[] remaining = unused(used, count);
+        if (remaining.length > maxExactMembers) {
+            if (!splitZeroSumTriples(amounts, remaining, used, subsets, deadlineNanos)) {
+                return null;
+            }
+            remaining = unused(used, count);
+        }
+
+        if (remaining.length > maxExactMembers) {
+            // Still too large for the exact search: settle the remainder as one subset
+            subsets.add(remaining);
+        } else if (remaining.length > 0) {
+            List<int[]> partition = partitionExactly(amounts, remaining, deadlineNanos);
+            if (partition == null) {
+                return null;
+            }
+            subsets.addAll(partition);
+        }
+
+        List<DebtSimplifier.Debt> simplified = new ArrayList<>(count);
+        for (int[] subset : subsets) {
+            settle(subset, users, amounts, scale, simplified);
+        }
+        return simplified;
+    }
+
+    /**
+     * Pair users whose positions cancel exactly.
+     */
+    private static void splitOppositePairs(long[] amounts, int count, boolean[] used, List<int[]> subsets) {
+        Map<Long, ArrayDeque<Integer>> unmatched = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            ArrayDeque<Integer> opposites = unmatched.get(-amounts[i]);
+            if (opposites != null && !opposites.isEmpty()) {
+                int j = opposites.poll();
+                used[i] = true;
+                used[j] = true;
+                subsets.add(new int[]{j, i});
+            } else {
+                unmatched.computeIfAbsent(amounts[i], k -> new ArrayDeque<>()).add(i);
+            }
+        }
+    }
+
+    /**
+     * Bounded search for zero-sum triples among the remaining users.
+     *
+     * @return false if the deadline passed
+     */
+    private static boolean splitZeroSumTriples(long[] amounts, int[] remaining, boolean[] used,
+                                               List<int[]> subsets, long deadlineNanos) {
+        Map<Long, ArrayDeque<Integer>> byAmount = new HashMap<>();
+        for (int user : remaining) {
+            byAmount.computeIfAbsent(amounts[user], k -> new ArrayDeque<>()).add(user);
+        }
+
+        for (int a = 0; a < remaining.length; a++) {
+            if (System.nanoTime() > deadlineNanos) {
+                return false;
+            }
+            int first = remaining[a];
+            if (used[first]) continue;
+
+            for (int b = a + 1; b < remaining.length && !used[first]; b++) {
+                int second = remaining[b];
+                if (used[second]) continue;
+
+                ArrayDeque<Integer> candidates = byAmount.get(-(amounts[first] + amounts[second]));
+                if (candidates == null) continue;
+
+                for (int third : candidates) {
+                    if (third != first && third != second && !used[third]) {
+                        used[first] = true;
+                        used[second] = true;
+                        used[third] = true;
+                        subsets.add(new int[]{first, second, third});
+                        break;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Partition the members into the largest number of zero-sum subsets.
+     * dp[mask] is the largest number of zero-sum prefixes over orderings of mask.
+     *
+     * @return The subsets, or null if the deadline passed
+     */
+    private static List<int[]> partitionExactly(long[] amounts, int[] members, long deadlineNanos) {
+        int n = members.length;
+        int full = (1 << n) - 1;
+        long[] sum = new long[1 << n];
+        byte[] dp = new byte[1 << n];
+
+        for (int mask = 1; mask <= full; mask++) {
+            if ((mask & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > deadlineNanos) {
+                return null;
+            }
+            sum[mask] = sum[mask & (mask - 1)] + amounts[members[Integer.numberOfTrailingZeros(mask)]];
+
+            int best = 0;
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                best = Math.max(best, dp[mask ^ Integer.lowestOneBit(bits)]);
+            }
+            dp[mask] = (byte) (best + (sum[mask] == 0 ? 1 : 0));
+        }
+
+        // Walk back through one optimal ordering; every zero-sum prefix closes a subset
+        List<int[]> subsets = new ArrayList<>();
+        int[] current = new int[n];
+        int size = 0;
+        int mask = full;
+        while (mask != 0) {
+            int gain = sum[mask] == 0 ? 1 : 0;
+            if (gain == 1 && size > 0) {
+                subsets.add(Arrays.copyOf(current, size));
+                size = 0;
+            }
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                int bit = Integer.lowestOneBit(bits);
+                if (dp[mask ^ bit] + gain == dp[mask]) {
+                    current[size++] = members[Integer.numberOfTrailingZeros(bit)];
+                    mask ^= bit;
+                    break;
+                }
+            }
+        }
+        subsets.add(Arrays.copyOf(current, size));
+        return subsets;
+    }
+
+    /**
+     * Settle a zero-sum subset by matching the largest debtor with the largest creditor.
+     */
+    private static void settle(int[] subset, UUID[] users, long[] amounts, int scale,
+                               List<DebtSimplifier.Debt> simplified) {
+        int[] debtors = Arrays.stream(subset).filter(u -> amounts[u] < 0)
+                .boxed().sorted((a, b) -> Long.compare(amounts[a], amounts[b]))
+                .mapToInt(Integer::intValue).toArray();
+        int[] creditors = Arrays.stream(subset).filter(u -> amounts[u] > 0)
+                .boxed().sorted((a, b) -> Long.compare(amounts[b], amounts[a]))
+                .mapToInt(Integer::intValue).toArray();
+
+        long[] owed = new long[debtors.length];
+        long[] due = new long[creditors.length];
+        for (int k = 0; k < debtors.length; k++) owed[k] = -amounts[debtors[k]];
+        for (int k = 0; k < creditors.length; k++) due[k] = amounts[creditors[k]];
+
+        int i = 0, j = 0;
+        while (i < debtors.length && j < creditors.length) {
+            long transfer = Math.min(owed[i], due[j]);
+            simplified.add(new DebtSimplifier.Debt(
+                    users[debtors[i]], users[creditors[j]], BigDecimal.valueOf(transfer, scale)));
+            owed[i] -= transfer;
+            due[j] -= transfer;
+            if (owed[i] == 0) i++;
+            if (due[j] == 0) j++;
+        }
+    }
+
+    private static int[] unused(boolean[] used, int count) {
+        int[] result = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (!used[i]) result[size++] = i;
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
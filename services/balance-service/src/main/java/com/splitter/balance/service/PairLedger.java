@@ -0,0 +1,84 @@
+package com.splitter.balance.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Signed amounts per user pair and currency in long minor units, as the long-cents
+ * debt engine holds them. Memory grows with the number of pairs, not with the number
+ * of debts added. Instances are not thread-safe.
+ */
+final class PairLedger {
+
+    /**
+     * Scale of balance amounts, fine enough for three-decimal currencies such as KWD.
+     */
+    static final int SCALE = 3;
+
+    private final Map<PairKey, Long> units = new LinkedHashMap<>();
+
+    /**
+     * Add a debt where fromUserId owes toUserId the amount.
+     *
+     * @throws ArithmeticException if the amount has more than {@link #SCALE} decimals or overflows
+     */
+    void add(UUID fromUserId, UUID toUserId, BigDecimal amount, String currency) {
+        long value = amount.setScale(SCALE).unscaledValue().longValueExact();
+        // Any consistent pair order works; the SQL writers re-orient pairs themselves
+        boolean ordered = fromUserId.compareTo(toUserId) < 0;
+        PairKey key = ordered
+                ? new PairKey(fromUserId, toUserId, currency)
+                : new PairKey(toUserId, fromUserId, currency);
+        units.merge(key, ordered ? value : -value, Math::addExact);
+    }
+
+    /**
+     * Pairs whose amounts differ between an expected and an actual ledger.
+     */
+    static List<Difference> diff(PairLedger expected, PairLedger actual) {
+        Set<PairKey> keys = new HashSet<>(expected.units.keySet());
+        keys.addAll(actual.units.keySet());
+
+        List<Difference> differences = new ArrayList<>();
+        for (PairKey key : keys) {
+            long want = expected.units.getOrDefault(key, 0L);
+            long have = actual.units.getOrDefault(key, 0L);
+            if (want != have) {
+                differences.add(new Difference(key, want, have));
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Ordered user pair and currency; positive amounts mean userA owes userB.
+     */
+    record PairKey(UUID userA, UUID userB, String currency) {}
+
+    /**
+     * Expected and actual minor units of one pair.
+     */
+    record Difference(PairKey key, long expected, long actual) {
+
+        BigDecimal expectedAmount() {
+            return BigDecimal.valueOf(expected, SCALE);
+        }
+
+        BigDecimal actualAmount() {
+            return BigDecimal.valueOf(actual, SCALE);
+        }
+
+        /**
+         * Amount userA must additionally owe userB to reach the expected amount.
+         */
+        BigDecimal correction() {
+            return BigDecimal.valueOf(Math.subtractExact(expected, actual), SCALE);
+        }
+    }
+}
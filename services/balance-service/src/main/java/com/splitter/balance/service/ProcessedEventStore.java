@@ -0,0 +1,160 @@
+package com.splitter.balance.service;
+
+import com.splitter.common.events.BaseEvent;
+import com.splitter.common.events.settlement.SettlementCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers which events have already been applied to balances.
+ *
+ * IDs are written to {@code processed_events} in the same transaction as the balance
+ * changes they caused, and recently seen IDs are also kept in a bounded in-memory set
+ * so most redeliveries are recognised without a query. IDs are claimed at the start of
+ * that transaction with {@code ON CONFLICT DO NOTHING}: if two consumers race on the same
+ * event, the second one's insert waits for the first to commit, claims nothing, and the
+ * event is skipped instead of applied twice.
+ */
+@Slf4j
+@Component
+public class ProcessedEventStore {
+
+    private static final String FIND_PROCESSED = """
+            SELECT event_id FROM processed_events WHERE event_id = ANY(CAST(:eventIds AS varchar[]))
+            """;
+
+    private static final String INSERT_PROCESSED = """
+            INSERT INTO processed_events (event_id, processed_at)
+            SELECT e.event_id, NOW() FROM unnest(CAST(:eventIds AS varchar[])) AS e(event_id)
+            ON CONFLICT (event_id) DO NOTHING
+            RETURNING event_id
+            """;
+
+    private static final String DELETE_EXPIRED = """
+            DELETE FROM processed_events WHERE processed_at < :before
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final Set<String> recent;
+    private final Counter memoryDuplicates;
+    private final Counter storeDuplicates;
+
+    @Value("${balance.dedupe.retention-days:14}")
+    private long retentionDays;
+
+    public ProcessedEventStore(
+            DatabaseClient databaseClient,
+            MeterRegistry meterRegistry,
+            @Value("${balance.dedupe.recent-ids:100000}") int recentCapacity) {
+        this.databaseClient = databaseClient;
+        this.recent = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentCapacity;
+            }
+        }));
+        this.memoryDuplicates = Counter.builder("balance.events.duplicates")
+                .description("Redelivered events skipped because they were already applied")
+                .tag("source", "memory")
+                .register(meterRegistry);
+        this.storeDuplicates = Counter.builder("balance.events.duplicates")
+                .description("Redelivered events skipped because they were already applied")
+                .tag("source", "store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stable idempotency key of an event, or null for events that carry none.
+     */
+    public static String keyOf(Object event) {
+        if (event instanceof BaseEvent baseEvent) {
+            return baseEvent.getEventId();
+        }
+        if (event instanceof SettlementCreatedEvent settlementCreated && settlementCreated.getSettlementId() != null) {
+            // Settlement events have no event ID; a settlement is applied at most once
+            return "settlement:" + settlementCreated.getSettlementId();
+        }
+        return null;
+    }
+
+    /**
+     * Find which of the given keys have already been processed, counting them as duplicates.
+     */
+    public Mono<Set<String>> findProcessed(Collection<String> keys) {
+        Set<String> processed = new HashSet<>();
+        List<String> unknown = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (recent.contains(key)) {
+                processed.add(key);
+            } else {
+                unknown.add(key);
+            }
+        }
+        memoryDuplicates.increment(processed.size());
+        if (unknown.isEmpty()) {
+            return Mono.just(processed);
+        }
+
+        return databaseClient.sql(FIND_PROCESSED)
+                .bind("eventIds", unknown.toArray(new String[0]))
+                .map(row -> row.get("event_id", String.class))
+                .all()
+                .collectList()
+                .map(found -> {
+                    storeDuplicates.increment(found.size());
+                    processed.addAll(found);
+                    return processed;
+                });
+    }
+
+    /**
+     * Record keys as processed. Must run inside the transaction that applies their changes,
+     * before applying them.
+     *
+     * @return The keys claimed by this transaction; keys already recorded by another are
+     *         left out, and their events must be skipped
+     */
+    public Mono<Set<String>> markProcessed(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        return databaseClient.sql(INSERT_PROCESSED)
+                .bind("eventIds", keys.toArray(new String[0]))
+                .map(row -> row.get("event_id", String.class))
+                .all()
+                .collect(Collectors.toSet())
+                .doOnNext(claimed -> storeDuplicates.increment(keys.size() - claimed.size()));
+    }
+
+    /**
+     * Add committed keys to the in-memory set. Call only after the transaction has committed.
+     */
+    public void remember(Collection<String> keys) {
+        recent.addAll(keys);
+    }
+
+    /**
+     * Drop stored IDs older than the retention period, well past any redelivery window.
+     */
+    @Scheduled(cron = "${balance.dedupe.cleanup-cron:0 30 3 * * *}")
+    public void deleteExpired() {
+        Instant before = Instant.now().minus(Duration.ofDays(retentionDays));
+        databaseClient.sql(DELETE_EXPIRED)
+                .bind("before", before)
+                .fetch()
+                .rowsUpdated()
+                .subscribe(deleted -> log.info("Deleted {} processed event IDs older than {}", deleted, before),
+                        error -> log.error("Failed to delete expired processed event IDs", error));
+    }
+}
@@ -0,0 +1,103 @@
+package com.splitter.balance.service;
+
+import com.splitter.common.security.JwtUtils;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Streams the source records balances are derived from: expense shares from expense-service
+ * and confirmed settlements from settlement-service, one group at a time as NDJSON.
+ *
+ * Requests carry a service token signed with the shared JWT secret. A fresh short-lived
+ * token is minted per request, so a long reconciliation never runs on an expired one.
+ */
+@Component
+public class ReconciliationSources {
+
+    private final WebClient expenseClient;
+    private final WebClient settlementClient;
+    private final JwtUtils jwtUtils;
+    private final String serviceName;
+    private final Duration tokenTtl;
+
+    public ReconciliationSources(
+            WebClient.Builder webClientBuilder,
+            @Value("${balance.reconciliation.expense-service-url:http://localhost:8083}") String expenseServiceUrl,
+            @Value("${balance.reconciliation.settlement-service-url:http://localhost:8085}") String settlementServiceUrl,
+            @Value("${spring.security.oauth2.resourceserver.jwt.secret}") String jwtSecret,
+            @Value("${spring.application.name}") String serviceName,
+            @Value("${balance.reconciliation.service-token-ttl-seconds:300}") long tokenTtlSeconds) {
+        this.expenseClient = webClientBuilder.clone().baseUrl(expenseServiceUrl).build();
+        this.settlementClient = webClientBuilder.clone().baseUrl(settlementServiceUrl).build();
+        this.jwtUtils = new JwtUtils(jwtSecret, 0);
+        this.serviceName = serviceName;
+        this.tokenTtl = Duration.ofSeconds(tokenTtlSeconds);
+    }
+
+    /**
+     * Stream the shares of a group's live expenses, excluding each payer's own share, followed
+     * by an entry for each expense deleted since {@code deletedSince}.
+     */
+    public Flux<ExpenseShareEntry> expenseShares(UUID groupId, Instant deletedSince) {
+        return expenseClient.get()
+                .uri(uri -> uri.path("/api/v1/expenses/group/{groupId}/ledger")
+                        .queryParam("deletedSince", deletedSince.toString())
+                        .build(groupId))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .headers(headers -> headers.setBearerAuth(jwtUtils.generateServiceToken(serviceName, tokenTtl)))
+                .retrieve()
+                .bodyToFlux(ExpenseShareEntry.class);
+    }
+
+    /**
+     * Stream the confirmed settlements of a group.
+     */
+    public Flux<SettlementEntry> confirmedSettlements(UUID groupId) {
+        return settlementClient.get()
+                .uri("/api/v1/settlements/group/{groupId}/confirmed/stream", groupId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .headers(headers -> headers.setBearerAuth(jwtUtils.generateServiceToken(serviceName, tokenTtl)))
+                .retrieve()
+                .bodyToFlux(SettlementEntry.class);
+    }
+
+    /**
+     * Expense share as returned by expense-service: userId owes paidBy the amount. Entries of
+     * deleted expenses carry no share and only tell when the expense was deleted.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class ExpenseShareEntry {
+        private UUID expenseId;
+        private UUID paidBy;
+        private UUID userId;
+        private BigDecimal amount;
+        private String currency;
+        private Instant updatedAt;
+        private boolean deleted;
+    }
+
+    /**
+     * Confirmed settlement as returned by settlement-service.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class SettlementEntry {
+        private UUID id;
+        private UUID fromUserId;
+        private UUID toUserId;
+        private BigDecimal amount;
+        private String currency;
+        private Instant updatedAt;
+    }
+}
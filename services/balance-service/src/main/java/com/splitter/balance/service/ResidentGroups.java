@@ -0,0 +1,150 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.dto.GroupBalanceSummary;
+import com.splitter.balance.model.Balance;
+import com.splitter.balance.repository.BalanceRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Full pair matrix and simplified plan of hot groups, held in memory.
+ *
+ * Each resident group is tagged with the summary cache version it reflects and is only
+ * served while that version is current, so writes by other instances or maintenance
+ * jobs make it miss rather than serve stale data. The event consumer refreshes a hot
+ * group after each committed write: a resident group one version behind reloads only
+ * the pairs of the affected users, anything else reloads the whole group.
+ */
+@Slf4j
+@Component
+public class ResidentGroups {
+
+    private final BalanceRepository balanceRepository;
+    private final HotGroupTracker hotGroups;
+    private final Map<UUID, Resident> residents = new ConcurrentHashMap<>();
+
+    public ResidentGroups(BalanceRepository balanceRepository, HotGroupTracker hotGroups, MeterRegistry meterRegistry) {
+        this.balanceRepository = balanceRepository;
+        this.hotGroups = hotGroups;
+        Gauge.builder("balance.hot-groups.resident", residents, Map::size)
+                .description("Hot groups whose balances are held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resident state of a group, if it reflects the given version.
+     */
+    public Optional<Resident> get(UUID groupId, long version) {
+        Resident resident = residents.get(groupId);
+        return resident != null && resident.version() == version ? Optional.of(resident) : Optional.empty();
+    }
+
+    /**
+     * Whether a group is currently resident at any version.
+     */
+    public boolean contains(UUID groupId) {
+        return residents.containsKey(groupId);
+    }
+
+    /**
+     * Load a hot group's balances for a version read before loading.
+     */
+    public Mono<Resident> load(UUID groupId, long version) {
+        return balanceRepository.findByGroupId(groupId)
+                .collectList()
+                .map(balances -> store(groupId, new Resident(version, index(balances), null)));
+    }
+
+    /**
+     * Bring a hot group up to the version a committed write produced.
+     *
+     * @param summary Summary computed for that version, stored alongside the pairs
+     */
+    public Mono<Void> refresh(UUID groupId, long version, Set<UUID> affectedUserIds,
+                              Mono<GroupBalanceSummary> summary) {
+        Resident previous = residents.get(groupId);
+        Mono<Map<PairKey, Balance>> pairs;
+        if (previous != null && previous.version() == version - 1 && !affectedUserIds.isEmpty()) {
+            pairs = balanceRepository.findByGroupIdAndUserIds(groupId, affectedUserIds)
+                    .collectList()
+                    .map(changed -> {
+                        Map<PairKey, Balance> patched = new HashMap<>(previous.pairs());
+                        patched.keySet().removeIf(key -> affectedUserIds.contains(key.fromUserId())
+                                || affectedUserIds.contains(key.toUserId()));
+                        patched.putAll(index(changed));
+                        return patched;
+                    });
+        } else {
+            pairs = balanceRepository.findByGroupId(groupId).collectList().map(this::index);
+        }
+
+        return pairs.zipWith(summary.map(Optional::of).defaultIfEmpty(Optional.empty()))
+                .doOnNext(loaded -> store(groupId, new Resident(version, loaded.getT1(), loaded.getT2().orElse(null))))
+                .doOnError(error -> log.warn("Failed to refresh resident group {}: {}", groupId, error.getMessage()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Drop a group's state, for when a write could not move the group to a new version.
+     */
+    public void evict(UUID groupId) {
+        residents.remove(groupId);
+    }
+
+    /**
+     * Drop groups that are no longer hot.
+     */
+    @Scheduled(fixedDelayString = "${balance.hot-groups.decay-interval-ms:60000}")
+    public void evictCold() {
+        residents.keySet().removeIf(groupId -> {
+            boolean cold = !hotGroups.isHot(groupId);
+            if (cold) {
+                log.debug("Evicting cooled down group {} from memory", groupId);
+            }
+            return cold;
+        });
+    }
+
+    /**
+     * Keep a newer state for a group, unless it has cooled down or a newer state is already held.
+     */
+    private Resident store(UUID groupId, Resident resident) {
+        if (!hotGroups.isHot(groupId)) {
+            residents.remove(groupId);
+            return resident;
+        }
+        residents.merge(groupId, resident, (held, loaded) -> loaded.version() >= held.version() ? loaded : held);
+        return resident;
+    }
+
+    private Map<PairKey, Balance> index(List<Balance> balances) {
+        Map<PairKey, Balance> pairs = new HashMap<>(balances.size() * 2);
+        for (Balance balance : balances) {
+            pairs.put(new PairKey(balance.getFromUserId(), balance.getToUserId(), balance.getCurrency()), balance);
+        }
+        return pairs;
+    }
+
+    /**
+     * Balance row key: stored user pair and currency.
+     */
+    record PairKey(UUID fromUserId, UUID toUserId, String currency) {}
+
+    /**
+     * A group's balance rows and, once a write has computed it, its summary at a version.
+     */
+    public record Resident(long version, Map<PairKey, Balance> pairs, GroupBalanceSummary summary) {
+
+        public Collection<Balance> balances() {
+            return pairs.values();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.dto.BalanceTransactionDto;
+import com.splitter.balance.model.BalanceTransaction;
+import com.splitter.balance.repository.BalanceTransactionRepository;
+import com.splitter.common.dto.PageCursor;
+import com.splitter.common.dto.PagedResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Transaction history for groups and users, paginated by keyset on (created_at, id)
+ * newest first, so every page is an index range read regardless of its depth.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CHUNK_SIZE = 1000;
+
+    private final BalanceTransactionRepository transactionRepository;
+
+    /**
+     * Get one page of a group's transaction history.
+     *
+     * @param cursor Cursor from the previous page, or null for the newest page
+     */
+    public Mono<PagedResponse<BalanceTransactionDto>> getGroupHistory(UUID groupId, String cursor, int size) {
+        return page(decode(cursor), size, (position, limit) -> position == null
+                ? transactionRepository.findGroupPage(groupId, limit)
+                : transactionRepository.findGroupPageBefore(groupId, position.createdAt(), position.id(), limit));
+    }
+
+    /**
+     * Get one page of the transaction history involving a user, across groups.
+     *
+     * @param cursor Cursor from the previous page, or null for the newest page
+     */
+    public Mono<PagedResponse<BalanceTransactionDto>> getUserHistory(UUID userId, String cursor, int size) {
+        return page(decode(cursor), size, (position, limit) -> position == null
+                ? transactionRepository.findUserPage(userId, limit)
+                : transactionRepository.findUserPageBefore(userId, position.createdAt(), position.id(), limit));
+    }
+
+    /**
+     * Stream a group's full history newest first, one keyset chunk at a time as the
+     * subscriber requests more.
+     */
+    public Flux<BalanceTransactionDto> streamGroupHistory(UUID groupId) {
+        return stream((position, limit) -> position == null
+                ? transactionRepository.findGroupPage(groupId, limit)
+                : transactionRepository.findGroupPageBefore(groupId, position.createdAt(), position.id(), limit));
+    }
+
+    /**
+     * Stream the full history involving a user newest first, one keyset chunk at a time.
+     */
+    public Flux<BalanceTransactionDto> streamUserHistory(UUID userId) {
+        return stream((position, limit) -> position == null
+                ? transactionRepository.findUserPage(userId, limit)
+                : transactionRepository.findUserPageBefore(userId, position.createdAt(), position.id(), limit));
+    }
+
+    private Mono<PagedResponse<BalanceTransactionDto>> page(Position position, int size, PageQuery query) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        // Read one extra row to learn whether another page follows
+        return query.fetch(position, pageSize + 1)
+                .collectList()
+                .map(rows -> {
+                    boolean hasNext = rows.size() > pageSize;
+                    List<BalanceTransaction> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+                    String nextCursor = hasNext ? encode(pageRows.get(pageRows.size() - 1)) : null;
+                    return PagedResponse.ofCursor(
+                            pageRows.stream().map(this::toDto).toList(), pageSize, position == null, nextCursor);
+                });
+    }
+
+    private Flux<BalanceTransactionDto> stream(PageQuery query) {
+        return query.fetch(null, STREAM_CHUNK_SIZE)
+                .collectList()
+                .expand(chunk -> chunk.size() < STREAM_CHUNK_SIZE
+                        ? Mono.empty()
+                        : query.fetch(Position.of(chunk.get(chunk.size() - 1)), STREAM_CHUNK_SIZE).collectList())
+                .concatMapIterable(chunk -> chunk)
+                .map(this::toDto);
+    }
+
+    private String encode(BalanceTransaction transaction) {
+        return PageCursor.encode(transaction.getCreatedAt(), transaction.getId());
+    }
+
+    private Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        List<String> keys = PageCursor.decode(cursor, 2);
+        try {
+            return new Position(Instant.parse(keys.get(0)), UUID.fromString(keys.get(1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+
+    private BalanceTransactionDto toDto(BalanceTransaction transaction) {
+        return BalanceTransactionDto.builder()
+                .id(transaction.getId())
+                .groupId(transaction.getGroupId())
+                .fromUserId(transaction.getFromUserId())
+                .toUserId(transaction.getToUserId())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .transactionType(transaction.getTransactionType() != null
+                        ? transaction.getTransactionType().name() : null)
+                .referenceId(transaction.getReferenceId())
+                .description(transaction.getDescription())
+                .createdAt(transaction.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Keyset position: the sort key of the last row already returned.
+     */
+    private record Position(Instant createdAt, UUID id) {
+
+        static Position of(BalanceTransaction transaction) {
+            return new Position(transaction.getCreatedAt(), transaction.getId());
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageQuery {
+        Flux<BalanceTransaction> fetch(Position after, int limit);
+    }
+}
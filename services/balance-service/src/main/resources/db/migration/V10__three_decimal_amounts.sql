@@ -0,0 +1,9 @@
+-- V10__three_decimal_amounts.sql
+-- Expense shares are stored at the scale of their currency, up to three decimals (KWD, BHD);
+-- balance amounts follow so those shares are not rounded when applied
+
+ALTER TABLE balances ALTER COLUMN amount TYPE DECIMAL(15, 3);
+ALTER TABLE balance_transactions ALTER COLUMN amount TYPE DECIMAL(15, 3);
+ALTER TABLE user_net_positions ALTER COLUMN net_amount TYPE DECIMAL(15, 3);
+ALTER TABLE balance_snapshot_pairs ALTER COLUMN amount TYPE DECIMAL(15, 3);
+ALTER TABLE balance_checkpoint_pairs ALTER COLUMN amount TYPE DECIMAL(15, 3);
@@ -0,0 +1,19 @@
+-- V2__canonical_balance_pairs.sql
+-- Rewrite balances into canonical pair form: one row per unordered user pair,
+-- with from_user_id < to_user_id and a signed amount (positive = from owes to).
+
+CREATE TEMP TABLE canonical_balances ON COMMIT DROP AS
+SELECT group_id,
+       LEAST(from_user_id, to_user_id) AS from_user_id,
+       GREATEST(from_user_id, to_user_id) AS to_user_id,
+       SUM(CASE WHEN from_user_id < to_user_id THEN amount ELSE -amount END) AS amount,
+       MAX(currency) AS currency,
+       MAX(updated_at) AS updated_at
+FROM balances
+GROUP BY group_id, LEAST(from_user_id, to_user_id), GREATEST(from_user_id, to_user_id);
+
+DELETE FROM balances;
+
+INSERT INTO balances (group_id, from_user_id, to_user_id, amount, currency, updated_at)
+SELECT group_id, from_user_id, to_user_id, amount, currency, updated_at
+FROM canonical_balances;
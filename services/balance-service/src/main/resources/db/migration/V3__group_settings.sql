@@ -0,0 +1,10 @@
+-- V3__group_settings.sql
+-- Local copy of the group settings that affect balance calculations,
+-- maintained from group events so summaries never call group-service.
+
+CREATE TABLE IF NOT EXISTS group_settings (
+    group_id UUID PRIMARY KEY,
+    simplify_debts BOOLEAN NOT NULL DEFAULT TRUE,
+    default_currency VARCHAR(3) DEFAULT 'USD',
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
@@ -0,0 +1,30 @@
+-- V4__balance_snapshots.sql
+-- Per-group snapshots of the canonical pair ledger for fast rebuilds
+
+-- One row per snapshot; the watermark is the last transaction folded into it
+CREATE TABLE IF NOT EXISTS balance_snapshots (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    group_id UUID NOT NULL,
+    last_transaction_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_transaction_id UUID NOT NULL,
+    pair_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
+-- Net position of each canonical user pair at the snapshot watermark
+CREATE TABLE IF NOT EXISTS balance_snapshot_pairs (
+    snapshot_id UUID NOT NULL REFERENCES balance_snapshots(id) ON DELETE CASCADE,
+    from_user_id UUID NOT NULL,
+    to_user_id UUID NOT NULL,
+    amount DECIMAL(15, 2) NOT NULL,
+    currency VARCHAR(3) DEFAULT 'USD',
+    PRIMARY KEY (snapshot_id, from_user_id, to_user_id)
+);
+
+-- Indexes
+CREATE INDEX IF NOT EXISTS idx_snapshots_group_latest
+    ON balance_snapshots(group_id, last_transaction_at DESC, last_transaction_id DESC);
+
+-- Replay reads a group's transactions after a (created_at, id) watermark
+CREATE INDEX IF NOT EXISTS idx_transactions_group_created_id
+    ON balance_transactions(group_id, created_at, id);
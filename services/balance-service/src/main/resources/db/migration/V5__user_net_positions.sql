@@ -0,0 +1,27 @@
+-- V5__user_net_positions.sql
+-- Per-user net position in each group, maintained alongside balances.
+-- Positive net_amount means the user is owed money in that group.
+
+CREATE TABLE IF NOT EXISTS user_net_positions (
+    user_id UUID NOT NULL,
+    group_id UUID NOT NULL,
+    currency VARCHAR(3) NOT NULL DEFAULT 'USD',
+    net_amount DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    PRIMARY KEY (user_id, group_id, currency)
+);
+
+CREATE INDEX IF NOT EXISTS idx_net_positions_group ON user_net_positions(group_id);
+
+-- Backfill from existing balances: from_user_id owes to_user_id the signed amount
+INSERT INTO user_net_positions (user_id, group_id, currency, net_amount, updated_at)
+SELECT p.user_id, p.group_id, p.currency, SUM(p.amount), NOW()
+FROM (
+    SELECT from_user_id AS user_id, group_id, COALESCE(currency, 'USD') AS currency, -amount AS amount
+    FROM balances
+    UNION ALL
+    SELECT to_user_id AS user_id, group_id, COALESCE(currency, 'USD') AS currency, amount
+    FROM balances
+) p
+GROUP BY p.user_id, p.group_id, p.currency
+ON CONFLICT (user_id, group_id, currency) DO NOTHING;
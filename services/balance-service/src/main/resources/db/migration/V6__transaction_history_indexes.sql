@@ -0,0 +1,14 @@
+-- V6__transaction_history_indexes.sql
+-- Keyset pagination of transaction history on (created_at, id), newest first.
+-- Group history uses idx_transactions_group_created_id from V4.
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_user_created_id
+    ON balance_transactions(from_user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_user_created_id
+    ON balance_transactions(to_user_id, created_at DESC, id DESC);
+
+-- Superseded by the composite indexes above, which share their leading column
+DROP INDEX IF EXISTS idx_transactions_group;
+DROP INDEX IF EXISTS idx_transactions_from_user;
+DROP INDEX IF EXISTS idx_transactions_to_user;
@@ -0,0 +1,47 @@
+-- V7__currency_balance_buckets.sql
+-- Keep one balance row per user pair and currency. Rows written so far added amounts
+-- in different currencies together, so they are re-derived from the transaction log,
+-- which kept each delta's currency.
+
+UPDATE balance_transactions SET currency = 'USD' WHERE currency IS NULL;
+
+ALTER TABLE balances DROP CONSTRAINT IF EXISTS balances_group_id_from_user_id_to_user_id_key;
+
+CREATE TEMP TABLE currency_balances ON COMMIT DROP AS
+SELECT group_id,
+       LEAST(from_user_id, to_user_id) AS from_user_id,
+       GREATEST(from_user_id, to_user_id) AS to_user_id,
+       currency,
+       SUM(CASE WHEN from_user_id < to_user_id THEN amount ELSE -amount END) AS amount,
+       MAX(created_at) AS updated_at
+FROM balance_transactions
+GROUP BY group_id, LEAST(from_user_id, to_user_id), GREATEST(from_user_id, to_user_id), currency;
+
+DELETE FROM balances;
+
+INSERT INTO balances (group_id, from_user_id, to_user_id, amount, currency, updated_at)
+SELECT group_id, from_user_id, to_user_id, amount, currency, updated_at
+FROM currency_balances;
+
+ALTER TABLE balances ALTER COLUMN currency SET NOT NULL;
+ALTER TABLE balances ADD CONSTRAINT balances_group_pair_currency_key
+    UNIQUE (group_id, from_user_id, to_user_id, currency);
+
+-- Net positions were backfilled from the mixed rows; derive them again per currency
+DELETE FROM user_net_positions;
+
+INSERT INTO user_net_positions (user_id, group_id, currency, net_amount, updated_at)
+SELECT p.user_id, p.group_id, p.currency, SUM(p.amount), NOW()
+FROM (
+    SELECT from_user_id AS user_id, group_id, currency, -amount AS amount FROM balances
+    UNION ALL
+    SELECT to_user_id AS user_id, group_id, currency, amount FROM balances
+) p
+GROUP BY p.user_id, p.group_id, p.currency;
+
+-- Snapshot pairs become per currency; existing snapshots are recreated by the next run
+DELETE FROM balance_snapshots;
+
+ALTER TABLE balance_snapshot_pairs DROP CONSTRAINT IF EXISTS balance_snapshot_pairs_pkey;
+ALTER TABLE balance_snapshot_pairs ALTER COLUMN currency SET NOT NULL;
+ALTER TABLE balance_snapshot_pairs ADD PRIMARY KEY (snapshot_id, from_user_id, to_user_id, currency);
@@ -0,0 +1,10 @@
+-- V8__processed_events.sql
+-- IDs of consumed events, written in the same transaction as their balance changes
+-- so a redelivered event is recognised and skipped.
+
+CREATE TABLE IF NOT EXISTS processed_events (
+    event_id VARCHAR(100) PRIMARY KEY,
+    processed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_events_processed_at ON processed_events(processed_at);
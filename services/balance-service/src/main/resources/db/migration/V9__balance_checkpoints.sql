@@ -0,0 +1,27 @@
+-- V9__balance_checkpoints.sql
+-- Daily and monthly per-group checkpoints of the pair ledger for point-in-time queries
+
+-- One row per group, period and boundary; covers every transaction created before as_of
+CREATE TABLE IF NOT EXISTS balance_checkpoints (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    group_id UUID NOT NULL,
+    period VARCHAR(10) NOT NULL,
+    as_of TIMESTAMP WITH TIME ZONE NOT NULL,
+    pair_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    CONSTRAINT balance_checkpoints_group_period_as_of_key UNIQUE (group_id, period, as_of)
+);
+
+-- Net amount of each canonical user pair and currency at the checkpoint boundary
+CREATE TABLE IF NOT EXISTS balance_checkpoint_pairs (
+    checkpoint_id UUID NOT NULL REFERENCES balance_checkpoints(id) ON DELETE CASCADE,
+    from_user_id UUID NOT NULL,
+    to_user_id UUID NOT NULL,
+    amount DECIMAL(15, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    PRIMARY KEY (checkpoint_id, from_user_id, to_user_id, currency)
+);
+
+-- As-of queries look up the nearest checkpoint at or before a point in time
+CREATE INDEX IF NOT EXISTS idx_checkpoints_group_as_of
+    ON balance_checkpoints(group_id, as_of DESC);
@@ -0,0 +1,83 @@
+package com.splitter.balance.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the long-cents and optimal debt engines against the BigDecimal reference path.
+ *
+ * Not run by the test suite. Run it from the IDE, or after {@code mvn test-compile} with
+ * {@code java -cp target/test-classes:target/classes:<test classpath> com.splitter.balance.service.DebtSimplifierBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DebtSimplifierBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int users;
+
+    private final DebtSimplifier simplifier = new DebtSimplifier();
+    private List<DebtSimplifier.Debt> debts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        UUID[] ids = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            ids[i] = UUID.randomUUID();
+        }
+        debts = new ArrayList<>(users * 5);
+        for (int i = 0; i < users * 5; i++) {
+            int from = random.nextInt(users);
+            int to = (from + 1 + random.nextInt(users - 1)) % users;
+            debts.add(new DebtSimplifier.Debt(ids[from], ids[to], BigDecimal.valueOf(1 + random.nextInt(100_000), 2)));
+        }
+    }
+
+    @Benchmark
+    public List<DebtSimplifier.Debt> bigDecimal() {
+        return simplifier.simplifyBigDecimal(debts);
+    }
+
+    @Benchmark
+    public List<DebtSimplifier.Debt> longCents() {
+        return LongCentsDebtEngine.trySimplify(debts);
+    }
+
+    /**
+     * Optimal simplification with the production defaults: 20 exact members and a 100 ms budget.
+     */
+    @Benchmark
+    public List<DebtSimplifier.Debt> optimal() {
+        return simplifier.simplify(debts, DebtSimplifier.Mode.OPTIMAL);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DebtSimplifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
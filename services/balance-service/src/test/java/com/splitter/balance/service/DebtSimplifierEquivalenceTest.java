@@ -0,0 +1,157 @@
+package com.splitter.balance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the long-cents and optimal engines against the BigDecimal reference implementation.
+ */
+class DebtSimplifierEquivalenceTest {
+
+    private final DebtSimplifier simplifier = new DebtSimplifier();
+
+    @Test
+    void longCentsEngineMatchesBigDecimalPathExactly() {
+        Random random = new Random(7);
+        for (int run = 0; run < 2_000; run++) {
+            int scale = random.nextInt(LongCentsDebtEngine.MAX_SCALE + 1);
+            List<DebtSimplifier.Debt> debts = randomDebts(random, 2 + random.nextInt(40), 1 + random.nextInt(200),
+                    1_000_000, scale);
+
+            List<DebtSimplifier.Debt> longCents = LongCentsDebtEngine.trySimplify(debts);
+
+            assertThat(longCents).containsExactlyElementsOf(simplifier.simplifyBigDecimal(debts));
+        }
+    }
+
+    @Test
+    void longCentsEngineMatchesBigDecimalPathOnEqualAmounts() {
+        // Many equal positions exercise tie-breaking in the sort
+        Random random = new Random(11);
+        for (int run = 0; run < 500; run++) {
+            List<DebtSimplifier.Debt> debts = randomDebts(random, 30, 100, 3, 2);
+
+            assertThat(LongCentsDebtEngine.trySimplify(debts))
+                    .containsExactlyElementsOf(simplifier.simplifyBigDecimal(debts));
+        }
+    }
+
+    @Test
+    void longCentsEngineDefersToBigDecimalPathWhenAmountsDoNotFit() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+
+        assertThat(LongCentsDebtEngine.trySimplify(List.of(
+                new DebtSimplifier.Debt(a, b, new BigDecimal("1.00")),
+                new DebtSimplifier.Debt(b, a, new BigDecimal("0.5"))))).isNull();
+        assertThat(LongCentsDebtEngine.trySimplify(List.of(
+                new DebtSimplifier.Debt(a, b, new BigDecimal("1.00001"))))).isNull();
+        assertThat(LongCentsDebtEngine.trySimplify(List.of(
+                new DebtSimplifier.Debt(a, b, BigDecimal.valueOf(Long.MAX_VALUE, 2)),
+                new DebtSimplifier.Debt(a, b, BigDecimal.valueOf(Long.MAX_VALUE, 2))))).isNull();
+    }
+
+    @Test
+    void optimalSolverSettlesTheSameNetPositionsWithMinimumTransfers() {
+        Random random = new Random(13);
+        for (int run = 0; run < 2_000; run++) {
+            // Few distinct amounts, so zero-sum subsets are common
+            List<DebtSimplifier.Debt> debts = randomDebts(random, 2 + random.nextInt(9), 1 + random.nextInt(20), 6, 2);
+            Map<UUID, BigDecimal> nets = netPositions(debts);
+
+            List<DebtSimplifier.Debt> optimal = OptimalDebtSolver.trySolve(debts, 20, Long.MAX_VALUE);
+            List<DebtSimplifier.Debt> greedy = simplifier.simplifyBigDecimal(debts);
+
+            assertThat(netPositions(optimal)).isEqualTo(nets);
+            assertThat(netPositions(greedy)).isEqualTo(nets);
+            assertThat(optimal).hasSize(minimumTransfers(nets));
+            assertThat(optimal.size()).isLessThanOrEqualTo(greedy.size());
+        }
+    }
+
+    @Test
+    void optimalSolverBeatsGreedyWhenPositionsSplitIntoZeroSumGroups() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        UUID d = UUID.randomUUID();
+        UUID e = UUID.randomUUID();
+        // Net positions +10, +4, -7, -4, -3 settle as {+4, -4} and {+10, -7, -3}
+        List<DebtSimplifier.Debt> debts = List.of(
+                new DebtSimplifier.Debt(c, a, new BigDecimal("7.00")),
+                new DebtSimplifier.Debt(e, a, new BigDecimal("3.00")),
+                new DebtSimplifier.Debt(d, b, new BigDecimal("4.00")));
+
+        assertThat(OptimalDebtSolver.trySolve(debts, 20, Long.MAX_VALUE)).hasSize(3);
+        assertThat(simplifier.simplify(debts, DebtSimplifier.Mode.OPTIMAL)).hasSize(3);
+    }
+
+    @Test
+    void optimalSolverGivesUpAfterItsDeadline() {
+        List<DebtSimplifier.Debt> debts = randomDebts(new Random(17), 18, 60, 1_000, 2);
+
+        assertThat(OptimalDebtSolver.trySolve(debts, 20, System.nanoTime() - 1)).isNull();
+    }
+
+    private static List<DebtSimplifier.Debt> randomDebts(Random random, int users, int count, long maxUnits, int scale) {
+        UUID[] ids = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            ids[i] = new UUID(0, i + 1);
+        }
+        List<DebtSimplifier.Debt> debts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(users);
+            int to = (from + 1 + random.nextInt(users - 1)) % users;
+            long units = 1 + (long) (random.nextDouble() * maxUnits);
+            debts.add(new DebtSimplifier.Debt(ids[from], ids[to], BigDecimal.valueOf(units, scale)));
+        }
+        return debts;
+    }
+
+    /**
+     * Non-zero net position of each user, positive when owed.
+     */
+    private static Map<UUID, BigDecimal> netPositions(List<DebtSimplifier.Debt> debts) {
+        Map<UUID, BigDecimal> nets = new HashMap<>();
+        for (DebtSimplifier.Debt debt : debts) {
+            nets.merge(debt.fromUserId(), debt.amount().negate(), BigDecimal::add);
+            nets.merge(debt.toUserId(), debt.amount(), BigDecimal::add);
+        }
+        nets.replaceAll((user, amount) -> amount.stripTrailingZeros());
+        nets.values().removeIf(amount -> amount.signum() == 0);
+        return nets;
+    }
+
+    /**
+     * Brute force: n users need n - k transfers, k being the most disjoint zero-sum subsets.
+     */
+    private static int minimumTransfers(Map<UUID, BigDecimal> nets) {
+        BigDecimal[] amounts = nets.values().toArray(BigDecimal[]::new);
+        int n = amounts.length;
+        int[] groups = new int[1 << n];
+        BigDecimal[] sums = new BigDecimal[1 << n];
+        sums[0] = BigDecimal.ZERO;
+        for (int mask = 1; mask < 1 << n; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            sums[mask] = sums[mask & (mask - 1)].add(amounts[low]);
+            for (int i = 0; i < n; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    groups[mask] = Math.max(groups[mask], groups[mask ^ (1 << i)]);
+                }
+            }
+            if (sums[mask].signum() == 0) {
+                groups[mask]++;
+            }
+        }
+        return n - groups[(1 << n) - 1];
+    }
+}
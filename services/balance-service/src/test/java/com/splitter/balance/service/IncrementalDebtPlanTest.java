@@ -0,0 +1,103 @@
+package com.splitter.balance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that patched plans settle the same net positions as a full rebuild.
+ */
+class IncrementalDebtPlanTest {
+
+    private final DebtSimplifier simplifier = new DebtSimplifier();
+
+    @Test
+    void patchedPlanSettlesTheSameNetPositionsAsARebuild() {
+        Random random = new Random(19);
+        for (int run = 0; run < 200; run++) {
+            int users = 3 + random.nextInt(30);
+            List<DebtSimplifier.Debt> debts = randomDebts(random, users, 1 + random.nextInt(100));
+            IncrementalDebtPlan plan = simplifier.incrementalPlan(debts, simplifier.simplify(debts));
+
+            for (int write = 0; write < 20; write++) {
+                // One write: an expense whose payer is owed by a few participants
+                List<DebtSimplifier.Debt> added = randomDebts(random, users, 1 + random.nextInt(4));
+                debts.addAll(added);
+                Map<UUID, BigDecimal> nets = netPositions(debts);
+                Map<UUID, BigDecimal> positions = new HashMap<>();
+                for (DebtSimplifier.Debt debt : added) {
+                    positions.put(debt.fromUserId(), nets.getOrDefault(debt.fromUserId(), BigDecimal.ZERO));
+                    positions.put(debt.toUserId(), nets.getOrDefault(debt.toUserId(), BigDecimal.ZERO));
+                }
+
+                assertThat(plan.update(positions)).isTrue();
+                assertThat(netPositions(plan.transfers())).isEqualTo(nets);
+                assertThat(netPositions(plan.transfers())).isEqualTo(netPositions(simplifier.simplify(debts)));
+            }
+        }
+    }
+
+    @Test
+    void updateWithUnchangedPositionsKeepsThePlan() {
+        List<DebtSimplifier.Debt> debts = randomDebts(new Random(23), 10, 40);
+        IncrementalDebtPlan plan = simplifier.incrementalPlan(debts, simplifier.simplify(debts));
+        List<DebtSimplifier.Debt> before = plan.transfers();
+
+        assertThat(plan.update(netPositions(debts))).isTrue();
+        assertThat(plan.transfers()).isEqualTo(before);
+    }
+
+    @Test
+    void updateRejectsPositionsThatDoNotSumToZero() {
+        UUID a = new UUID(0, 1);
+        UUID b = new UUID(0, 2);
+        UUID c = new UUID(0, 3);
+        List<DebtSimplifier.Debt> debts = List.of(new DebtSimplifier.Debt(a, b, new BigDecimal("10.00")));
+        IncrementalDebtPlan plan = simplifier.incrementalPlan(debts, simplifier.simplify(debts));
+
+        // c now owes b 5.00, but b's position was read before that write
+        assertThat(plan.update(Map.of(c, new BigDecimal("-5.00"), b, new BigDecimal("10.00")))).isFalse();
+    }
+
+    @Test
+    void updateRejectsAmountsFinerThanThePlanScale() {
+        UUID a = new UUID(0, 1);
+        UUID b = new UUID(0, 2);
+        List<DebtSimplifier.Debt> debts = List.of(new DebtSimplifier.Debt(a, b, new BigDecimal("10.00")));
+        IncrementalDebtPlan plan = simplifier.incrementalPlan(debts, simplifier.simplify(debts));
+
+        assertThat(plan.update(Map.of(a, new BigDecimal("-10.005"), b, new BigDecimal("10.005")))).isFalse();
+    }
+
+    private static List<DebtSimplifier.Debt> randomDebts(Random random, int users, int count) {
+        List<DebtSimplifier.Debt> debts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(users);
+            int to = (from + 1 + random.nextInt(users - 1)) % users;
+            long units = 1 + random.nextInt(100_000);
+            debts.add(new DebtSimplifier.Debt(new UUID(0, from + 1), new UUID(0, to + 1), BigDecimal.valueOf(units, 2)));
+        }
+        return debts;
+    }
+
+    /**
+     * Non-zero net position of each user, positive when owed.
+     */
+    private static Map<UUID, BigDecimal> netPositions(List<DebtSimplifier.Debt> debts) {
+        Map<UUID, BigDecimal> nets = new HashMap<>();
+        for (DebtSimplifier.Debt debt : debts) {
+            nets.merge(debt.fromUserId(), debt.amount().negate(), BigDecimal::add);
+            nets.merge(debt.toUserId(), debt.amount(), BigDecimal::add);
+        }
+        nets.values().removeIf(amount -> amount.signum() == 0);
+        return nets;
+    }
+}
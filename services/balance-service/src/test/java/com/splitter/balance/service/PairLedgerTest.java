@@ -0,0 +1,72 @@
+package com.splitter.balance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PairLedgerTest {
+
+    private final UUID alice = new UUID(0, 1);
+    private final UUID bob = new UUID(0, 2);
+
+    @Test
+    void debtsInOppositeDirectionsLandOnOnePair() {
+        PairLedger ledger = new PairLedger();
+        ledger.add(alice, bob, new BigDecimal("10.00"), "USD");
+        ledger.add(bob, alice, new BigDecimal("10.00"), "USD");
+
+        assertThat(PairLedger.diff(new PairLedger(), ledger)).isEmpty();
+    }
+
+    @Test
+    void pairIsOrientedTheSameWayWhicheverUserIsAddedFirst() {
+        PairLedger aliceOwes = new PairLedger();
+        aliceOwes.add(alice, bob, new BigDecimal("4.50"), "USD");
+        PairLedger bobOwed = new PairLedger();
+        bobOwed.add(bob, alice, new BigDecimal("-4.50"), "USD");
+
+        assertThat(PairLedger.diff(aliceOwes, bobOwed)).isEmpty();
+
+        List<PairLedger.Difference> differences = PairLedger.diff(aliceOwes, new PairLedger());
+        assertThat(differences).singleElement().satisfies(difference -> {
+            assertThat(difference.key()).isEqualTo(new PairLedger.PairKey(alice, bob, "USD"));
+            assertThat(difference.correction()).isEqualByComparingTo("4.50");
+        });
+    }
+
+    @Test
+    void correctionBringsTheActualAmountToTheExpectedOne() {
+        PairLedger expected = new PairLedger();
+        expected.add(bob, alice, new BigDecimal("3.000"), "KWD");
+        PairLedger actual = new PairLedger();
+        actual.add(alice, bob, new BigDecimal("1.250"), "KWD");
+
+        PairLedger.Difference difference = PairLedger.diff(expected, actual).get(0);
+
+        assertThat(difference.expectedAmount()).isEqualByComparingTo("-3.000");
+        assertThat(difference.actualAmount()).isEqualByComparingTo("1.250");
+        assertThat(difference.actualAmount().add(difference.correction())).isEqualByComparingTo(difference.expectedAmount());
+    }
+
+    @Test
+    void currenciesAreKeptApart() {
+        PairLedger ledger = new PairLedger();
+        ledger.add(alice, bob, BigDecimal.ONE, "USD");
+        ledger.add(bob, alice, BigDecimal.ONE, "EUR");
+
+        assertThat(PairLedger.diff(new PairLedger(), ledger))
+                .extracting(difference -> difference.key().currency())
+                .containsExactlyInAnyOrder("USD", "EUR");
+    }
+
+    @Test
+    void rejectsAmountsFinerThanTheLedgerScale() {
+        assertThatThrownBy(() -> new PairLedger().add(alice, bob, new BigDecimal("0.0001"), "USD"))
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
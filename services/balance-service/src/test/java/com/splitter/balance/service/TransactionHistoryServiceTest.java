@@ -0,0 +1,117 @@
+package com.splitter.balance.service;
+
+import com.splitter.balance.dto.BalanceTransactionDto;
+import com.splitter.balance.model.BalanceTransaction;
+import com.splitter.balance.repository.BalanceTransactionRepository;
+import com.splitter.common.dto.PageCursor;
+import com.splitter.common.dto.PagedResponse;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Walks group history page by page over an in-memory keyset, including rows that share
+ * a created_at across a page boundary.
+ */
+class TransactionHistoryServiceTest {
+
+    private static final Comparator<BalanceTransaction> NEWEST_FIRST = Comparator
+            .comparing(BalanceTransaction::getCreatedAt)
+            .thenComparing(BalanceTransaction::getId)
+            .reversed();
+
+    private final UUID groupId = UUID.randomUUID();
+
+    @Test
+    void pagesCoverEveryRowOnceInKeysetOrder() {
+        List<BalanceTransaction> rows = new ArrayList<>();
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < 23; i++) {
+            // Groups of three rows share a created_at, so ties fall on page boundaries
+            rows.add(transaction(base.plusSeconds(i / 3)));
+        }
+        TransactionHistoryService service = new TransactionHistoryService(repository(rows));
+
+        List<UUID> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PagedResponse<BalanceTransactionDto> page = service.getGroupHistory(groupId, cursor, 5).block();
+            assertThat(page.isFirst()).isEqualTo(pages == 0);
+            page.getContent().forEach(row -> seen.add(row.id()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(5);
+        assertThat(seen).containsExactlyElementsOf(rows.stream().sorted(NEWEST_FIRST).map(BalanceTransaction::getId).toList());
+    }
+
+    @Test
+    void aFullLastPageHasNoNextCursor() {
+        List<BalanceTransaction> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(transaction(Instant.EPOCH.plusSeconds(i)));
+        }
+        TransactionHistoryService service = new TransactionHistoryService(repository(rows));
+
+        PagedResponse<BalanceTransactionDto> page = service.getGroupHistory(groupId, null, 5).block();
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.isLast()).isTrue();
+    }
+
+    @Test
+    void rejectsACursorWhoseKeysDoNotParse() {
+        TransactionHistoryService service = new TransactionHistoryService(repository(List.of()));
+
+        assertThatThrownBy(() -> service.getGroupHistory(groupId, PageCursor.encode("yesterday", UUID.randomUUID()), 5).block())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BalanceTransaction transaction(Instant createdAt) {
+        return BalanceTransaction.builder()
+                .id(UUID.randomUUID())
+                .groupId(groupId)
+                .fromUserId(UUID.randomUUID())
+                .toUserId(UUID.randomUUID())
+                .amount(BigDecimal.ONE)
+                .currency("USD")
+                .transactionType(BalanceTransaction.TransactionType.EXPENSE)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    /**
+     * Repository answering the group page queries the way their SQL does: newest first,
+     * strictly before the (created_at, id) cursor.
+     */
+    private static BalanceTransactionRepository repository(List<BalanceTransaction> rows) {
+        return (BalanceTransactionRepository) Proxy.newProxyInstance(
+                BalanceTransactionRepository.class.getClassLoader(),
+                new Class<?>[]{BalanceTransactionRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findGroupPage" -> Flux.fromStream(rows.stream().sorted(NEWEST_FIRST).limit((int) args[1]));
+                    case "findGroupPageBefore" -> {
+                        BalanceTransaction cursor = BalanceTransaction.builder()
+                                .createdAt((Instant) args[1]).id((UUID) args[2]).build();
+                        yield Flux.fromStream(rows.stream()
+                                .filter(row -> NEWEST_FIRST.compare(row, cursor) > 0)
+                                .sorted(NEWEST_FIRST)
+                                .limit((int) args[3]));
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -2,6 +2,7 @@ package com.splitter.expense;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Expense Service Application.
@@ -9,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * Handles expense creation, splitting, and management.
  */
 @SpringBootApplication
+@EnableScheduling
 public class ExpenseServiceApplication {
 
     public static void main(String[] args) {
@@ -1,6 +1,11 @@
 package com.splitter.expense.controller;
 
+import com.splitter.common.dto.PagedResponse;
+import com.splitter.common.security.SecurityUtils;
 import com.splitter.expense.dto.*;
+import com.splitter.expense.exception.UnauthorizedExpenseActionException;
+import com.splitter.expense.service.ExpenseImportParser;
+import com.splitter.expense.service.ExpenseImportService;
 import com.splitter.expense.service.ExpenseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,6 +14,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +22,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -30,6 +37,7 @@ import java.util.UUID;
 public class ExpenseController {
 
     private final ExpenseService expenseService;
+    private final ExpenseImportService importService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -42,6 +50,27 @@ public class ExpenseController {
         return expenseService.createExpense(request, userId);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Import expenses from NDJSON, streaming progress after every chunk")
+    public Flux<ExpenseImportProgress> importExpensesNdjson(
+            @RequestBody Flux<String> lines,
+            @RequestParam(required = false) UUID groupId,
+            @AuthenticationPrincipal Jwt jwt) {
+        return importService.importExpenses(lines, ExpenseImportParser.Format.NDJSON, groupId,
+                UUID.fromString(jwt.getSubject()));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Import expenses from CSV with a header row, streaming progress after every chunk")
+    public Flux<ExpenseImportProgress> importExpensesCsv(
+            @RequestBody Flux<String> lines,
+            @RequestParam(required = false) UUID groupId,
+            @AuthenticationPrincipal Jwt jwt) {
+        return importService.importExpenses(lines, ExpenseImportParser.Format.CSV, groupId,
+                UUID.fromString(jwt.getSubject()));
+    }
+
     @GetMapping("/{expenseId}")
     @Operation(summary = "Get expense by ID")
     public Mono<ExpenseDto> getExpense(@PathVariable UUID expenseId) {
@@ -57,12 +86,33 @@ public class ExpenseController {
         return expenseService.getGroupExpenses(groupId, page, Math.min(size, 100));
     }
 
+    @GetMapping("/group/{groupId}/page")
+    @Operation(summary = "Get a keyset page of a group's expenses, newest first")
+    public Mono<PagedResponse<ExpenseDto>> getGroupExpensesPage(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return expenseService.getGroupExpensesPage(groupId, cursor, size);
+    }
+
     @GetMapping("/group/{groupId}/all")
     @Operation(summary = "Get all expenses for a group")
     public Flux<ExpenseDto> getAllGroupExpenses(@PathVariable UUID groupId) {
         return expenseService.getAllGroupExpenses(groupId);
     }
 
+    @GetMapping(value = "/group/{groupId}/ledger", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream the shares of a group's expenses as balance ledger entries (admins and services only)")
+    public Flux<ExpenseLedgerEntryDto> streamGroupLedger(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant deletedSince) {
+        return SecurityUtils.isAdminOrService()
+                .flatMapMany(allowed -> allowed
+                        ? expenseService.streamGroupLedger(groupId, deletedSince)
+                        : Flux.error(new UnauthorizedExpenseActionException(
+                                "The group ledger is only available to admins and services")));
+    }
+
     @GetMapping("/group/{groupId}/range")
     @Operation(summary = "Get expenses by date range")
     public Flux<ExpenseDto> getExpensesByDateRange(
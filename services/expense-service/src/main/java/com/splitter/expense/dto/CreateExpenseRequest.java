@@ -45,7 +45,10 @@ public record CreateExpenseRequest(
     List<UUID> participants,
 
     @Valid
-    List<ShareDetail> shares
+    List<ShareDetail> shares,
+
+    @Valid
+    Itemization itemization
 ) {
     /**
      * Detail for non-equal splits.
@@ -56,4 +59,36 @@ public record CreateExpenseRequest(
         BigDecimal percentage,
         Integer units
     ) {}
+
+    /**
+     * Receipt lines for itemized splits, usually taken from a parsed receipt.
+     * Amounts of the items plus tax and tip, minus discount, must equal the expense amount.
+     */
+    public record Itemization(
+        @NotEmpty(message = "At least one line item is required")
+        @Valid
+        List<LineItem> items,
+
+        @PositiveOrZero(message = "Tax cannot be negative")
+        BigDecimal tax,
+
+        @PositiveOrZero(message = "Tip cannot be negative")
+        BigDecimal tip,
+
+        @PositiveOrZero(message = "Discount cannot be negative")
+        BigDecimal discount
+    ) {}
+
+    /**
+     * A receipt line and the participants who share it; no participants means everyone.
+     */
+    public record LineItem(
+        String description,
+
+        @NotNull(message = "Line item amount is required")
+        @PositiveOrZero(message = "Line item amount cannot be negative")
+        BigDecimal amount,
+
+        List<UUID> participants
+    ) {}
 }
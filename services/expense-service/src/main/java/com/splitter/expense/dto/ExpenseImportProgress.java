@@ -0,0 +1,33 @@
+package com.splitter.expense.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of a bulk expense import, emitted after every chunk and once at the end.
+ */
+@Builder
+public record ExpenseImportProgress(
+    UUID importId,
+    Status status,
+    long rowsRead,
+    long rowsImported,
+    long rowsFailed,
+    List<RowError> errors
+) {
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+
+    /**
+     * A row that was not imported, by its line number in the uploaded file.
+     */
+    @Builder
+    public record RowError(
+        long line,
+        String message
+    ) {}
+}
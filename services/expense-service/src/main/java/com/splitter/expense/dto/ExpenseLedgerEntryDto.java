@@ -0,0 +1,22 @@
+package com.splitter.expense.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One share of a live expense owed to its payer, as seen by the balance ledger. A deleted
+ * expense is reported without a user or amount, only for its deletion time.
+ */
+@Builder
+public record ExpenseLedgerEntryDto(
+    UUID expenseId,
+    UUID paidBy,
+    UUID userId,
+    BigDecimal amount,
+    String currency,
+    Instant updatedAt,
+    boolean deleted
+) {}
@@ -32,6 +32,19 @@ public class GlobalExceptionHandler {
         return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(error));
     }
 
+    @ExceptionHandler(UnauthorizedExpenseActionException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleUnauthorizedAction(
+            UnauthorizedExpenseActionException ex, ServerWebExchange exchange) {
+        log.warn("Unauthorized action: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(
+                HttpStatus.FORBIDDEN.value(),
+                "Forbidden",
+                ex.getMessage(),
+                exchange.getRequest().getPath().value()
+        );
+        return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body(error));
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public Mono<ResponseEntity<ErrorResponse>> handleIllegalArgument(
             IllegalArgumentException ex, ServerWebExchange exchange) {
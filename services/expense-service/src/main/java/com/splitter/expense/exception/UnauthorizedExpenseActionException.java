@@ -0,0 +1,11 @@
+package com.splitter.expense.exception;
+
+/**
+ * Exception thrown when a user attempts an unauthorized expense action.
+ */
+public class UnauthorizedExpenseActionException extends RuntimeException {
+
+    public UnauthorizedExpenseActionException(String message) {
+        super(message);
+    }
+}
@@ -57,6 +57,9 @@ public class Expense {
     @Column("receipt_url")
     private String receiptUrl;
 
+    @Column("recurring_expense_id")
+    private UUID recurringExpenseId;
+
     @Column("created_by")
     private UUID createdBy;
 
@@ -82,7 +85,8 @@ public class Expense {
         EQUAL,       // Split equally among all participants
         EXACT,       // Specify exact amounts for each participant
         PERCENTAGE,  // Specify percentage for each participant
-        SHARES       // Specify shares for each participant
+        SHARES,      // Specify shares for each participant
+        ITEMIZED     // Assign receipt line items to participants
     }
 
     /**
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -23,6 +24,21 @@ public interface ExpenseRepository extends R2dbcRepository<Expense, UUID> {
     @Query("SELECT * FROM expenses WHERE group_id = :groupId AND is_deleted = false ORDER BY expense_date DESC, created_at DESC LIMIT :limit OFFSET :offset")
     Flux<Expense> findByGroupId(UUID groupId, int limit, int offset);
 
+    /**
+     * Find the newest live expenses of a group, for the first keyset page.
+     */
+    @Query("SELECT * FROM expenses WHERE group_id = :groupId AND is_deleted = false " +
+           "ORDER BY expense_date DESC, created_at DESC, id DESC LIMIT :limit")
+    Flux<Expense> findGroupPage(UUID groupId, int limit);
+
+    /**
+     * Find the live expenses of a group ordered after an (expense_date, created_at, id) cursor, newest first.
+     */
+    @Query("SELECT * FROM expenses WHERE group_id = :groupId AND is_deleted = false " +
+           "AND (expense_date, created_at, id) < (:beforeDate, :beforeAt, :beforeId) " +
+           "ORDER BY expense_date DESC, created_at DESC, id DESC LIMIT :limit")
+    Flux<Expense> findGroupPageBefore(UUID groupId, LocalDate beforeDate, Instant beforeAt, UUID beforeId, int limit);
+
     /**
      * Find expenses by group ID.
      */
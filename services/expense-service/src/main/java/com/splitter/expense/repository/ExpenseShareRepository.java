@@ -1,5 +1,6 @@
 package com.splitter.expense.repository;
 
+import com.splitter.expense.dto.ExpenseLedgerEntryDto;
 import com.splitter.expense.model.ExpenseShare;
 import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.UUID;
 
 /**
@@ -53,4 +55,33 @@ public interface ExpenseShareRepository extends R2dbcRepository<ExpenseShare, UU
      */
     @Query("SELECT DISTINCT user_id FROM expense_shares WHERE expense_id = :expenseId")
     Flux<UUID> findUserIdsByExpenseId(UUID expenseId);
+
+    /**
+     * Find the shares of several expenses with one query.
+     */
+    @Query("SELECT * FROM expense_shares WHERE expense_id = ANY(:expenseIds)")
+    Flux<ExpenseShare> findByExpenseIdIn(UUID[] expenseIds);
+
+    /**
+     * Stream the shares owed to payers across a group's live expenses, one row per share.
+     */
+    @Query("SELECT e.id AS expense_id, e.paid_by, es.user_id, es.share_amount AS amount, e.currency, e.updated_at, " +
+           "false AS deleted " +
+           "FROM expenses e JOIN expense_shares es ON es.expense_id = e.id " +
+           "WHERE e.group_id = :groupId AND e.is_deleted = false AND es.user_id <> e.paid_by")
+    Flux<ExpenseLedgerEntryDto> findLedgerEntriesByGroupId(UUID groupId);
+
+    /**
+     * Same as {@link #findLedgerEntriesByGroupId}, followed by one share-less row per expense
+     * deleted since {@code deletedSince}, so callers can see deletions that are still settling.
+     */
+    @Query("SELECT e.id AS expense_id, e.paid_by, es.user_id, es.share_amount AS amount, e.currency, e.updated_at, " +
+           "false AS deleted " +
+           "FROM expenses e JOIN expense_shares es ON es.expense_id = e.id " +
+           "WHERE e.group_id = :groupId AND e.is_deleted = false AND es.user_id <> e.paid_by " +
+           "UNION ALL " +
+           "SELECT e.id, e.paid_by, NULL, NULL, e.currency, e.updated_at, true " +
+           "FROM expenses e " +
+           "WHERE e.group_id = :groupId AND e.is_deleted = true AND e.updated_at >= :deletedSince")
+    Flux<ExpenseLedgerEntryDto> findLedgerEntriesByGroupIdWithDeletedSince(UUID groupId, Instant deletedSince);
 }
@@ -39,6 +39,46 @@ public interface RecurringExpenseRepository extends ReactiveCrudRepository<Recur
         """)
     Flux<RecurringExpense> findDueRecurringExpenses(LocalDate date);
 
+    /**
+     * Lease up to {@code limit} due templates to {@code owner}. Templates leased by another
+     * instance, or locked by a concurrent claim, are skipped rather than waited on.
+     */
+    @Query("""
+        UPDATE recurring_expenses
+        SET lease_owner = :owner,
+            lease_expires_at = NOW() + :leaseSeconds * INTERVAL '1 second'
+        WHERE id IN (
+            SELECT id FROM recurring_expenses
+            WHERE is_active = true
+            AND is_deleted = false
+            AND next_occurrence <= :date
+            AND (lease_expires_at IS NULL OR lease_expires_at < NOW())
+            ORDER BY next_occurrence ASC
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING *
+        """)
+    Flux<RecurringExpense> claimDue(LocalDate date, String owner, int leaseSeconds, int limit);
+
+    /**
+     * Record the occurrences generated for a leased template, ending the lease if {@code release}
+     * is set. A template paused meanwhile stays paused.
+     */
+    @Query("""
+        UPDATE recurring_expenses
+        SET next_occurrence = :nextOccurrence,
+            last_generated = :lastGenerated,
+            is_active = is_active AND :active,
+            lease_owner = CASE WHEN :release THEN NULL ELSE lease_owner END,
+            lease_expires_at = CASE WHEN :release THEN NULL ELSE lease_expires_at END,
+            updated_at = NOW()
+        WHERE id = :id
+        AND lease_owner = :owner
+        """)
+    Mono<Void> updateLeasedOccurrence(UUID id, String owner, LocalDate nextOccurrence, LocalDate lastGenerated,
+                                      boolean active, boolean release);
+
     @Query("""
         SELECT * FROM recurring_expenses 
         WHERE id = :id 
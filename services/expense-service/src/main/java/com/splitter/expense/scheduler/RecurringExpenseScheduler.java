@@ -1,111 +1,249 @@
 package com.splitter.expense.scheduler;
 
 import com.splitter.expense.dto.CreateExpenseRequest;
-import com.splitter.expense.dto.ExpenseShareRequest;
 import com.splitter.expense.model.RecurringExpense;
 import com.splitter.expense.repository.RecurringExpenseRepository;
 import com.splitter.expense.service.ExpenseService;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Scheduler for processing recurring expenses and generating actual expenses.
+ *
+ * Every instance runs the job. Each one repeatedly leases a batch of due templates with
+ * {@code FOR UPDATE SKIP LOCKED}, so a batch goes to exactly one instance and adding
+ * instances spreads the work. All missed occurrences of a template are generated in one
+ * pass, and a unique index on (template, occurrence date) makes generation idempotent:
+ * if an instance dies mid-batch its leases expire, and the instance that picks the
+ * templates up again skips the occurrences that already exist.
  */
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class RecurringExpenseScheduler {
 
     private final RecurringExpenseRepository recurringExpenseRepository;
     private final ExpenseService expenseService;
     private final ObjectMapper objectMapper;
+    private final String owner = "expense-service-" + UUID.randomUUID();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter generated;
+    private final Counter duplicates;
+    private final Counter templatesProcessed;
+    private final Counter templatesFailed;
+    private final Timer runTimer;
+
+    @Value("${recurring.scheduler.batch-size:200}")
+    private int batchSize;
+
+    @Value("${recurring.scheduler.concurrency:16}")
+    private int concurrency;
+
+    @Value("${recurring.scheduler.lease-seconds:300}")
+    private int leaseSeconds;
+
+    @Value("${recurring.scheduler.max-catch-up:366}")
+    private int maxCatchUp;
+
+    public RecurringExpenseScheduler(
+            RecurringExpenseRepository recurringExpenseRepository,
+            ExpenseService expenseService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.recurringExpenseRepository = recurringExpenseRepository;
+        this.expenseService = expenseService;
+        this.objectMapper = objectMapper;
+        this.generated = Counter.builder("recurring.expenses.generated")
+                .description("Expenses generated from recurring templates")
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("recurring.expenses.duplicates")
+                .description("Occurrences skipped because their expense already existed")
+                .register(meterRegistry);
+        this.templatesProcessed = Counter.builder("recurring.templates.processed")
+                .description("Due recurring templates processed")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.templatesFailed = Counter.builder("recurring.templates.processed")
+                .description("Due recurring templates processed")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("recurring.scheduler.run")
+                .description("Duration of recurring expense processing runs on this instance")
+                .register(meterRegistry);
+    }
 
     /**
      * Process due recurring expenses daily at 1 AM.
      */
     @Scheduled(cron = "${recurring.scheduler.cron:0 0 1 * * *}")
     public void processRecurringExpenses() {
-        log.info("Starting recurring expense processing");
-        LocalDate today = LocalDate.now();
-
-        recurringExpenseRepository.findDueRecurringExpenses(today)
-            .flatMap(recurring -> processRecurringExpense(recurring, today))
-            .doOnComplete(() -> log.info("Completed recurring expense processing"))
+        processNow()
             .doOnError(error -> log.error("Error processing recurring expenses", error))
             .subscribe();
     }
 
     /**
-     * Process a single recurring expense.
+     * Process all due recurring expenses now, returning the number of expenses generated
+     * by this instance. A run already in progress on this instance is not started twice.
+     */
+    public Mono<Long> processNow() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Recurring expense processing is already running");
+            return Mono.just(0L);
+        }
+        LocalDate today = LocalDate.now();
+        long started = System.nanoTime();
+        AtomicLong generatedInRun = new AtomicLong();
+        log.info("Starting recurring expense processing as {}", owner);
+
+        return claimBatch(today)
+            .expand(batch -> batch.isEmpty()
+                ? Mono.empty()
+                : processBatch(batch, today).doOnNext(generatedInRun::addAndGet).then(claimBatch(today)))
+            .then(Mono.fromSupplier(generatedInRun::get))
+            .doOnSuccess(count -> log.info("Completed recurring expense processing: {} expenses generated", count))
+            .doFinally(signal -> {
+                runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                running.set(false);
+            });
+    }
+
+    private Mono<List<RecurringExpense>> claimBatch(LocalDate today) {
+        return recurringExpenseRepository.claimDue(today, owner, leaseSeconds, batchSize).collectList();
+    }
+
+    /**
+     * Process a leased batch, a bounded number of templates at a time.
      */
-    private Mono<Void> processRecurringExpense(RecurringExpense recurring, LocalDate date) {
+    private Mono<Long> processBatch(List<RecurringExpense> batch, LocalDate today) {
+        log.debug("Processing {} leased recurring expenses", batch.size());
+        return Flux.fromIterable(batch)
+            .flatMap(recurring -> processRecurringExpense(recurring, today), concurrency)
+            .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Generate every missed occurrence of a template, in order, and move it to its next
+     * occurrence. On failure the occurrences generated so far are kept and the lease is left
+     * to expire, so the template is retried later instead of straight away.
+     */
+    private Mono<Long> processRecurringExpense(RecurringExpense recurring, LocalDate today) {
         log.debug("Processing recurring expense: {} - {}", recurring.getId(), recurring.getDescription());
+        AtomicReference<LocalDate> lastDone = new AtomicReference<>();
+
+        return Mono.fromCallable(() -> deserializeSplits(recurring.getSplitsJson()))
+            .flatMapMany(shares -> Flux.fromIterable(dueOccurrences(recurring, today))
+                .concatMap(date -> generateOccurrence(recurring, date, shares)
+                    .doOnSuccess(created -> lastDone.set(date))))
+            .filter(Boolean::booleanValue)
+            .count()
+            .flatMap(count -> updateOccurrence(recurring, lastDone.get(), true)
+                .doOnSuccess(ignored -> templatesProcessed.increment())
+                .thenReturn(count))
+            .onErrorResume(error -> {
+                templatesFailed.increment();
+                log.error("Failed to process recurring expense: {}", recurring.getId(), error);
+                return updateOccurrence(recurring, lastDone.get(), false)
+                    .onErrorResume(updateError -> Mono.empty())
+                    .thenReturn(0L);
+            });
+    }
+
+    /**
+     * Create the expense of one occurrence, or report false if it already exists.
+     */
+    private Mono<Boolean> generateOccurrence(RecurringExpense recurring, LocalDate date,
+                                             List<CreateExpenseRequest.ShareDetail> shares) {
+        CreateExpenseRequest request = new CreateExpenseRequest(
+            recurring.getGroupId(),
+            recurring.getDescription(),
+            recurring.getAmount(),
+            recurring.getCurrency(),
+            recurring.getCreatedBy(),
+            recurring.getSplitType(),
+            recurring.getCategory(),
+            date,
+            null,
+            null,
+            shares.stream().map(CreateExpenseRequest.ShareDetail::userId).toList(),
+            shares,
+            null);
 
-        // Create expense from template
-        CreateExpenseRequest request = CreateExpenseRequest.builder()
-            .groupId(recurring.getGroupId())
-            .description(recurring.getDescription())
-            .amount(recurring.getAmount())
-            .currency(recurring.getCurrency())
-            .category(recurring.getCategory())
-            .splitType(recurring.getSplitType())
-            .shares(deserializeSplits(recurring.getSplitsJson()))
-            .expenseDate(date)
-            .recurringExpenseId(recurring.getId())
-            .build();
-
-        return expenseService.createExpense(request, recurring.getCreatedBy())
-            .flatMap(expense -> {
-                log.info("Generated expense {} from recurring {}", expense.getId(), recurring.getId());
-                
-                // Calculate next occurrence
-                LocalDate nextOccurrence = recurring.calculateNextOccurrence(date);
-                
-                // Check if we've passed the end date
-                if (recurring.getEndDate() != null && nextOccurrence.isAfter(recurring.getEndDate())) {
-                    log.info("Recurring expense {} has ended", recurring.getId());
-                    recurring.setActive(false);
-                }
-                
-                recurring.setNextOccurrence(nextOccurrence);
-                recurring.setLastGenerated(date);
-                
-                return recurringExpenseRepository.save(recurring);
+        return expenseService.createRecurringOccurrence(request, recurring.getCreatedBy(), recurring.getId())
+            .map(expense -> {
+                generated.increment();
+                log.info("Generated expense {} from recurring {} for {}", expense.id(), recurring.getId(), date);
+                return true;
             })
-            .doOnError(error -> log.error("Failed to process recurring expense: {}", recurring.getId(), error))
-            .then();
+            .onErrorResume(DuplicateKeyException.class, e -> {
+                duplicates.increment();
+                log.debug("Occurrence {} of recurring {} already exists", date, recurring.getId());
+                return Mono.just(false);
+            });
     }
 
     /**
-     * Manual trigger for processing recurring expenses (for testing).
+     * Occurrences from the template's next occurrence up to today and its end date, at most
+     * {@code max-catch-up} of them; any beyond that are left for the next claim.
      */
-    public Mono<Long> processNow() {
-        log.info("Manual trigger for recurring expense processing");
-        LocalDate today = LocalDate.now();
+    private List<LocalDate> dueOccurrences(RecurringExpense recurring, LocalDate today) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate date = recurring.getNextOccurrence();
+        while (!date.isAfter(today)
+                && (recurring.getEndDate() == null || !date.isAfter(recurring.getEndDate()))
+                && dates.size() < maxCatchUp) {
+            dates.add(date);
+            LocalDate next = recurring.calculateNextOccurrence(date);
+            if (!next.isAfter(date)) {
+                break;
+            }
+            date = next;
+        }
+        return dates;
+    }
 
-        return recurringExpenseRepository.findDueRecurringExpenses(today)
-            .flatMap(recurring -> processRecurringExpense(recurring, today).thenReturn(1L))
-            .count()
-            .doOnSuccess(count -> log.info("Processed {} recurring expenses", count));
+    private Mono<Void> updateOccurrence(RecurringExpense recurring, LocalDate lastDone, boolean release) {
+        if (lastDone == null && !release) {
+            return Mono.empty();
+        }
+        LocalDate nextOccurrence = lastDone != null
+            ? recurring.calculateNextOccurrence(lastDone)
+            : recurring.getNextOccurrence();
+        boolean active = recurring.getEndDate() == null || !nextOccurrence.isAfter(recurring.getEndDate());
+        if (!active) {
+            log.info("Recurring expense {} has ended", recurring.getId());
+        }
+        return recurringExpenseRepository.updateLeasedOccurrence(
+            recurring.getId(),
+            owner,
+            nextOccurrence,
+            lastDone != null ? lastDone : recurring.getLastGenerated(),
+            active,
+            release);
     }
 
-    private List<ExpenseShareRequest> deserializeSplits(String json) {
+    private List<CreateExpenseRequest.ShareDetail> deserializeSplits(String json) throws Exception {
         if (json == null || json.isBlank()) {
-            return null;
-        }
-        try {
-            return objectMapper.readValue(json, new TypeReference<>() {});
-        } catch (Exception e) {
-            log.error("Failed to deserialize splits", e);
-            return null;
+            return List.of();
         }
+        return objectMapper.readValue(json, new TypeReference<>() {});
     }
 }
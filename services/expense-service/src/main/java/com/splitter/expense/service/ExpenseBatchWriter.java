@@ -0,0 +1,97 @@
+package com.splitter.expense.service;
+
+import com.splitter.expense.model.Expense;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inserts expenses with one multi-row statement. Expense IDs are assigned by the caller,
+ * so shares can reference them without reading generated keys back.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpenseBatchWriter {
+
+    private static final String INSERT_EXPENSES = """
+            INSERT INTO expenses (id, group_id, description, amount, currency, paid_by, split_type, category,
+                                  expense_date, notes, receipt_url, created_by, is_deleted, created_at, updated_at)
+            SELECT e.id, e.group_id, e.description, e.amount, e.currency, e.paid_by, e.split_type, e.category,
+                   e.expense_date, e.notes, e.receipt_url, e.created_by, false, e.created_at, e.created_at
+            FROM unnest(CAST(:ids AS uuid[]), CAST(:groupIds AS uuid[]), CAST(:descriptions AS varchar[]),
+                        CAST(:amounts AS numeric[]), CAST(:currencies AS varchar[]), CAST(:paidBy AS uuid[]),
+                        CAST(:splitTypes AS varchar[]), CAST(:categories AS varchar[]), CAST(:dates AS date[]),
+                        CAST(:notes AS varchar[]), CAST(:receiptUrls AS varchar[]), CAST(:createdBy AS uuid[]),
+                        CAST(:createdAt AS timestamptz[]))
+                 AS e(id, group_id, description, amount, currency, paid_by, split_type, category,
+                      expense_date, notes, receipt_url, created_by, created_at)
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Insert all expenses, which must already have their IDs set, in a single statement.
+     */
+    public Mono<Void> insertAll(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return Mono.empty();
+        }
+        int size = expenses.size();
+        UUID[] ids = new UUID[size];
+        UUID[] groupIds = new UUID[size];
+        String[] descriptions = new String[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+        String[] currencies = new String[size];
+        UUID[] paidBy = new UUID[size];
+        String[] splitTypes = new String[size];
+        String[] categories = new String[size];
+        LocalDate[] dates = new LocalDate[size];
+        String[] notes = new String[size];
+        String[] receiptUrls = new String[size];
+        UUID[] createdBy = new UUID[size];
+        Instant[] createdAt = new Instant[size];
+
+        for (int i = 0; i < size; i++) {
+            Expense expense = expenses.get(i);
+            ids[i] = expense.getId();
+            groupIds[i] = expense.getGroupId();
+            descriptions[i] = expense.getDescription();
+            amounts[i] = expense.getAmount();
+            currencies[i] = expense.getCurrency();
+            paidBy[i] = expense.getPaidBy();
+            splitTypes[i] = expense.getSplitType().name();
+            categories[i] = expense.getCategory() != null ? expense.getCategory().name() : null;
+            dates[i] = expense.getExpenseDate();
+            notes[i] = expense.getNotes();
+            receiptUrls[i] = expense.getReceiptUrl();
+            createdBy[i] = expense.getCreatedBy();
+            createdAt[i] = expense.getCreatedAt();
+        }
+
+        return databaseClient.sql(INSERT_EXPENSES)
+                .bind("ids", ids)
+                .bind("groupIds", groupIds)
+                .bind("descriptions", descriptions)
+                .bind("amounts", amounts)
+                .bind("currencies", currencies)
+                .bind("paidBy", paidBy)
+                .bind("splitTypes", splitTypes)
+                .bind("categories", categories)
+                .bind("dates", dates)
+                .bind("notes", notes)
+                .bind("receiptUrls", receiptUrls)
+                .bind("createdBy", createdBy)
+                .bind("createdAt", createdAt)
+                .then()
+                .doOnSuccess(v -> log.debug("Inserted {} expenses", size));
+    }
+}
@@ -0,0 +1,210 @@
+package com.splitter.expense.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.splitter.expense.dto.CreateExpenseRequest;
+import com.splitter.expense.model.Expense;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Turns the lines of an uploaded import file into expense requests, one per data line.
+ *
+ * NDJSON lines are {@link CreateExpenseRequest} objects. CSV files start with a header
+ * naming the columns; {@code participants} holds semicolon-separated user IDs and the
+ * optional {@code shares} column holds semicolon-separated values in the same order,
+ * read as amounts, percentages or units depending on the split type. Quoted fields are
+ * supported, but not line breaks inside them.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExpenseImportParser {
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "groupid", "description", "amount", "currency", "paidby", "splittype",
+            "category", "date", "notes", "participants", "shares");
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Supported upload formats.
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    /**
+     * Parse lines into rows, keeping their 1-based line numbers. Rows that fail to parse
+     * carry an error instead of a request; blank lines are skipped.
+     */
+    public Flux<ImportRow> parse(Flux<String> lines, Format format) {
+        Flux<ImportLine> numbered = lines.index()
+                .map(line -> new ImportLine(line.getT1() + 1, line.getT2().strip()))
+                .filter(line -> !line.text().isEmpty());
+
+        if (format == Format.NDJSON) {
+            return numbered.map(this::parseJson);
+        }
+        return numbered.switchOnFirst((first, rest) -> {
+            if (!first.hasValue()) {
+                return Flux.empty();
+            }
+            Map<String, Integer> header = parseHeader(first.get().text());
+            return rest.skip(1).map(line -> parseCsv(line, header));
+        });
+    }
+
+    private ImportRow parseJson(ImportLine line) {
+        try {
+            return ImportRow.of(line.number(), objectMapper.readValue(line.text(), CreateExpenseRequest.class));
+        } catch (JsonProcessingException e) {
+            return ImportRow.failed(line.number(), "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String text) {
+        List<String> names = splitCsv(text);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).replace("_", "").toLowerCase(Locale.ROOT);
+            if (!CSV_COLUMNS.contains(name)) {
+                throw new IllegalArgumentException("Unknown CSV column: " + names.get(i));
+            }
+            header.put(name, i);
+        }
+        for (String required : List.of("description", "amount", "paidby", "participants")) {
+            if (!header.containsKey(required)) {
+                throw new IllegalArgumentException("Missing CSV column: " + required);
+            }
+        }
+        return header;
+    }
+
+    private ImportRow parseCsv(ImportLine line, Map<String, Integer> header) {
+        List<String> fields = splitCsv(line.text());
+        try {
+            Expense.SplitType splitType = Optional.ofNullable(field(fields, header, "splittype"))
+                    .map(value -> Expense.SplitType.valueOf(value.toUpperCase(Locale.ROOT)))
+                    .orElse(Expense.SplitType.EQUAL);
+            List<UUID> participants = Arrays.stream(required(fields, header, "participants").split(";"))
+                    .map(String::strip)
+                    .map(UUID::fromString)
+                    .toList();
+
+            return ImportRow.of(line.number(), new CreateExpenseRequest(
+                    Optional.ofNullable(field(fields, header, "groupid")).map(UUID::fromString).orElse(null),
+                    required(fields, header, "description"),
+                    new BigDecimal(required(fields, header, "amount")),
+                    field(fields, header, "currency"),
+                    UUID.fromString(required(fields, header, "paidby")),
+                    splitType,
+                    Optional.ofNullable(field(fields, header, "category"))
+                            .map(value -> Expense.ExpenseCategory.valueOf(value.toUpperCase(Locale.ROOT)))
+                            .orElse(null),
+                    Optional.ofNullable(field(fields, header, "date")).map(LocalDate::parse).orElse(null),
+                    field(fields, header, "notes"),
+                    null,
+                    participants,
+                    shareDetails(field(fields, header, "shares"), participants, splitType),
+                    null));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return ImportRow.failed(line.number(), "Invalid CSV row: " + e.getMessage());
+        }
+    }
+
+    private List<CreateExpenseRequest.ShareDetail> shareDetails(String values, List<UUID> participants,
+                                                                Expense.SplitType splitType) {
+        if (splitType == Expense.SplitType.ITEMIZED) {
+            throw new IllegalArgumentException("Itemized splits can only be imported as NDJSON");
+        }
+        if (values == null || splitType == Expense.SplitType.EQUAL) {
+            return null;
+        }
+        String[] parts = values.split(";");
+        if (parts.length != participants.size()) {
+            throw new IllegalArgumentException("Expected " + participants.size() + " share values, got " + parts.length);
+        }
+        List<CreateExpenseRequest.ShareDetail> details = new ArrayList<>(parts.length);
+        for (int i = 0; i < parts.length; i++) {
+            String value = parts[i].strip();
+            details.add(switch (splitType) {
+                case EXACT -> new CreateExpenseRequest.ShareDetail(participants.get(i), new BigDecimal(value), null, null);
+                case PERCENTAGE -> new CreateExpenseRequest.ShareDetail(participants.get(i), null, new BigDecimal(value), null);
+                case SHARES -> new CreateExpenseRequest.ShareDetail(participants.get(i), null, null, Integer.valueOf(value));
+                case EQUAL, ITEMIZED -> throw new IllegalStateException(splitType + " splits take no share values");
+            });
+        }
+        return details;
+    }
+
+    private String field(List<String> fields, Map<String, Integer> header, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    private String required(List<String> fields, Map<String, Integer> header, String column) {
+        String value = field(fields, header, column);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for " + column);
+        }
+        return value;
+    }
+
+    /**
+     * Split one CSV line on commas, honouring double-quoted fields and "" escapes.
+     */
+    private List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record ImportLine(long number, String text) {}
+
+    /**
+     * A parsed data line: either a request or the reason it could not be read.
+     */
+    public record ImportRow(long line, CreateExpenseRequest request, String error) {
+
+        static ImportRow of(long line, CreateExpenseRequest request) {
+            return new ImportRow(line, request, null);
+        }
+
+        static ImportRow failed(long line, String error) {
+            return new ImportRow(line, null, error);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.splitter.expense.service;
+
+import com.splitter.common.events.EventTopics;
+import com.splitter.common.events.expense.ExpensesImportedEvent;
+import com.splitter.common.outbox.OutboxWriter;
+import com.splitter.expense.dto.CreateExpenseRequest;
+import com.splitter.expense.dto.ExpenseImportProgress;
+import com.splitter.expense.model.Expense;
+import com.splitter.expense.model.ExpenseShare;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of historical expenses from an uploaded file.
+ *
+ * Rows are validated and split one by one as they are read, then written in chunks: each
+ * chunk inserts its expenses and shares with one multi-row statement per table and records
+ * aggregated events per group, all in one transaction. A group's expenses are spread over
+ * several events when their shares exceed a cap, which keeps each event well under the
+ * producer's maximum request size. Chunks are written one at a time
+ * and the upload is only read ahead by a chunk, which keeps memory bounded however large
+ * the file is. Invalid rows, and every row of a chunk whose write fails, are reported as
+ * failures without stopping the import.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpenseImportService {
+
+    private final ExpenseImportParser parser;
+    private final SplitCalculator splitCalculator;
+    private final ExpenseBatchWriter expenseBatchWriter;
+    private final ExpenseShareBatchWriter shareBatchWriter;
+    private final OutboxWriter outboxWriter;
+    private final TransactionalOperator transactionalOperator;
+    private final Validator validator;
+
+    @Value("${expense.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${expense.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${expense.import.max-event-shares:2000}")
+    private int maxEventShares;
+
+    /**
+     * Import expenses from the lines of an upload, emitting progress after every chunk.
+     *
+     * @param groupId    Group for rows that do not name one, or null
+     * @param importerId User recorded as the creator of the imported expenses
+     */
+    public Flux<ExpenseImportProgress> importExpenses(Flux<String> lines, ExpenseImportParser.Format format,
+                                                      UUID groupId, UUID importerId) {
+        UUID importId = UUID.randomUUID();
+        ImportTally tally = new ImportTally();
+        log.info("Starting expense import {} ({}) by user {}", importId, format, importerId);
+
+        return parser.parse(lines, format)
+                .map(row -> prepare(row, groupId, importerId))
+                .buffer(chunkSize)
+                .concatMap(chunk -> writeChunk(importId, chunk, tally))
+                .concatWith(Mono.fromSupplier(() -> {
+                    log.info("Finished expense import {}: {} rows imported, {} failed",
+                            importId, tally.imported, tally.failed);
+                    return tally.progress(importId, ExpenseImportProgress.Status.COMPLETED, List.of());
+                }));
+    }
+
+    /**
+     * Validate a row and compute its expense and shares, or the reason it cannot be imported.
+     */
+    private PreparedRow prepare(ExpenseImportParser.ImportRow row, UUID defaultGroupId, UUID importerId) {
+        if (row.error() != null) {
+            return PreparedRow.failed(row.line(), row.error());
+        }
+        CreateExpenseRequest request = withGroup(row.request(), defaultGroupId);
+
+        Set<ConstraintViolation<CreateExpenseRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return PreparedRow.failed(row.line(), violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        Instant now = Instant.now();
+        Expense expense = Expense.builder()
+                .id(UUID.randomUUID())
+                .groupId(request.groupId())
+                .description(request.description())
+                .amount(request.amount())
+                .currency(request.currency() != null ? request.currency() : "USD")
+                .paidBy(request.paidBy())
+                .splitType(request.splitType() != null ? request.splitType() : Expense.SplitType.EQUAL)
+                .category(request.category())
+                .expenseDate(request.date() != null ? request.date() : LocalDate.now())
+                .notes(request.notes())
+                .receiptUrl(request.receiptUrl())
+                .createdBy(importerId)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        try {
+            List<ExpenseShare> shares = splitCalculator.calculateShares(expense.getId(), expense.getAmount(),
+                    expense.getCurrency(), expense.getSplitType(), request.participants(), request.shares(),
+                    request.itemization());
+            return new PreparedRow(row.line(), expense, shares, null);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return PreparedRow.failed(row.line(), e.getMessage());
+        }
+    }
+
+    private Mono<ExpenseImportProgress> writeChunk(UUID importId, List<PreparedRow> chunk, ImportTally tally) {
+        List<ExpenseImportProgress.RowError> errors = new ArrayList<>();
+        List<Expense> expenses = new ArrayList<>(chunk.size());
+        List<ExpenseShare> shares = new ArrayList<>();
+        for (PreparedRow row : chunk) {
+            if (row.error() != null) {
+                errors.add(new ExpenseImportProgress.RowError(row.line(), row.error()));
+            } else {
+                expenses.add(row.expense());
+                shares.addAll(row.shares());
+            }
+        }
+
+        Mono<Void> write = expenseBatchWriter.insertAll(expenses)
+                .then(shareBatchWriter.insertAll(shares).then())
+                .then(Flux.fromIterable(groupEvents(importId, chunk))
+                        .concatMap(event -> outboxWriter.append(
+                                EventTopics.EXPENSE_EVENTS, event.getGroupId().toString(), event))
+                        .then());
+
+        return transactionalOperator.transactional(write)
+                .then(Mono.fromSupplier(() -> tally.record(expenses.size(), errors)))
+                .onErrorResume(error -> {
+                    log.warn("Failed to write a chunk of expense import {}: {}", importId, error.getMessage());
+                    for (PreparedRow row : chunk) {
+                        if (row.error() == null) {
+                            errors.add(new ExpenseImportProgress.RowError(row.line(),
+                                    "Could not be saved: " + error.getMessage()));
+                        }
+                    }
+                    errors.sort(Comparator.comparingLong(ExpenseImportProgress.RowError::line));
+                    return Mono.just(tally.record(0, errors));
+                })
+                .map(reported -> tally.progress(importId, ExpenseImportProgress.Status.IN_PROGRESS,
+                        reported));
+    }
+
+    /**
+     * Events per group with the expenses of that group in the chunk. A new event is started
+     * once the shares of the current one would exceed {@code max-event-shares}; an expense
+     * with more shares than that gets an event of its own.
+     */
+    List<ExpensesImportedEvent> groupEvents(UUID importId, List<PreparedRow> chunk) {
+        Map<UUID, List<List<ExpensesImportedEvent.ImportedExpense>>> byGroup = new LinkedHashMap<>();
+        Map<UUID, Integer> sharesOfLast = new HashMap<>();
+        for (PreparedRow row : chunk) {
+            if (row.error() != null) {
+                continue;
+            }
+            Expense expense = row.expense();
+            List<List<ExpensesImportedEvent.ImportedExpense>> events =
+                    byGroup.computeIfAbsent(expense.getGroupId(), id -> new ArrayList<>());
+            int shares = sharesOfLast.getOrDefault(expense.getGroupId(), 0);
+            if (events.isEmpty() || (shares > 0 && shares + row.shares().size() > maxEventShares)) {
+                events.add(new ArrayList<>());
+                shares = 0;
+            }
+            sharesOfLast.put(expense.getGroupId(), shares + row.shares().size());
+            events.get(events.size() - 1)
+                    .add(ExpensesImportedEvent.ImportedExpense.builder()
+                            .expenseId(expense.getId())
+                            .description(expense.getDescription())
+                            .amount(expense.getAmount())
+                            .currency(expense.getCurrency())
+                            .paidBy(expense.getPaidBy())
+                            .shares(row.shares().stream()
+                                    .map(share -> ExpensesImportedEvent.ShareInfo.builder()
+                                            .userId(share.getUserId())
+                                            .amount(share.getShareAmount())
+                                            .build())
+                                    .toList())
+                            .build());
+        }
+        return byGroup.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .map(expenses -> ExpensesImportedEvent.builder()
+                                .subject(entry.getKey().toString())
+                                .importId(importId)
+                                .groupId(entry.getKey())
+                                .expenses(expenses)
+                                .build()))
+                .toList();
+    }
+
+    private CreateExpenseRequest withGroup(CreateExpenseRequest request, UUID groupId) {
+        if (request.groupId() != null || groupId == null) {
+            return request;
+        }
+        return new CreateExpenseRequest(groupId, request.description(), request.amount(), request.currency(),
+                request.paidBy(), request.splitType(), request.category(), request.date(), request.notes(),
+                request.receiptUrl(), request.participants(), request.shares(), request.itemization());
+    }
+
+    /**
+     * A row ready to be written, or the reason it is skipped.
+     */
+    record PreparedRow(long line, Expense expense, List<ExpenseShare> shares, String error) {
+
+        static PreparedRow failed(long line, String error) {
+            return new PreparedRow(line, null, null, error);
+        }
+    }
+
+    /**
+     * Running totals of one import. Chunks are written sequentially, so no synchronization is needed.
+     */
+    private final class ImportTally {
+
+        private long imported;
+        private long failed;
+        private long reportedErrors;
+
+        /**
+         * Count a written chunk and return the errors to report for it, within the overall limit.
+         */
+        List<ExpenseImportProgress.RowError> record(int importedRows, List<ExpenseImportProgress.RowError> errors) {
+            imported += importedRows;
+            failed += errors.size();
+            int reportable = (int) Math.max(0, Math.min(errors.size(), maxReportedErrors - reportedErrors));
+            reportedErrors += reportable;
+            return List.copyOf(errors.subList(0, reportable));
+        }
+
+        ExpenseImportProgress progress(UUID importId, ExpenseImportProgress.Status status,
+                                       List<ExpenseImportProgress.RowError> errors) {
+            return ExpenseImportProgress.builder()
+                    .importId(importId)
+                    .status(status)
+                    .rowsRead(imported + failed)
+                    .rowsImported(imported)
+                    .rowsFailed(failed)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.splitter.expense.service;
 
+import com.splitter.common.dto.PageCursor;
+import com.splitter.common.dto.PagedResponse;
 import com.splitter.common.events.EventTopics;
 import com.splitter.common.events.expense.ExpenseCreatedEvent;
 import com.splitter.common.events.expense.ExpenseDeletedEvent;
+import com.splitter.common.outbox.OutboxWriter;
 import com.splitter.expense.dto.*;
 import com.splitter.expense.exception.ExpenseNotFoundException;
 import com.splitter.expense.model.Expense;
@@ -11,7 +14,7 @@ import com.splitter.expense.repository.ExpenseRepository;
 import com.splitter.expense.repository.ExpenseShareRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
@@ -20,6 +23,7 @@ import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -31,10 +35,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ExpenseService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ExpenseRepository expenseRepository;
     private final ExpenseShareRepository shareRepository;
+    private final ExpenseShareBatchWriter shareBatchWriter;
     private final SplitCalculator splitCalculator;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxWriter outboxWriter;
+
+    @Value("${expense.shares.batch-size:500}")
+    private int shareBatchSize;
 
     /**
      * Create a new expense.
@@ -43,7 +53,21 @@ public class ExpenseService {
     public Mono<ExpenseDto> createExpense(CreateExpenseRequest request, UUID creatorId) {
         log.info("Creating expense '{}' in group {} by user {}", 
                 request.description(), request.groupId(), creatorId);
+        return create(request, creatorId, null);
+    }
 
+    /**
+     * Create the expense of one occurrence of a recurring template. A second expense for the
+     * same template and date fails with a DuplicateKeyException and rolls back.
+     */
+    @Transactional
+    public Mono<ExpenseDto> createRecurringOccurrence(CreateExpenseRequest request, UUID creatorId,
+                                                      UUID recurringExpenseId) {
+        log.debug("Creating occurrence {} of recurring expense {}", request.date(), recurringExpenseId);
+        return create(request, creatorId, recurringExpenseId);
+    }
+
+    private Mono<ExpenseDto> create(CreateExpenseRequest request, UUID creatorId, UUID recurringExpenseId) {
         Expense expense = Expense.builder()
                 .groupId(request.groupId())
                 .description(request.description())
@@ -55,6 +79,7 @@ public class ExpenseService {
                 .expenseDate(request.date() != null ? request.date() : LocalDate.now())
                 .notes(request.notes())
                 .receiptUrl(request.receiptUrl())
+                .recurringExpenseId(recurringExpenseId)
                 .createdBy(creatorId)
                 .createdAt(Instant.now())
                 .updatedAt(Instant.now())
@@ -64,7 +89,7 @@ public class ExpenseService {
                 .flatMap(savedExpense -> createShares(savedExpense, request)
                         .collectList()
                         .map(shares -> toDto(savedExpense, shares)))
-                .doOnSuccess(this::publishExpenseCreatedEvent);
+                .flatMap(dto -> recordExpenseCreatedEvent(dto).thenReturn(dto));
     }
 
     /**
@@ -83,7 +108,33 @@ public class ExpenseService {
     public Flux<ExpenseDto> getGroupExpenses(UUID groupId, int page, int size) {
         int offset = page * size;
         return expenseRepository.findByGroupId(groupId, size, offset)
-                .flatMap(this::enrichWithShares);
+                .transform(this::enrichAllWithShares);
+    }
+
+    /**
+     * Get one keyset page of a group's expenses, newest first. Unlike offset pages, every
+     * page is an index range read regardless of how deep the caller has scrolled.
+     *
+     * @param cursor Cursor from the previous page, or null for the newest page
+     */
+    public Mono<PagedResponse<ExpenseDto>> getGroupExpensesPage(UUID groupId, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        PagePosition position = decodeCursor(cursor);
+        Flux<Expense> rows = position == null
+                ? expenseRepository.findGroupPage(groupId, pageSize + 1)
+                : expenseRepository.findGroupPageBefore(groupId, position.expenseDate(), position.createdAt(),
+                        position.id(), pageSize + 1);
+
+        // One extra row is read to learn whether another page follows
+        return rows.collectList()
+                .flatMap(expenses -> {
+                    boolean hasNext = expenses.size() > pageSize;
+                    List<Expense> pageRows = hasNext ? expenses.subList(0, pageSize) : expenses;
+                    String nextCursor = hasNext ? encodeCursor(pageRows.get(pageRows.size() - 1)) : null;
+                    return enrichAllWithShares(Flux.fromIterable(pageRows))
+                            .collectList()
+                            .map(content -> PagedResponse.ofCursor(content, pageSize, position == null, nextCursor));
+                });
     }
 
     /**
@@ -91,7 +142,7 @@ public class ExpenseService {
      */
     public Flux<ExpenseDto> getAllGroupExpenses(UUID groupId) {
         return expenseRepository.findByGroupIdAndDeletedFalseOrderByExpenseDateDesc(groupId)
-                .flatMap(this::enrichWithShares);
+                .transform(this::enrichAllWithShares);
     }
 
     /**
@@ -99,7 +150,7 @@ public class ExpenseService {
      */
     public Flux<ExpenseDto> getExpensesByDateRange(UUID groupId, LocalDate startDate, LocalDate endDate) {
         return expenseRepository.findByGroupIdAndDateRange(groupId, startDate, endDate)
-                .flatMap(this::enrichWithShares);
+                .transform(this::enrichAllWithShares);
     }
 
     /**
@@ -107,7 +158,7 @@ public class ExpenseService {
      */
     public Flux<ExpenseDto> getRecentExpensesForUser(UUID userId, int limit) {
         return expenseRepository.findRecentExpensesForUser(userId, limit)
-                .flatMap(this::enrichWithShares);
+                .transform(this::enrichAllWithShares);
     }
 
     /**
@@ -156,8 +207,17 @@ public class ExpenseService {
                     expense.setUpdatedAt(Instant.now());
                     return expenseRepository.save(expense);
                 })
-                .doOnSuccess(this::publishExpenseDeletedEvent)
-                .then();
+                .flatMap(expense -> recordExpenseDeletedEvent(expense, requesterId));
+    }
+
+    /**
+     * Stream the shares of a group's live expenses as balance ledger entries, followed by the
+     * expenses deleted since {@code deletedSince} when it is given.
+     */
+    public Flux<ExpenseLedgerEntryDto> streamGroupLedger(UUID groupId, Instant deletedSince) {
+        return deletedSince != null
+                ? shareRepository.findLedgerEntriesByGroupIdWithDeletedSince(groupId, deletedSince)
+                : shareRepository.findLedgerEntriesByGroupId(groupId);
     }
 
     /**
@@ -177,30 +237,17 @@ public class ExpenseService {
     // Private helper methods
 
     private Flux<ExpenseShare> createShares(Expense expense, CreateExpenseRequest request) {
-        Map<UUID, BigDecimal> exactAmounts = new HashMap<>();
-        Map<UUID, BigDecimal> percentages = new HashMap<>();
-        Map<UUID, Integer> units = new HashMap<>();
-
-        if (request.shares() != null) {
-            for (CreateExpenseRequest.ShareDetail detail : request.shares()) {
-                if (detail.amount() != null) exactAmounts.put(detail.userId(), detail.amount());
-                if (detail.percentage() != null) percentages.put(detail.userId(), detail.percentage());
-                if (detail.units() != null) units.put(detail.userId(), detail.units());
-            }
-        }
-
         List<ExpenseShare> shares = splitCalculator.calculateShares(
                 expense.getId(),
                 expense.getAmount(),
+                expense.getCurrency(),
                 expense.getSplitType(),
                 request.participants(),
-                exactAmounts,
-                percentages,
-                units
+                request.shares(),
+                request.itemization()
         );
 
-        return Flux.fromIterable(shares)
-                .flatMap(shareRepository::save);
+        return shareBatchWriter.insertAll(shares);
     }
 
     private Mono<ExpenseDto> enrichWithShares(Expense expense) {
@@ -209,41 +256,84 @@ public class ExpenseService {
                 .map(shares -> toDto(expense, shares));
     }
 
-    private void publishExpenseCreatedEvent(ExpenseDto expense) {
-        List<ExpenseCreatedEvent.ShareInfo> shareInfos = expense.shares().stream()
-                .map(share -> ExpenseCreatedEvent.ShareInfo.builder()
+    /**
+     * Attach shares to a list of expenses with one query per batch, keeping the expenses' order.
+     */
+    private Flux<ExpenseDto> enrichAllWithShares(Flux<Expense> expenses) {
+        return expenses
+                .buffer(shareBatchSize)
+                .concatMap(batch -> {
+                    UUID[] expenseIds = batch.stream().map(Expense::getId).toArray(UUID[]::new);
+                    return shareRepository.findByExpenseIdIn(expenseIds)
+                            .collect(Collectors.groupingBy(ExpenseShare::getExpenseId))
+                            .flatMapIterable(sharesByExpense -> batch.stream()
+                                    .map(expense -> toDto(expense,
+                                            sharesByExpense.getOrDefault(expense.getId(), List.of())))
+                                    .toList());
+                });
+    }
+
+    private String encodeCursor(Expense expense) {
+        return PageCursor.encode(expense.getExpenseDate(), expense.getCreatedAt(), expense.getId());
+    }
+
+    private PagePosition decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        List<String> keys = PageCursor.decode(cursor, 3);
+        try {
+            return new PagePosition(LocalDate.parse(keys.get(0)), Instant.parse(keys.get(1)),
+                    UUID.fromString(keys.get(2)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+
+    private Mono<Void> recordExpenseCreatedEvent(ExpenseDto expense) {
+        List<ExpenseCreatedEvent.ShareData> shares = expense.shares().stream()
+                .map(share -> ExpenseCreatedEvent.ShareData.builder()
                         .userId(share.userId())
                         .amount(share.shareAmount())
+                        .isPayer(share.userId().equals(expense.paidBy()))
                         .build())
                 .collect(Collectors.toList());
 
         ExpenseCreatedEvent event = ExpenseCreatedEvent.builder()
-                .expenseId(expense.id())
-                .groupId(expense.groupId())
-                .description(expense.description())
-                .amount(expense.amount())
-                .currency(expense.currency())
-                .paidBy(expense.paidBy())
-                .shares(shareInfos)
+                .subject(expense.id().toString())
+                .data(ExpenseCreatedEvent.ExpenseData.builder()
+                        .expenseId(expense.id())
+                        .groupId(expense.groupId())
+                        .description(expense.description())
+                        .amount(expense.amount())
+                        .currency(expense.currency())
+                        .paidBy(expense.paidBy())
+                        .splitType(expense.splitType() != null ? expense.splitType().name() : null)
+                        .expenseDate(expense.expenseDate())
+                        .shares(shares)
+                        .createdBy(expense.createdBy())
+                        .createdAt(expense.createdAt())
+                        .build())
                 .build();
 
-        kafkaTemplate.send(EventTopics.EXPENSE_EVENTS, expense.id().toString(), event)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to publish ExpenseCreatedEvent for expense: {}", expense.id(), ex);
-                    } else {
-                        log.info("Published ExpenseCreatedEvent for expense: {}", expense.id());
-                    }
-                });
+        return outboxWriter.append(EventTopics.EXPENSE_EVENTS, expense.id().toString(), event);
     }
 
-    private void publishExpenseDeletedEvent(Expense expense) {
+    private Mono<Void> recordExpenseDeletedEvent(Expense expense, UUID deletedBy) {
         ExpenseDeletedEvent event = ExpenseDeletedEvent.builder()
-                .expenseId(expense.getId())
-                .groupId(expense.getGroupId())
+                .subject(expense.getId().toString())
+                .data(ExpenseDeletedEvent.ExpenseDeletedData.builder()
+                        .expenseId(expense.getId())
+                        .groupId(expense.getGroupId())
+                        .amount(expense.getAmount())
+                        .currency(expense.getCurrency())
+                        .paidBy(expense.getPaidBy())
+                        .deletedBy(deletedBy)
+                        .deletedAt(expense.getDeletedAt())
+                        .build())
                 .build();
 
-        kafkaTemplate.send(EventTopics.EXPENSE_EVENTS, expense.getId().toString(), event);
+        return outboxWriter.append(EventTopics.EXPENSE_EVENTS, expense.getId().toString(), event);
     }
 
     private ExpenseDto toDto(Expense expense, List<ExpenseShare> shares) {
@@ -276,4 +366,9 @@ public class ExpenseService {
                 .updatedAt(expense.getUpdatedAt())
                 .build();
     }
+
+    /**
+     * Keyset position: the sort key of the last expense already returned.
+     */
+    private record PagePosition(LocalDate expenseDate, Instant createdAt, UUID id) {}
 }
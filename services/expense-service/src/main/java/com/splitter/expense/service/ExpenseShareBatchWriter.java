@@ -0,0 +1,117 @@
+package com.splitter.expense.service;
+
+import com.splitter.expense.model.ExpenseShare;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Inserts expense shares with one multi-row statement instead of a round trip per share.
+ * Shares are returned in the order they were given, with their generated ids. Postgres does
+ * not guarantee the order of RETURNING rows, even with an ORDER BY on the inserted SELECT,
+ * so the statement leaves order alone and the rows are matched back to the input by
+ * expense and user in Java. That matching is the only thing the order relies on.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpenseShareBatchWriter {
+
+    private static final String INSERT_SHARES = """
+            INSERT INTO expense_shares (expense_id, user_id, share_amount, share_percentage, share_units, is_paid)
+            SELECT s.expense_id, s.user_id, s.share_amount, s.share_percentage, s.share_units, s.is_paid
+            FROM unnest(CAST(:expenseIds AS uuid[]), CAST(:userIds AS uuid[]), CAST(:amounts AS numeric[]),
+                        CAST(:percentages AS numeric[]), CAST(:units AS integer[]), CAST(:paid AS boolean[]))
+                 AS s(expense_id, user_id, share_amount, share_percentage, share_units, is_paid)
+            RETURNING id, expense_id, user_id, share_amount, share_percentage, share_units, is_paid
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Insert all shares, which may belong to several expenses, in a single statement.
+     */
+    public Flux<ExpenseShare> insertAll(List<ExpenseShare> shares) {
+        if (shares.isEmpty()) {
+            return Flux.empty();
+        }
+        int size = shares.size();
+        UUID[] expenseIds = new UUID[size];
+        UUID[] userIds = new UUID[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+        BigDecimal[] percentages = new BigDecimal[size];
+        Integer[] units = new Integer[size];
+        Boolean[] paid = new Boolean[size];
+
+        for (int i = 0; i < size; i++) {
+            ExpenseShare share = shares.get(i);
+            expenseIds[i] = share.getExpenseId();
+            userIds[i] = share.getUserId();
+            amounts[i] = share.getShareAmount();
+            percentages[i] = share.getSharePercentage();
+            units[i] = share.getShareUnits();
+            paid[i] = share.isPaid();
+        }
+
+        return databaseClient.sql(INSERT_SHARES)
+                .bind("expenseIds", expenseIds)
+                .bind("userIds", userIds)
+                .bind("amounts", amounts)
+                .bind("percentages", percentages)
+                .bind("units", units)
+                .bind("paid", paid)
+                .map(this::toShare)
+                .all()
+                .collectList()
+                .flatMapIterable(inserted -> inInputOrder(shares, inserted))
+                .doOnComplete(() -> log.debug("Inserted {} expense shares", size));
+    }
+
+    /**
+     * Order inserted rows like the input. Rows with the same expense and user are
+     * interchangeable, so they are handed out in the order they came back.
+     */
+    static List<ExpenseShare> inInputOrder(List<ExpenseShare> shares, List<ExpenseShare> inserted) {
+        Map<ShareKey, Deque<ExpenseShare>> byKey = new HashMap<>();
+        for (ExpenseShare row : inserted) {
+            byKey.computeIfAbsent(new ShareKey(row.getExpenseId(), row.getUserId()), key -> new ArrayDeque<>())
+                    .add(row);
+        }
+        List<ExpenseShare> ordered = new ArrayList<>(shares.size());
+        for (ExpenseShare share : shares) {
+            Deque<ExpenseShare> rows = byKey.get(new ShareKey(share.getExpenseId(), share.getUserId()));
+            if (rows == null || rows.isEmpty()) {
+                throw new IllegalStateException("No inserted row returned for share of user " + share.getUserId()
+                        + " in expense " + share.getExpenseId());
+            }
+            ordered.add(rows.poll());
+        }
+        return ordered;
+    }
+
+    private ExpenseShare toShare(Readable row) {
+        return ExpenseShare.builder()
+                .id(row.get("id", UUID.class))
+                .expenseId(row.get("expense_id", UUID.class))
+                .userId(row.get("user_id", UUID.class))
+                .shareAmount(row.get("share_amount", BigDecimal.class))
+                .sharePercentage(row.get("share_percentage", BigDecimal.class))
+                .shareUnits(row.get("share_units", Integer.class))
+                .paid(Boolean.TRUE.equals(row.get("is_paid", Boolean.class)))
+                .build();
+    }
+
+    private record ShareKey(UUID expenseId, UUID userId) {}
+}
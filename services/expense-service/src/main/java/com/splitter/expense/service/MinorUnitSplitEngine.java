@@ -0,0 +1,147 @@
+package com.splitter.expense.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Split arithmetic on long minor units of a currency.
+ *
+ * Amounts are converted once to whole minor units at the currency's scale (JPY 0, USD 2,
+ * KWD 3), divided by integer weights, and the units left over after flooring are handed
+ * out one each by the largest-remainder method. Ties go to the earlier participant, so
+ * results are deterministic and always sum exactly to the total.
+ */
+final class MinorUnitSplitEngine {
+
+    /**
+     * Scale used for currencies without a defined number of fraction digits.
+     */
+    static final int DEFAULT_SCALE = 2;
+
+    private MinorUnitSplitEngine() {
+        // Utility class
+    }
+
+    /**
+     * Number of minor-unit digits of a currency.
+     */
+    static int scaleOf(String currencyCode) {
+        if (currencyCode == null) {
+            return DEFAULT_SCALE;
+        }
+        try {
+            int digits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+            return digits >= 0 ? digits : DEFAULT_SCALE;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_SCALE;
+        }
+    }
+
+    /**
+     * Convert an amount to whole minor units.
+     *
+     * @throws IllegalArgumentException if the amount has more decimals than the scale or does not fit in a long
+     */
+    static long toMinor(BigDecimal amount, int scale) {
+        try {
+            return amount.setScale(scale).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    String.format("Amount %s cannot be expressed in minor units of scale %d", amount, scale));
+        }
+    }
+
+    static BigDecimal fromMinor(long minor, int scale) {
+        return BigDecimal.valueOf(minor, scale);
+    }
+
+    /**
+     * Split a total equally: every participant gets the floor, and the first
+     * {@code total % count} participants get one more unit.
+     */
+    static long[] allocateEqually(long total, int count) {
+        long[] result = new long[count];
+        long base = total / count;
+        long leftover = total % count;
+        for (int i = 0; i < count; i++) {
+            result[i] = i < leftover ? base + 1 : base;
+        }
+        return result;
+    }
+
+    /**
+     * Split a non-negative total in proportion to non-negative weights.
+     *
+     * @param weights Weights with a positive sum
+     */
+    static long[] allocate(long total, long[] weights) {
+        int count = weights.length;
+        long weightSum = 0;
+        for (long weight : weights) {
+            weightSum = Math.addExact(weightSum, weight);
+        }
+        if (weightSum <= 0) {
+            throw new IllegalArgumentException("Split weights must have a positive sum");
+        }
+
+        long[] result = new long[count];
+        long[] remainders = new long[count];
+        long allocated = 0;
+        for (int i = 0; i < count; i++) {
+            long product;
+            try {
+                product = Math.multiplyExact(total, weights[i]);
+                result[i] = product / weightSum;
+                remainders[i] = product % weightSum;
+            } catch (ArithmeticException e) {
+                BigInteger[] quotient = BigInteger.valueOf(total).multiply(BigInteger.valueOf(weights[i]))
+                        .divideAndRemainder(BigInteger.valueOf(weightSum));
+                result[i] = quotient[0].longValueExact();
+                remainders[i] = quotient[1].longValueExact();
+            }
+            allocated += result[i];
+        }
+
+        int leftover = (int) (total - allocated);
+        if (leftover == 0) {
+            return result;
+        }
+
+        // The leftover-th largest remainder: everything above it gets a unit, ties go in order
+        long[] sorted = remainders.clone();
+        Arrays.sort(sorted);
+        long threshold = sorted[count - leftover];
+        for (int i = 0; i < count && leftover > 0; i++) {
+            if (remainders[i] > threshold) {
+                result[i]++;
+                leftover--;
+            }
+        }
+        for (int i = 0; i < count && leftover > 0; i++) {
+            if (remainders[i] == threshold) {
+                result[i]++;
+                leftover--;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A part of a whole as a percentage with two decimals, rounded half up.
+     */
+    static BigDecimal percentageOf(long part, long whole) {
+        if (whole == 0) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        try {
+            long scaled = Math.multiplyExact(part, 20_000L);
+            return BigDecimal.valueOf((scaled + whole) / (2 * whole), 2);
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(part).multiply(BigDecimal.valueOf(100))
+                    .divide(BigDecimal.valueOf(whole), 2, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -30,6 +30,9 @@ public class RecurringExpenseService {
     private final ObjectMapper objectMapper;
 
     public Mono<RecurringExpenseResponse> create(CreateRecurringExpenseRequest request, UUID userId) {
+        if (request.getSplitType() == SplitType.ITEMIZED) {
+            return Mono.error(itemizedNotSupported());
+        }
         LocalDate startDate = request.getStartDate() != null ? request.getStartDate() : LocalDate.now();
         LocalDate nextOccurrence = calculateInitialNextOccurrence(request, startDate);
 
@@ -76,6 +79,9 @@ public class RecurringExpenseService {
     }
 
     public Mono<RecurringExpenseResponse> update(UUID id, UpdateRecurringExpenseRequest request, UUID userId) {
+        if (request.getSplitType() == SplitType.ITEMIZED) {
+            return Mono.error(itemizedNotSupported());
+        }
         return recurringExpenseRepository.findActiveById(id)
             .flatMap(existing -> {
                 if (request.getDescription() != null) existing.setDescription(request.getDescription());
@@ -165,6 +171,14 @@ public class RecurringExpenseService {
         return next;
     }
 
+    /**
+     * Templates store participants and shares but no receipt lines, so an itemized template
+     * could never generate its expenses.
+     */
+    private IllegalArgumentException itemizedNotSupported() {
+        return new IllegalArgumentException("Itemized splits are not supported for recurring expenses");
+    }
+
     private String serializeSplits(List<ExpenseShareRequest> splits) {
         if (splits == null || splits.isEmpty()) {
             return null;
@@ -1,25 +1,28 @@
 package com.splitter.expense.service;
 
+import com.splitter.expense.dto.CreateExpenseRequest;
 import com.splitter.expense.model.Expense;
 import com.splitter.expense.model.ExpenseShare;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Service for calculating expense splits.
+ *
+ * Amounts are split in long minor units of the expense currency by {@link MinorUnitSplitEngine},
+ * so shares always sum exactly to the total and rounding units are spread by the largest
+ * remainder rather than landing on a single participant.
  */
 @Component
 public class SplitCalculator {
 
-    private static final int SCALE = 2;
-    private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
 
     /**
      * Calculate shares for an expense based on split type.
@@ -27,56 +30,79 @@ public class SplitCalculator {
     public List<ExpenseShare> calculateShares(
             UUID expenseId,
             BigDecimal totalAmount,
+            String currency,
             Expense.SplitType splitType,
             List<UUID> participants,
             Map<UUID, BigDecimal> exactAmounts,
             Map<UUID, BigDecimal> percentages,
             Map<UUID, Integer> units) {
 
+        requireSplittable(totalAmount, participants);
+        int scale = MinorUnitSplitEngine.scaleOf(currency);
+        long total = MinorUnitSplitEngine.toMinor(totalAmount, scale);
+
         return switch (splitType) {
-            case EQUAL -> calculateEqualSplit(expenseId, totalAmount, participants);
-            case EXACT -> calculateExactSplit(expenseId, totalAmount, participants, exactAmounts);
-            case PERCENTAGE -> calculatePercentageSplit(expenseId, totalAmount, participants, percentages);
-            case SHARES -> calculateSharesSplit(expenseId, totalAmount, participants, units);
+            case EQUAL -> calculateEqualSplit(expenseId, total, scale, participants);
+            case EXACT -> calculateExactSplit(expenseId, total, scale, participants, exactAmounts);
+            case PERCENTAGE -> calculatePercentageSplit(expenseId, total, scale, participants, percentages);
+            case SHARES -> calculateSharesSplit(expenseId, total, scale, participants, units);
+            case ITEMIZED -> throw new IllegalArgumentException("Itemized splits require line items");
         };
     }
 
+    /**
+     * Calculate shares from the per-participant details or line items of an expense request.
+     */
+    public List<ExpenseShare> calculateShares(
+            UUID expenseId,
+            BigDecimal totalAmount,
+            String currency,
+            Expense.SplitType splitType,
+            List<UUID> participants,
+            List<CreateExpenseRequest.ShareDetail> details,
+            CreateExpenseRequest.Itemization itemization) {
+
+        if (splitType == Expense.SplitType.ITEMIZED) {
+            requireSplittable(totalAmount, participants);
+            int scale = MinorUnitSplitEngine.scaleOf(currency);
+            return calculateItemizedSplit(expenseId, MinorUnitSplitEngine.toMinor(totalAmount, scale), scale,
+                    participants, itemization);
+        }
+
+        Map<UUID, BigDecimal> exactAmounts = new HashMap<>();
+        Map<UUID, BigDecimal> percentages = new HashMap<>();
+        Map<UUID, Integer> units = new HashMap<>();
+
+        if (details != null) {
+            for (CreateExpenseRequest.ShareDetail detail : details) {
+                if (detail.amount() != null) exactAmounts.put(detail.userId(), detail.amount());
+                if (detail.percentage() != null) percentages.put(detail.userId(), detail.percentage());
+                if (detail.units() != null) units.put(detail.userId(), detail.units());
+            }
+        }
+
+        return calculateShares(expenseId, totalAmount, currency, splitType, participants,
+                exactAmounts, percentages, units);
+    }
+
     /**
      * Split expense equally among participants.
      */
     private List<ExpenseShare> calculateEqualSplit(
             UUID expenseId,
-            BigDecimal totalAmount,
+            long total,
+            int scale,
             List<UUID> participants) {
 
-        int participantCount = participants.size();
-        BigDecimal shareAmount = totalAmount.divide(
-                BigDecimal.valueOf(participantCount), SCALE, ROUNDING_MODE);
-
-        // Handle rounding difference
-        BigDecimal calculatedTotal = shareAmount.multiply(BigDecimal.valueOf(participantCount));
-        BigDecimal remainder = totalAmount.subtract(calculatedTotal);
-
-        List<ExpenseShare> shares = new ArrayList<>();
-        for (int i = 0; i < participants.size(); i++) {
-            UUID userId = participants.get(i);
-            BigDecimal amount = shareAmount;
-            
-            // Add remainder to first participant
-            if (i == 0 && remainder.compareTo(BigDecimal.ZERO) != 0) {
-                amount = amount.add(remainder);
-            }
+        int count = participants.size();
+        long[] amounts = MinorUnitSplitEngine.allocateEqually(total, count);
+        BigDecimal percentage = MinorUnitSplitEngine.percentageOf(1, count);
 
-            shares.add(ExpenseShare.builder()
-                    .expenseId(expenseId)
-                    .userId(userId)
-                    .shareAmount(amount)
-                    .sharePercentage(BigDecimal.valueOf(100.0 / participantCount)
-                            .setScale(SCALE, ROUNDING_MODE))
-                    .shareUnits(1)
-                    .build());
+        List<ExpenseShare> shares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shares.add(share(expenseId, participants.get(i),
+                    MinorUnitSplitEngine.fromMinor(amounts[i], scale), percentage, 1));
         }
-
         return shares;
     }
 
@@ -85,34 +111,32 @@ public class SplitCalculator {
      */
     private List<ExpenseShare> calculateExactSplit(
             UUID expenseId,
-            BigDecimal totalAmount,
+            long total,
+            int scale,
             List<UUID> participants,
             Map<UUID, BigDecimal> exactAmounts) {
 
+        int count = participants.size();
+        long[] amounts = new long[count];
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            BigDecimal amount = exactAmounts.get(participants.get(i));
+            amounts[i] = amount != null ? MinorUnitSplitEngine.toMinor(amount, scale) : 0;
+            sum += amounts[i];
+        }
+
         // Validate that exact amounts sum to total
-        BigDecimal sum = exactAmounts.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        if (sum.compareTo(totalAmount) != 0) {
-            throw new IllegalArgumentException(
-                    String.format("Exact amounts sum (%s) does not match total (%s)", sum, totalAmount));
-        }
-
-        return participants.stream()
-                .map(userId -> {
-                    BigDecimal amount = exactAmounts.getOrDefault(userId, BigDecimal.ZERO);
-                    BigDecimal percentage = amount.divide(totalAmount, 4, ROUNDING_MODE)
-                            .multiply(BigDecimal.valueOf(100))
-                            .setScale(SCALE, ROUNDING_MODE);
-
-                    return ExpenseShare.builder()
-                            .expenseId(expenseId)
-                            .userId(userId)
-                            .shareAmount(amount)
-                            .sharePercentage(percentage)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        if (sum != total) {
+            throw new IllegalArgumentException(String.format("Exact amounts sum (%s) does not match total (%s)",
+                    MinorUnitSplitEngine.fromMinor(sum, scale), MinorUnitSplitEngine.fromMinor(total, scale)));
+        }
+
+        List<ExpenseShare> shares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shares.add(share(expenseId, participants.get(i), MinorUnitSplitEngine.fromMinor(amounts[i], scale),
+                    MinorUnitSplitEngine.percentageOf(amounts[i], total), null));
+        }
+        return shares;
     }
 
     /**
@@ -120,44 +144,44 @@ public class SplitCalculator {
      */
     private List<ExpenseShare> calculatePercentageSplit(
             UUID expenseId,
-            BigDecimal totalAmount,
+            long total,
+            int scale,
             List<UUID> participants,
             Map<UUID, BigDecimal> percentages) {
 
-        // Validate that percentages sum to 100
-        BigDecimal sum = percentages.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        if (sum.compareTo(BigDecimal.valueOf(100)) != 0) {
-            throw new IllegalArgumentException(
-                    String.format("Percentages sum (%s) does not equal 100", sum));
+        int count = participants.size();
+        int weightScale = 0;
+        for (UUID userId : participants) {
+            BigDecimal percentage = percentages.get(userId);
+            if (percentage != null) {
+                weightScale = Math.max(weightScale, percentage.scale());
+            }
         }
 
-        List<ExpenseShare> shares = new ArrayList<>();
-        BigDecimal allocatedAmount = BigDecimal.ZERO;
-
-        for (int i = 0; i < participants.size(); i++) {
-            UUID userId = participants.get(i);
-            BigDecimal percentage = percentages.getOrDefault(userId, BigDecimal.ZERO);
-            BigDecimal amount;
-
-            // For the last participant, allocate remaining amount to avoid rounding issues
-            if (i == participants.size() - 1) {
-                amount = totalAmount.subtract(allocatedAmount);
-            } else {
-                amount = totalAmount.multiply(percentage)
-                        .divide(BigDecimal.valueOf(100), SCALE, ROUNDING_MODE);
-                allocatedAmount = allocatedAmount.add(amount);
+        // Percentages become integer weights at their finest scale, e.g. 33.33 -> 3333 of 10000
+        long[] weights = new long[count];
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            BigDecimal percentage = percentages.getOrDefault(participants.get(i), BigDecimal.ZERO);
+            if (percentage.signum() < 0) {
+                throw new IllegalArgumentException("Percentages cannot be negative");
             }
+            weights[i] = MinorUnitSplitEngine.toMinor(percentage, weightScale);
+            sum += weights[i];
+        }
 
-            shares.add(ExpenseShare.builder()
-                    .expenseId(expenseId)
-                    .userId(userId)
-                    .shareAmount(amount)
-                    .sharePercentage(percentage)
-                    .build());
+        // Validate that percentages sum to 100
+        if (sum != MinorUnitSplitEngine.toMinor(HUNDRED, weightScale)) {
+            throw new IllegalArgumentException(String.format("Percentages sum (%s) does not equal 100",
+                    MinorUnitSplitEngine.fromMinor(sum, weightScale)));
         }
 
+        long[] amounts = MinorUnitSplitEngine.allocate(total, weights);
+        List<ExpenseShare> shares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shares.add(share(expenseId, participants.get(i), MinorUnitSplitEngine.fromMinor(amounts[i], scale),
+                    percentages.getOrDefault(participants.get(i), BigDecimal.ZERO), null));
+        }
         return shares;
     }
 
@@ -166,51 +190,137 @@ public class SplitCalculator {
      */
     private List<ExpenseShare> calculateSharesSplit(
             UUID expenseId,
-            BigDecimal totalAmount,
+            long total,
+            int scale,
             List<UUID> participants,
             Map<UUID, Integer> units) {
 
-        int totalUnits = units.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+        int count = participants.size();
+        long[] weights = new long[count];
+        long totalUnits = 0;
+        for (int i = 0; i < count; i++) {
+            int userUnits = units.getOrDefault(participants.get(i), 0);
+            if (userUnits < 0) {
+                throw new IllegalArgumentException("Units cannot be negative");
+            }
+            weights[i] = userUnits;
+            totalUnits += userUnits;
+        }
 
         if (totalUnits == 0) {
             throw new IllegalArgumentException("Total units cannot be zero");
         }
 
-        BigDecimal perUnitAmount = totalAmount.divide(
-                BigDecimal.valueOf(totalUnits), SCALE, ROUNDING_MODE);
+        long[] amounts = MinorUnitSplitEngine.allocate(total, weights);
+        List<ExpenseShare> shares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shares.add(share(expenseId, participants.get(i), MinorUnitSplitEngine.fromMinor(amounts[i], scale),
+                    MinorUnitSplitEngine.percentageOf(weights[i], totalUnits), (int) weights[i]));
+        }
+        return shares;
+    }
 
-        List<ExpenseShare> shares = new ArrayList<>();
-        BigDecimal allocatedAmount = BigDecimal.ZERO;
+    /**
+     * Split expense by receipt line items.
+     *
+     * Each item is divided equally among the participants it is assigned to, in one pass
+     * over the items into a subtotal per participant. Tax, tip and discount are then spread
+     * in proportion to those subtotals by allocating the whole total over them.
+     */
+    private List<ExpenseShare> calculateItemizedSplit(
+            UUID expenseId,
+            long total,
+            int scale,
+            List<UUID> participants,
+            CreateExpenseRequest.Itemization itemization) {
 
-        for (int i = 0; i < participants.size(); i++) {
-            UUID userId = participants.get(i);
-            int userUnits = units.getOrDefault(userId, 0);
-            BigDecimal amount;
+        if (itemization == null || itemization.items() == null || itemization.items().isEmpty()) {
+            throw new IllegalArgumentException("Itemized splits require line items");
+        }
 
-            // For the last participant, allocate remaining amount
-            if (i == participants.size() - 1) {
-                amount = totalAmount.subtract(allocatedAmount);
-            } else {
-                amount = perUnitAmount.multiply(BigDecimal.valueOf(userUnits));
-                allocatedAmount = allocatedAmount.add(amount);
+        int count = participants.size();
+        Map<UUID, Integer> slots = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (slots.putIfAbsent(participants.get(i), i) != null) {
+                throw new IllegalArgumentException("Duplicate participant: " + participants.get(i));
             }
+        }
 
-            BigDecimal percentage = BigDecimal.valueOf(userUnits)
-                    .divide(BigDecimal.valueOf(totalUnits), 4, ROUNDING_MODE)
-                    .multiply(BigDecimal.valueOf(100))
-                    .setScale(SCALE, ROUNDING_MODE);
+        long[] subtotals = new long[count];
+        long itemsTotal = 0;
+        List<CreateExpenseRequest.LineItem> items = itemization.items();
+        for (int itemIndex = 0; itemIndex < items.size(); itemIndex++) {
+            CreateExpenseRequest.LineItem item = items.get(itemIndex);
+            long amount = nonNegativeMinor(item.amount(), scale, "Line item amount");
+            itemsTotal = Math.addExact(itemsTotal, amount);
+
+            // Items without participants are shared by everyone
+            List<UUID> sharedBy = item.participants();
+            boolean everyone = sharedBy == null || sharedBy.isEmpty();
+            int assignees = everyone ? count : sharedBy.size();
+            long base = amount / assignees;
+            long odd = amount % assignees;
+            // Odd units start at a different assignee for each item so they do not pile up on one person
+            int start = itemIndex % assignees;
+            for (int j = 0; j < assignees; j++) {
+                int slot = everyone ? j : slotOf(slots, sharedBy.get(j), item);
+                subtotals[slot] += Math.floorMod(j - start, assignees) < odd ? base + 1 : base;
+            }
+        }
 
-            shares.add(ExpenseShare.builder()
-                    .expenseId(expenseId)
-                    .userId(userId)
-                    .shareAmount(amount)
-                    .sharePercentage(percentage)
-                    .shareUnits(userUnits)
-                    .build());
+        long tax = nonNegativeMinor(itemization.tax(), scale, "Tax");
+        long tip = nonNegativeMinor(itemization.tip(), scale, "Tip");
+        long discount = nonNegativeMinor(itemization.discount(), scale, "Discount");
+        long billed = Math.addExact(itemsTotal, Math.addExact(tax, tip)) - discount;
+        if (billed != total) {
+            throw new IllegalArgumentException(String.format(
+                    "Line items (%s) plus tax and tip less discount come to %s, not the total (%s)",
+                    MinorUnitSplitEngine.fromMinor(itemsTotal, scale), MinorUnitSplitEngine.fromMinor(billed, scale),
+                    MinorUnitSplitEngine.fromMinor(total, scale)));
+        }
+        if (itemsTotal == 0) {
+            throw new IllegalArgumentException("Line items must have a positive sum");
         }
 
+        long[] amounts = MinorUnitSplitEngine.allocate(total, subtotals);
+        List<ExpenseShare> shares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shares.add(share(expenseId, participants.get(i), MinorUnitSplitEngine.fromMinor(amounts[i], scale),
+                    MinorUnitSplitEngine.percentageOf(amounts[i], total), null));
+        }
         return shares;
     }
+
+    private static void requireSplittable(BigDecimal totalAmount, List<UUID> participants) {
+        if (participants == null || participants.isEmpty()) {
+            throw new IllegalArgumentException("At least one participant is required");
+        }
+        if (totalAmount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+    }
+
+    private static int slotOf(Map<UUID, Integer> slots, UUID userId, CreateExpenseRequest.LineItem item) {
+        Integer slot = slots.get(userId);
+        if (slot == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Line item '%s' is assigned to %s, who is not a participant", item.description(), userId));
+        }
+        return slot;
+    }
+
+    private static long nonNegativeMinor(BigDecimal amount, int scale, String name) {
+        if (amount == null) {
+            return 0;
+        }
+        if (amount.signum() < 0) {
+            throw new IllegalArgumentException(name + " cannot be negative");
+        }
+        return MinorUnitSplitEngine.toMinor(amount, scale);
+    }
+
+    private static ExpenseShare share(UUID expenseId, UUID userId, BigDecimal amount,
+                                      BigDecimal percentage, Integer units) {
+        return new ExpenseShare(null, expenseId, userId, amount, percentage, units, false);
+    }
 }
@@ -0,0 +1,6 @@
+-- V4__expenses_group_keyset_index.sql
+-- Keyset pagination of a group's live expenses on (expense_date, created_at, id), newest first
+
+CREATE INDEX IF NOT EXISTS idx_expenses_group_keyset
+    ON expenses(group_id, expense_date DESC, created_at DESC, id DESC)
+    WHERE is_deleted = false;
@@ -0,0 +1,5 @@
+-- V6__three_decimal_amounts.sql
+-- Amounts are stored at the scale of their currency; currencies such as KWD and BHD use three decimals
+
+ALTER TABLE expenses ALTER COLUMN amount TYPE DECIMAL(15, 3);
+ALTER TABLE expense_shares ALTER COLUMN share_amount TYPE DECIMAL(15, 3);
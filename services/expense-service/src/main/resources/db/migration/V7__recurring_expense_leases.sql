@@ -0,0 +1,47 @@
+-- V7__recurring_expense_leases.sql
+-- Leases let scheduler instances claim due recurring templates without generating them twice
+
+ALTER TABLE recurring_expenses
+ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(100),
+ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP WITH TIME ZONE;
+
+-- Concurrent scheduler runs could generate an occurrence more than once. Keep the earliest
+-- expense of each (template, occurrence date), soft-delete the others, and record a deletion
+-- event for each so balance-service reverses it
+WITH ranked AS (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY recurring_expense_id, expense_date ORDER BY created_at, id) AS rn
+    FROM expenses
+    WHERE recurring_expense_id IS NOT NULL AND is_deleted = false
+),
+duplicates AS (
+    UPDATE expenses e
+    SET is_deleted = true, deleted_at = NOW(), updated_at = NOW()
+    FROM ranked r
+    WHERE e.id = r.id AND r.rn > 1
+    RETURNING e.id, e.group_id, e.amount, e.currency, e.paid_by, e.deleted_at
+)
+INSERT INTO outbox_events (topic, event_key, event_type, payload, created_at)
+SELECT 'expense.events',
+       d.id::text,
+       'com.splitter.common.events.expense.ExpenseDeletedEvent',
+       jsonb_build_object(
+           'eventId', gen_random_uuid()::text,
+           'eventType', 'expense.deleted.v1',
+           'eventTime', to_char(d.deleted_at AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'),
+           'source', 'expense-service',
+           'subject', d.id::text,
+           'dataVersion', '1.0',
+           'data', jsonb_build_object(
+               'expenseId', d.id,
+               'groupId', d.group_id,
+               'amount', d.amount,
+               'currency', d.currency,
+               'paidBy', d.paid_by,
+               'deletedAt', to_char(d.deleted_at AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'))),
+       NOW()
+FROM duplicates d;
+
+-- At most one live generated expense per template and occurrence date
+CREATE UNIQUE INDEX IF NOT EXISTS uq_expenses_recurring_occurrence
+    ON expenses(recurring_expense_id, expense_date)
+    WHERE recurring_expense_id IS NOT NULL AND is_deleted = false;
@@ -0,0 +1,130 @@
+package com.splitter.expense.scheduler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.splitter.expense.dto.CreateExpenseRequest;
+import com.splitter.expense.dto.ExpenseDto;
+import com.splitter.expense.model.RecurrenceFrequency;
+import com.splitter.expense.model.RecurringExpense;
+import com.splitter.expense.repository.RecurringExpenseRepository;
+import com.splitter.expense.service.ExpenseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecurringExpenseSchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<LocalDate> requested = new ArrayList<>();
+    private final List<Object[]> updates = new ArrayList<>();
+
+    @Test
+    void generatesEveryMissedOccurrenceInOrderAndAdvancesPastToday() {
+        RecurringExpenseScheduler scheduler = scheduler(dailyTemplate(TODAY.minusDays(3)), Set.of(), 366);
+
+        assertThat(scheduler.processNow().block()).isEqualTo(4L);
+
+        assertThat(requested).containsExactly(TODAY.minusDays(3), TODAY.minusDays(2), TODAY.minusDays(1), TODAY);
+        assertThat(updates).hasSize(1);
+        // nextOccurrence, lastGenerated, active, release
+        assertThat(updates.get(0)).containsExactly(TODAY.plusDays(1), TODAY, true, true);
+        assertThat(meterRegistry.counter("recurring.expenses.generated").count()).isEqualTo(4.0);
+    }
+
+    @Test
+    void skipsOccurrencesThatAlreadyExistAndKeepsGoing() {
+        RecurringExpenseScheduler scheduler = scheduler(
+            dailyTemplate(TODAY.minusDays(2)), Set.of(TODAY.minusDays(1)), 366);
+
+        assertThat(scheduler.processNow().block()).isEqualTo(2L);
+
+        assertThat(requested).containsExactly(TODAY.minusDays(2), TODAY.minusDays(1), TODAY);
+        assertThat(updates.get(0)).containsExactly(TODAY.plusDays(1), TODAY, true, true);
+        assertThat(meterRegistry.counter("recurring.expenses.duplicates").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("recurring.expenses.generated").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void leavesOccurrencesBeyondTheCatchUpLimitForTheNextClaim() {
+        RecurringExpenseScheduler scheduler = scheduler(dailyTemplate(TODAY.minusDays(3)), Set.of(), 2);
+
+        assertThat(scheduler.processNow().block()).isEqualTo(2L);
+
+        assertThat(requested).containsExactly(TODAY.minusDays(3), TODAY.minusDays(2));
+        assertThat(updates.get(0)).containsExactly(TODAY.minusDays(1), TODAY.minusDays(2), true, true);
+    }
+
+    private RecurringExpenseScheduler scheduler(RecurringExpense template, Set<LocalDate> existing, int maxCatchUp) {
+        RecurringExpenseScheduler scheduler = new RecurringExpenseScheduler(
+            repository(template), expenseService(existing), new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "batchSize", 10);
+        ReflectionTestUtils.setField(scheduler, "concurrency", 1);
+        ReflectionTestUtils.setField(scheduler, "leaseSeconds", 300);
+        ReflectionTestUtils.setField(scheduler, "maxCatchUp", maxCatchUp);
+        return scheduler;
+    }
+
+    /**
+     * Leases the template on the first claim and nothing after that, and records lease updates.
+     */
+    private RecurringExpenseRepository repository(RecurringExpense template) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        return (RecurringExpenseRepository) Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {RecurringExpenseRepository.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "claimDue" -> claimed.getAndSet(true) ? Flux.empty() : Flux.just(template);
+                case "updateLeasedOccurrence" -> {
+                    updates.add(new Object[] {args[2], args[3], args[4], args[5]});
+                    yield Mono.empty();
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    /**
+     * Creates every requested occurrence except those in {@code existing}, which fail as the
+     * unique index on (template, occurrence date) would.
+     */
+    private ExpenseService expenseService(Set<LocalDate> existing) {
+        return new ExpenseService(null, null, null, null, null) {
+            @Override
+            public Mono<ExpenseDto> createRecurringOccurrence(CreateExpenseRequest request, UUID creatorId,
+                                                              UUID recurringExpenseId) {
+                requested.add(request.date());
+                if (existing.contains(request.date())) {
+                    return Mono.error(new DuplicateKeyException("uq_expenses_recurring_occurrence"));
+                }
+                return Mono.just(ExpenseDto.builder().id(UUID.randomUUID()).expenseDate(request.date()).build());
+            }
+        };
+    }
+
+    private static RecurringExpense dailyTemplate(LocalDate nextOccurrence) {
+        return RecurringExpense.builder()
+            .id(UUID.randomUUID())
+            .groupId(UUID.randomUUID())
+            .createdBy(UUID.randomUUID())
+            .description("Coffee")
+            .amount(new BigDecimal("4.50"))
+            .frequency(RecurrenceFrequency.DAILY)
+            .startDate(nextOccurrence)
+            .nextOccurrence(nextOccurrence)
+            .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.splitter.expense.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.splitter.expense.dto.CreateExpenseRequest;
+import com.splitter.expense.model.Expense;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpenseImportParserTest {
+
+    private static final UUID ALICE = new UUID(0, 1);
+    private static final UUID BOB = new UUID(0, 2);
+
+    private final ExpenseImportParser parser = new ExpenseImportParser(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    @Test
+    void csvQuotedFieldsKeepCommasAndEscapedQuotes() {
+        List<ExpenseImportParser.ImportRow> rows = parseCsv(
+                "description,amount,paid_by,participants,notes",
+                "\"Dinner, drinks\",42.50," + ALICE + "," + ALICE + ";" + BOB + ",\"The \"\"good\"\" place\"");
+
+        assertThat(rows).hasSize(1);
+        CreateExpenseRequest request = rows.get(0).request();
+        assertThat(rows.get(0).error()).isNull();
+        assertThat(request.description()).isEqualTo("Dinner, drinks");
+        assertThat(request.notes()).isEqualTo("The \"good\" place");
+        assertThat(request.amount()).isEqualByComparingTo("42.50");
+        assertThat(request.participants()).containsExactly(ALICE, BOB);
+        assertThat(request.splitType()).isEqualTo(Expense.SplitType.EQUAL);
+    }
+
+    @Test
+    void csvShareValuesAreReadByTheSplitType() {
+        List<ExpenseImportParser.ImportRow> rows = parseCsv(
+                "description,amount,paidby,participants,split_type,shares,date",
+                "Rent,1000," + ALICE + "," + ALICE + ";" + BOB + ",percentage,60;40,2024-03-01");
+
+        CreateExpenseRequest request = rows.get(0).request();
+        assertThat(request.splitType()).isEqualTo(Expense.SplitType.PERCENTAGE);
+        assertThat(request.date()).isEqualTo(LocalDate.of(2024, 3, 1));
+        assertThat(request.shares()).extracting(CreateExpenseRequest.ShareDetail::percentage)
+                .containsExactly(new BigDecimal("60"), new BigDecimal("40"));
+    }
+
+    @Test
+    void invalidCsvRowsCarryTheirLineNumberAndReason() {
+        List<ExpenseImportParser.ImportRow> rows = parseCsv(
+                "description,amount,paidby,participants,split_type,shares",
+                "Taxi,abc," + ALICE + "," + BOB,
+                "",
+                "Hotel,300," + ALICE + "," + ALICE + ";" + BOB + ",exact,100",
+                ",10," + ALICE + "," + BOB,
+                "Lunch,20," + ALICE + "," + ALICE + ";" + BOB + ",itemized",
+                "Snacks,5," + ALICE + "," + BOB);
+
+        assertThat(rows).extracting(ExpenseImportParser.ImportRow::line).containsExactly(2L, 4L, 5L, 6L, 7L);
+        assertThat(rows.get(0).error()).startsWith("Invalid CSV row");
+        assertThat(rows.get(1).error()).contains("Expected 2 share values, got 1");
+        assertThat(rows.get(2).error()).contains("Missing value for description");
+        assertThat(rows.get(3).error()).contains("Itemized splits can only be imported as NDJSON");
+        assertThat(rows.get(4).error()).isNull();
+        assertThat(rows.get(4).request().description()).isEqualTo("Snacks");
+    }
+
+    @Test
+    void csvHeaderMustNameKnownAndRequiredColumns() {
+        assertThatThrownBy(() -> parseCsv("description,amount,paidby,participants,tip"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown CSV column: tip");
+        assertThatThrownBy(() -> parseCsv("description,amount,participants"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing CSV column: paidby");
+    }
+
+    @Test
+    void malformedJsonLinesAreReportedWithoutStoppingTheImport() {
+        List<ExpenseImportParser.ImportRow> rows = parser.parse(Flux.just(
+                "{\"description\": ",
+                "{\"groupId\":\"" + ALICE + "\",\"description\":\"Taxi\",\"amount\":12.5,\"paidBy\":\"" + ALICE
+                        + "\",\"participants\":[\"" + BOB + "\"]}"), ExpenseImportParser.Format.NDJSON)
+                .collectList()
+                .block();
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).error()).startsWith("Malformed JSON");
+        assertThat(rows.get(1).error()).isNull();
+        assertThat(rows.get(1).request().participants()).containsExactly(BOB);
+    }
+
+    private List<ExpenseImportParser.ImportRow> parseCsv(String... lines) {
+        return parser.parse(Flux.just(lines), ExpenseImportParser.Format.CSV).collectList().block();
+    }
+}
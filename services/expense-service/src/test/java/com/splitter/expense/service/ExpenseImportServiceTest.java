@@ -0,0 +1,77 @@
+package com.splitter.expense.service;
+
+import com.splitter.common.events.expense.ExpensesImportedEvent;
+import com.splitter.expense.model.Expense;
+import com.splitter.expense.model.ExpenseShare;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpenseImportServiceTest {
+
+    private static final UUID GROUP_A = new UUID(0, 1);
+    private static final UUID GROUP_B = new UUID(0, 2);
+
+    private final ExpenseImportService service = new ExpenseImportService(null, null, null, null, null, null, null);
+
+    @Test
+    void groupEventsSpreadsAGroupOverEventsOnceTheShareCapIsReached() {
+        ReflectionTestUtils.setField(service, "maxEventShares", 10);
+        List<ExpenseImportService.PreparedRow> chunk = new ArrayList<>();
+        chunk.add(row(1, GROUP_A, 4));
+        chunk.add(row(2, GROUP_B, 3));
+        chunk.add(row(3, GROUP_A, 6));
+        chunk.add(ExpenseImportService.PreparedRow.failed(4, "Invalid CSV row"));
+        chunk.add(row(5, GROUP_A, 1));
+        chunk.add(row(6, GROUP_A, 25));
+        chunk.add(row(7, GROUP_A, 2));
+
+        List<ExpensesImportedEvent> events = service.groupEvents(UUID.randomUUID(), chunk);
+
+        // A: [4 + 6], [1], [25] on its own, [2]; B: [3]
+        assertThat(events).extracting(ExpensesImportedEvent::getGroupId)
+                .containsExactly(GROUP_A, GROUP_A, GROUP_A, GROUP_A, GROUP_B);
+        assertThat(events).extracting(event -> event.getExpenses().size()).containsExactly(2, 1, 1, 1, 1);
+        assertThat(events).extracting(event -> event.getExpenses().stream().mapToInt(e -> e.getShares().size()).sum())
+                .containsExactly(10, 1, 25, 2, 3);
+        assertThat(events).extracting(ExpensesImportedEvent::getEventId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void groupEventsKeepsAGroupInOneEventBelowTheCap() {
+        ReflectionTestUtils.setField(service, "maxEventShares", 2000);
+        List<ExpenseImportService.PreparedRow> chunk = IntStream.range(0, 500)
+                .mapToObj(i -> row(i + 1, GROUP_A, 3))
+                .toList();
+
+        List<ExpensesImportedEvent> events = service.groupEvents(UUID.randomUUID(), chunk);
+
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getExpenses()).hasSize(500);
+    }
+
+    private static ExpenseImportService.PreparedRow row(long line, UUID groupId, int shareCount) {
+        Expense expense = Expense.builder()
+                .id(UUID.randomUUID())
+                .groupId(groupId)
+                .description("Row " + line)
+                .amount(BigDecimal.valueOf(shareCount))
+                .paidBy(new UUID(1, 0))
+                .build();
+        List<ExpenseShare> shares = IntStream.range(0, shareCount)
+                .mapToObj(i -> ExpenseShare.builder()
+                        .expenseId(expense.getId())
+                        .userId(new UUID(1, i + 1))
+                        .shareAmount(BigDecimal.ONE)
+                        .build())
+                .toList();
+        return new ExpenseImportService.PreparedRow(line, expense, shares, null);
+    }
+}
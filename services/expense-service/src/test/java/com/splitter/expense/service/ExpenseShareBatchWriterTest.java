@@ -0,0 +1,71 @@
+package com.splitter.expense.service;
+
+import com.splitter.expense.model.ExpenseShare;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpenseShareBatchWriterTest {
+
+    @Test
+    void insertedRowsAreReturnedInInputOrderWhateverOrderTheyComeBackIn() {
+        List<ExpenseShare> input = new ArrayList<>();
+        for (int expense = 0; expense < 20; expense++) {
+            for (int user = 0; user < 5; user++) {
+                input.add(share(new UUID(1, expense), new UUID(2, user), BigDecimal.valueOf(expense * 10L + user)));
+            }
+        }
+        List<ExpenseShare> inserted = new ArrayList<>(input.stream().map(ExpenseShareBatchWriterTest::withId).toList());
+        Collections.shuffle(inserted, new Random(3));
+
+        List<ExpenseShare> ordered = ExpenseShareBatchWriter.inInputOrder(input, inserted);
+
+        assertThat(ordered).extracting(ExpenseShare::getShareAmount)
+                .containsExactlyElementsOf(input.stream().map(ExpenseShare::getShareAmount).toList());
+        assertThat(ordered).allSatisfy(share -> assertThat(share.getId()).isNotNull());
+    }
+
+    @Test
+    void sharesOfTheSameExpenseAndUserAreEachMatchedOnce() {
+        UUID expenseId = new UUID(1, 1);
+        UUID userId = new UUID(2, 1);
+        List<ExpenseShare> input = List.of(share(expenseId, userId, BigDecimal.ONE), share(expenseId, userId, BigDecimal.TEN));
+        List<ExpenseShare> inserted = List.of(withId(input.get(1)), withId(input.get(0)));
+
+        List<ExpenseShare> ordered = ExpenseShareBatchWriter.inInputOrder(input, inserted);
+
+        assertThat(ordered).hasSize(2);
+        assertThat(ordered).extracting(ExpenseShare::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void aShareWithoutAReturnedRowFails() {
+        List<ExpenseShare> input = List.of(share(new UUID(1, 1), new UUID(2, 1), BigDecimal.ONE),
+                share(new UUID(1, 1), new UUID(2, 2), BigDecimal.ONE));
+
+        assertThatThrownBy(() -> ExpenseShareBatchWriter.inInputOrder(input, List.of(withId(input.get(0)))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(new UUID(2, 2).toString());
+    }
+
+    private static ExpenseShare share(UUID expenseId, UUID userId, BigDecimal amount) {
+        return ExpenseShare.builder().expenseId(expenseId).userId(userId).shareAmount(amount).build();
+    }
+
+    private static ExpenseShare withId(ExpenseShare share) {
+        return ExpenseShare.builder()
+                .id(UUID.randomUUID())
+                .expenseId(share.getExpenseId())
+                .userId(share.getUserId())
+                .shareAmount(share.getShareAmount())
+                .build();
+    }
+}
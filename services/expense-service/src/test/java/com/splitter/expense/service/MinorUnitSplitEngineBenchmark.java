@@ -0,0 +1,108 @@
+package com.splitter.expense.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link MinorUnitSplitEngine} against the BigDecimal split arithmetic it replaced.
+ *
+ * Not run by the test suite. Run it from the IDE, or after {@code mvn test-compile} with
+ * {@code java -cp target/test-classes:target/classes:<test classpath> com.splitter.expense.service.MinorUnitSplitEngineBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinorUnitSplitEngineBenchmark {
+
+    @Param({"3", "20", "200"})
+    private int participants;
+
+    private long total;
+    private long[] weights;
+    private BigDecimal totalAmount;
+    private BigDecimal[] percentages;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        total = 1_234_567;
+        weights = new long[participants];
+        for (int i = 0; i < participants; i++) {
+            weights[i] = 1 + random.nextInt(10_000);
+        }
+        totalAmount = MinorUnitSplitEngine.fromMinor(total, 2);
+        long weightSum = 0;
+        for (long weight : weights) {
+            weightSum += weight;
+        }
+        percentages = new BigDecimal[participants];
+        for (int i = 0; i < participants; i++) {
+            percentages[i] = BigDecimal.valueOf(weights[i] * 100).divide(BigDecimal.valueOf(weightSum), 10, RoundingMode.HALF_UP);
+        }
+    }
+
+    @Benchmark
+    public long[] allocateEqually() {
+        return MinorUnitSplitEngine.allocateEqually(total, participants);
+    }
+
+    @Benchmark
+    public long[] allocate() {
+        return MinorUnitSplitEngine.allocate(total, weights);
+    }
+
+    /**
+     * Equal split as SplitCalculator did it in BigDecimal: rounded share, difference to the first participant.
+     */
+    @Benchmark
+    public BigDecimal[] bigDecimalEqually() {
+        BigDecimal[] shares = new BigDecimal[participants];
+        BigDecimal share = totalAmount.divide(BigDecimal.valueOf(participants), 2, RoundingMode.HALF_UP);
+        BigDecimal remainder = totalAmount.subtract(share.multiply(BigDecimal.valueOf(participants)));
+        for (int i = 0; i < participants; i++) {
+            shares[i] = i == 0 ? share.add(remainder) : share;
+        }
+        return shares;
+    }
+
+    /**
+     * Percentage split as SplitCalculator did it in BigDecimal: the last participant takes what is left.
+     */
+    @Benchmark
+    public BigDecimal[] bigDecimalByPercentage() {
+        BigDecimal[] shares = new BigDecimal[participants];
+        BigDecimal allocated = BigDecimal.ZERO;
+        for (int i = 0; i < participants - 1; i++) {
+            shares[i] = totalAmount.multiply(percentages[i]).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            allocated = allocated.add(shares[i]);
+        }
+        shares[participants - 1] = totalAmount.subtract(allocated);
+        return shares;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MinorUnitSplitEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.splitter.expense.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinorUnitSplitEngineTest {
+
+    @Test
+    void allocateEquallyGivesLeftoverUnitsToTheFirstParticipants() {
+        assertThat(MinorUnitSplitEngine.allocateEqually(100, 3)).containsExactly(34, 33, 33);
+        assertThat(MinorUnitSplitEngine.allocateEqually(101, 3)).containsExactly(34, 34, 33);
+        assertThat(MinorUnitSplitEngine.allocateEqually(2, 5)).containsExactly(1, 1, 0, 0, 0);
+    }
+
+    @Test
+    void allocateHandsLeftoverUnitsToTheLargestRemainders() {
+        // 10 * [1, 2, 3] / 6 floors to [1, 3, 5] with remainders [4, 2, 0]
+        assertThat(MinorUnitSplitEngine.allocate(10, new long[] {1, 2, 3})).containsExactly(2, 3, 5);
+    }
+
+    @Test
+    void allocateBreaksRemainderTiesInParticipantOrder() {
+        assertThat(MinorUnitSplitEngine.allocate(1, new long[] {1, 1, 1})).containsExactly(1, 0, 0);
+        assertThat(MinorUnitSplitEngine.allocate(2, new long[] {1, 1, 1})).containsExactly(1, 1, 0);
+        // 2 * [3, 1, 1] / 5 floors to [1, 0, 0] with remainders [1, 2, 2]: the tie goes to the second
+        assertThat(MinorUnitSplitEngine.allocate(2, new long[] {3, 1, 1})).containsExactly(1, 1, 0);
+    }
+
+    @Test
+    void allocateGivesNothingToZeroWeights() {
+        assertThat(MinorUnitSplitEngine.allocate(7, new long[] {0, 1, 0, 1})).containsExactly(0, 4, 0, 3);
+    }
+
+    @Test
+    void allocationsAlwaysSumToTheTotal() {
+        Random random = new Random(42);
+        for (int run = 0; run < 10_000; run++) {
+            int count = 1 + random.nextInt(50);
+            long total = random.nextInt(1_000_000);
+            long[] weights = new long[count];
+            for (int i = 0; i < count; i++) {
+                weights[i] = random.nextInt(10_000);
+            }
+            weights[random.nextInt(count)]++;
+            long weightSum = Arrays.stream(weights).sum();
+
+            long[] shares = MinorUnitSplitEngine.allocate(total, weights);
+            assertThat(Arrays.stream(shares).sum()).isEqualTo(total);
+            for (int i = 0; i < count; i++) {
+                // Each share is the exact proportional share rounded down or up
+                long floor = total * weights[i] / weightSum;
+                assertThat(shares[i]).isBetween(floor, floor + 1);
+            }
+
+            long[] equal = MinorUnitSplitEngine.allocateEqually(total, count);
+            assertThat(Arrays.stream(equal).sum()).isEqualTo(total);
+            assertThat(equal[0] - equal[count - 1]).isBetween(0L, 1L);
+        }
+    }
+
+    @Test
+    void allocationsSumToTheTotalWhenProductsOverflowLong() {
+        long total = Long.MAX_VALUE / 4;
+        long[] weights = {Long.MAX_VALUE / 8, Long.MAX_VALUE / 8, 3};
+
+        long[] shares = MinorUnitSplitEngine.allocate(total, weights);
+
+        assertThat(Arrays.stream(shares).sum()).isEqualTo(total);
+    }
+
+    @Test
+    void allocateRejectsWeightsWithoutPositiveSum() {
+        assertThatThrownBy(() -> MinorUnitSplitEngine.allocate(10, new long[] {0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void minorUnitsFollowTheCurrencyScale() {
+        assertThat(MinorUnitSplitEngine.scaleOf("JPY")).isZero();
+        assertThat(MinorUnitSplitEngine.scaleOf("USD")).isEqualTo(2);
+        assertThat(MinorUnitSplitEngine.scaleOf("KWD")).isEqualTo(3);
+        assertThat(MinorUnitSplitEngine.scaleOf("XYZ")).isEqualTo(MinorUnitSplitEngine.DEFAULT_SCALE);
+
+        assertThat(MinorUnitSplitEngine.toMinor(new BigDecimal("12.345"), 3)).isEqualTo(12_345);
+        assertThat(MinorUnitSplitEngine.fromMinor(12_345, 3)).isEqualByComparingTo("12.345");
+        assertThatThrownBy(() -> MinorUnitSplitEngine.toMinor(new BigDecimal("1.005"), 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
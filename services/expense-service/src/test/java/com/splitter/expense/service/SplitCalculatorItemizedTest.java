@@ -0,0 +1,100 @@
+package com.splitter.expense.service;
+
+import com.splitter.expense.dto.CreateExpenseRequest;
+import com.splitter.expense.model.Expense;
+import com.splitter.expense.model.ExpenseShare;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that itemized shares always add up to the billed total.
+ */
+class SplitCalculatorItemizedTest {
+
+    private final SplitCalculator calculator = new SplitCalculator();
+
+    @Test
+    void sharesSumToTheBilledTotalForRandomReceipts() {
+        Random random = new Random(24);
+        for (int run = 0; run < 500; run++) {
+            List<UUID> participants = new ArrayList<>();
+            for (int i = 1 + random.nextInt(8); i > 0; i--) {
+                participants.add(UUID.randomUUID());
+            }
+
+            List<CreateExpenseRequest.LineItem> items = new ArrayList<>();
+            long itemsTotal = 0;
+            for (int i = 1 + random.nextInt(12); i > 0; i--) {
+                long cents = 1 + random.nextInt(5000);
+                itemsTotal += cents;
+                List<UUID> sharedBy = random.nextInt(4) == 0
+                        ? List.of()
+                        : participants.subList(0, 1 + random.nextInt(participants.size()));
+                items.add(new CreateExpenseRequest.LineItem("item", BigDecimal.valueOf(cents, 2), sharedBy));
+            }
+            long tax = random.nextInt(1000);
+            long tip = random.nextInt(1000);
+            long discount = random.nextInt((int) Math.min(itemsTotal, 1000));
+            long billed = itemsTotal + tax + tip - discount;
+
+            List<ExpenseShare> shares = calculator.calculateShares(UUID.randomUUID(), BigDecimal.valueOf(billed, 2),
+                    "USD", Expense.SplitType.ITEMIZED, participants, null,
+                    new CreateExpenseRequest.Itemization(items, BigDecimal.valueOf(tax, 2),
+                            BigDecimal.valueOf(tip, 2), BigDecimal.valueOf(discount, 2)));
+
+            assertThat(shares).hasSize(participants.size());
+            assertThat(shares.stream().map(ExpenseShare::getShareAmount).reduce(BigDecimal.ZERO, BigDecimal::add))
+                    .isEqualByComparingTo(BigDecimal.valueOf(billed, 2));
+            assertThat(shares).allSatisfy(share -> assertThat(share.getShareAmount().signum()).isNotNegative());
+        }
+    }
+
+    @Test
+    void taxAndTipAreSpreadInProportionToItemSubtotals() {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        List<CreateExpenseRequest.LineItem> items = List.of(
+                new CreateExpenseRequest.LineItem("steak", new BigDecimal("30.00"), List.of(alice)),
+                new CreateExpenseRequest.LineItem("salad", new BigDecimal("10.00"), List.of(bob)));
+
+        List<ExpenseShare> shares = calculator.calculateShares(UUID.randomUUID(), new BigDecimal("48.00"), "USD",
+                Expense.SplitType.ITEMIZED, List.of(alice, bob), null,
+                new CreateExpenseRequest.Itemization(items, new BigDecimal("4.00"), new BigDecimal("4.00"), null));
+
+        assertThat(shares).extracting(ExpenseShare::getShareAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("36.00"), new BigDecimal("12.00"));
+    }
+
+    @Test
+    void rejectsItemsThatDoNotComeToTheTotal() {
+        List<CreateExpenseRequest.LineItem> items = List.of(
+                new CreateExpenseRequest.LineItem("pizza", new BigDecimal("20.00"), null));
+
+        assertThatThrownBy(() -> calculator.calculateShares(UUID.randomUUID(), new BigDecimal("25.00"), "USD",
+                Expense.SplitType.ITEMIZED, List.of(UUID.randomUUID()), null,
+                new CreateExpenseRequest.Itemization(items, new BigDecimal("2.00"), null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not the total");
+    }
+
+    @Test
+    void rejectsItemsAssignedToNonParticipants() {
+        List<CreateExpenseRequest.LineItem> items = List.of(
+                new CreateExpenseRequest.LineItem("wine", new BigDecimal("20.00"), List.of(UUID.randomUUID())));
+
+        assertThatThrownBy(() -> calculator.calculateShares(UUID.randomUUID(), new BigDecimal("20.00"), "USD",
+                Expense.SplitType.ITEMIZED, List.of(UUID.randomUUID()), null,
+                new CreateExpenseRequest.Itemization(items, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not a participant");
+    }
+}
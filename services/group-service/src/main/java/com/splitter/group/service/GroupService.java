@@ -2,6 +2,8 @@ package com.splitter.group.service;
 
 import com.splitter.common.events.EventTopics;
 import com.splitter.common.events.group.GroupCreatedEvent;
+import com.splitter.common.events.group.GroupUpdatedEvent;
+import com.splitter.common.outbox.OutboxWriter;
 import com.splitter.group.dto.*;
 import com.splitter.group.exception.GroupNotFoundException;
 import com.splitter.group.exception.NotGroupMemberException;
@@ -12,7 +14,6 @@ import com.splitter.group.repository.GroupMemberRepository;
 import com.splitter.group.repository.GroupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
@@ -31,7 +32,7 @@ public class GroupService {
 
     private final GroupRepository groupRepository;
     private final GroupMemberRepository memberRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxWriter outboxWriter;
 
     /**
      * Create a new group.
@@ -55,7 +56,7 @@ public class GroupService {
         return groupRepository.save(group)
                 .flatMap(savedGroup -> addCreatorAsMember(savedGroup, creatorId)
                         .thenReturn(savedGroup))
-                .doOnSuccess(this::publishGroupCreatedEvent)
+                .flatMap(savedGroup -> recordGroupCreatedEvent(savedGroup).thenReturn(savedGroup))
                 .flatMap(this::enrichWithMemberCount);
     }
 
@@ -101,6 +102,7 @@ public class GroupService {
                     return group;
                 })
                 .flatMap(groupRepository::save)
+                .flatMap(group -> recordGroupUpdatedEvent(group, requesterId).thenReturn(group))
                 .flatMap(this::enrichWithMemberCount);
     }
 
@@ -248,7 +250,7 @@ public class GroupService {
                 });
     }
 
-    private void publishGroupCreatedEvent(Group group) {
+    private Mono<Void> recordGroupCreatedEvent(Group group) {
         GroupCreatedEvent event = GroupCreatedEvent.builder()
                 .groupId(group.getId())
                 .name(group.getName())
@@ -256,14 +258,20 @@ public class GroupService {
                 .defaultCurrency(group.getDefaultCurrency())
                 .build();
 
-        kafkaTemplate.send(EventTopics.GROUP_EVENTS, group.getId().toString(), event)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to publish GroupCreatedEvent for group: {}", group.getId(), ex);
-                    } else {
-                        log.info("Published GroupCreatedEvent for group: {}", group.getId());
-                    }
-                });
+        return outboxWriter.append(EventTopics.GROUP_EVENTS, group.getId().toString(), event);
+    }
+
+    private Mono<Void> recordGroupUpdatedEvent(Group group, UUID updatedBy) {
+        GroupUpdatedEvent event = GroupUpdatedEvent.builder()
+                .subject(group.getId().toString())
+                .groupId(group.getId())
+                .name(group.getName())
+                .defaultCurrency(group.getDefaultCurrency())
+                .simplifyDebts(group.isSimplifyDebts())
+                .updatedBy(updatedBy)
+                .build();
+
+        return outboxWriter.append(EventTopics.GROUP_EVENTS, group.getId().toString(), event);
     }
 
     private Mono<GroupDto> enrichWithMemberCount(Group group) {
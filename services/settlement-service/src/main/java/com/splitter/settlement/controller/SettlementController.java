@@ -1,7 +1,9 @@
 package com.splitter.settlement.controller;
 
+import com.splitter.common.security.SecurityUtils;
 import com.splitter.settlement.dto.CreateSettlementRequest;
 import com.splitter.settlement.dto.SettlementDto;
+import com.splitter.settlement.exception.UnauthorizedSettlementActionException;
 import com.splitter.settlement.service.SettlementService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,6 +11,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
@@ -53,6 +56,16 @@ public class SettlementController {
         return settlementService.getGroupSettlements(groupId);
     }
 
+    @GetMapping(value = "/group/{groupId}/confirmed/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream the confirmed settlements of a group as NDJSON (admins and services only)")
+    public Flux<SettlementDto> streamConfirmedGroupSettlements(@PathVariable UUID groupId) {
+        return SecurityUtils.isAdminOrService()
+                .flatMapMany(allowed -> allowed
+                        ? settlementService.streamConfirmedGroupSettlements(groupId)
+                        : Flux.error(new UnauthorizedSettlementActionException(
+                                "Settlement streams are only available to admins and services")));
+    }
+
     @GetMapping("/user")
     @Operation(summary = "Get settlements for the current user")
     public Flux<SettlementDto> getCurrentUserSettlements(@AuthenticationPrincipal Jwt jwt) {
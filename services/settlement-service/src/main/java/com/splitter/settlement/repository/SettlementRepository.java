@@ -46,6 +46,11 @@ public interface SettlementRepository extends R2dbcRepository<Settlement, UUID>
            "ORDER BY created_at DESC")
     Flux<Settlement> findByGroupAndUsers(UUID groupId, UUID userId1, UUID userId2);
 
+    /**
+     * Find settlements of a group in a status.
+     */
+    Flux<Settlement> findByGroupIdAndStatus(UUID groupId, Settlement.SettlementStatus status);
+
     /**
      * Find pending settlements for a user to confirm.
      */
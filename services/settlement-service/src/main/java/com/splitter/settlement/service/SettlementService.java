@@ -2,6 +2,7 @@ package com.splitter.settlement.service;
 
 import com.splitter.common.events.EventTopics;
 import com.splitter.common.events.settlement.SettlementCreatedEvent;
+import com.splitter.common.outbox.OutboxWriter;
 import com.splitter.settlement.dto.CreateSettlementRequest;
 import com.splitter.settlement.dto.SettlementDto;
 import com.splitter.settlement.exception.SettlementNotFoundException;
@@ -10,7 +11,6 @@ import com.splitter.settlement.model.Settlement;
 import com.splitter.settlement.repository.SettlementRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
@@ -30,7 +30,7 @@ import java.util.UUID;
 public class SettlementService {
 
     private final SettlementRepository settlementRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxWriter outboxWriter;
 
     /**
      * Create a new settlement (payment record).
@@ -83,6 +83,14 @@ public class SettlementService {
                 .map(this::toDto);
     }
 
+    /**
+     * Stream the confirmed settlements of a group, the ones reflected in balances.
+     */
+    public Flux<SettlementDto> streamConfirmedGroupSettlements(UUID groupId) {
+        return settlementRepository.findByGroupIdAndStatus(groupId, Settlement.SettlementStatus.CONFIRMED)
+                .map(this::toDto);
+    }
+
     /**
      * Get settlements involving a user.
      */
@@ -125,7 +133,7 @@ public class SettlementService {
 
                     return settlementRepository.save(settlement);
                 })
-                .doOnSuccess(this::publishSettlementConfirmedEvent)
+                .flatMap(confirmed -> recordSettlementConfirmedEvent(confirmed).thenReturn(confirmed))
                 .map(this::toDto);
     }
 
@@ -200,7 +208,7 @@ public class SettlementService {
         return settlementRepository.countByToUserIdAndStatus(userId, Settlement.SettlementStatus.PENDING);
     }
 
-    private void publishSettlementConfirmedEvent(Settlement settlement) {
+    private Mono<Void> recordSettlementConfirmedEvent(Settlement settlement) {
         SettlementCreatedEvent event = SettlementCreatedEvent.builder()
                 .settlementId(settlement.getId())
                 .groupId(settlement.getGroupId())
@@ -210,15 +218,7 @@ public class SettlementService {
                 .currency(settlement.getCurrency())
                 .build();
 
-        kafkaTemplate.send(EventTopics.SETTLEMENT_EVENTS, settlement.getId().toString(), event)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to publish SettlementCreatedEvent for settlement: {}", 
-                                settlement.getId(), ex);
-                    } else {
-                        log.info("Published SettlementCreatedEvent for settlement: {}", settlement.getId());
-                    }
-                });
+        return outboxWriter.append(EventTopics.SETTLEMENT_EVENTS, settlement.getId().toString(), event);
     }
 
     private SettlementDto toDto(Settlement settlement) {
@@ -0,0 +1,52 @@
+package com.splitter.common.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque keyset pagination cursor.
+ * Encodes the sort key values of the last row of a page as a URL-safe token.
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private PageCursor() {
+        // Utility class
+    }
+
+    /**
+     * Encodes sort key values into a cursor token.
+     */
+    public static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor token into its sort key values.
+     *
+     * @throws IllegalArgumentException if the token is malformed or has the wrong number of keys
+     */
+    public static List<String> decode(String token, int expectedKeys) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        List<String> keys = List.of(raw.split("\\|", -1));
+        if (keys.size() != expectedKeys) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        return keys;
+    }
+}
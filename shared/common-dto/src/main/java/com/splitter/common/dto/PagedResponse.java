@@ -65,6 +65,11 @@ public class PagedResponse<T> {
      */
     private boolean hasPrevious;
 
+    /**
+     * Opaque cursor for the next page of a keyset-paginated list; null on the last page.
+     */
+    private String nextCursor;
+
     /**
      * Creates a PagedResponse from content and pagination info.
      */
@@ -84,6 +89,22 @@ public class PagedResponse<T> {
                 .build();
     }
 
+    /**
+     * Creates a PagedResponse for a keyset-paginated page. Totals are not computed for
+     * cursor pages, since counting would cost as much as reading every page.
+     */
+    public static <T> PagedResponse<T> ofCursor(List<T> content, int size, boolean first, String nextCursor) {
+        return PagedResponse.<T>builder()
+                .content(content)
+                .size(size)
+                .first(first)
+                .last(nextCursor == null)
+                .hasNext(nextCursor != null)
+                .hasPrevious(!first)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     /**
      * Creates an empty PagedResponse.
      */
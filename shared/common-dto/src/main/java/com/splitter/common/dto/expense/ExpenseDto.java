@@ -48,6 +48,7 @@ public class ExpenseDto {
         EQUAL,       // Split equally among participants
         PERCENTAGE,  // Split by percentage
         SHARES,      // Split by number of shares
-        EXACT        // Exact amounts specified
+        EXACT,       // Exact amounts specified
+        ITEMIZED     // Split by receipt line items
     }
 }
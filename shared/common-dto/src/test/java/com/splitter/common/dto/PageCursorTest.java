@@ -0,0 +1,46 @@
+package com.splitter.common.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void decodesTheKeysItEncoded() {
+        LocalDate date = LocalDate.of(2024, 2, 29);
+        Instant createdAt = Instant.parse("2024-02-29T10:15:30.123456Z");
+        UUID id = UUID.randomUUID();
+
+        String token = PageCursor.encode(date, createdAt, id);
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(PageCursor.decode(token, 3)).containsExactly(date.toString(), createdAt.toString(), id.toString());
+    }
+
+    @Test
+    void keepsEmptyKeys() {
+        assertThat(PageCursor.decode(PageCursor.encode("", "b"), 2)).containsExactly("", "b");
+    }
+
+    @Test
+    void rejectsTokensWithTheWrongNumberOfKeys() {
+        String token = PageCursor.encode(Instant.EPOCH, UUID.randomUUID());
+
+        assertThatThrownBy(() -> PageCursor.decode(token, 3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid page cursor");
+    }
+
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertThatThrownBy(() -> PageCursor.decode("not a cursor!", 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid page cursor");
+    }
+}
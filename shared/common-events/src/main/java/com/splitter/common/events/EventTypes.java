@@ -30,6 +30,7 @@ public final class EventTypes {
     public static final String EXPENSE_CREATED = "expense.created.v1";
     public static final String EXPENSE_UPDATED = "expense.updated.v1";
     public static final String EXPENSE_DELETED = "expense.deleted.v1";
+    public static final String EXPENSES_IMPORTED = "expense.imported.v1";
 
     // Balance events
     public static final String BALANCE_UPDATED = "balance.updated.v1";
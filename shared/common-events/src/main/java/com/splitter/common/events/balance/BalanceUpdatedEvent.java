@@ -0,0 +1,84 @@
+package com.splitter.common.events.balance;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.splitter.common.events.BaseEvent;
+import com.splitter.common.events.EventMetadata;
+import com.splitter.common.events.EventTypes;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Event published when balances in a group change. Carries only the users whose
+ * positions changed and their new net positions, coalesced over a short window.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BalanceUpdatedEvent implements BaseEvent {
+
+    @Builder.Default
+    private String eventId = UUID.randomUUID().toString();
+
+    @Builder.Default
+    private String eventType = EventTypes.BALANCE_UPDATED;
+
+    @Builder.Default
+    private Instant eventTime = Instant.now();
+
+    @Builder.Default
+    private String source = "balance-service";
+
+    private String subject; // group ID
+
+    @Builder.Default
+    private String dataVersion = "1.0";
+
+    private BalanceUpdatedData data;
+    private EventMetadata metadata;
+
+    /**
+     * Balance change payload.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BalanceUpdatedData {
+        private UUID groupId;
+        private long version; // group balance version; higher supersedes lower
+        private List<UUID> affectedUserIds;
+        private List<PositionData> positions;
+    }
+
+    /**
+     * New net position of an affected user. Positive amounts mean the user is owed.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PositionData {
+        private UUID userId;
+        private String currency;
+        private BigDecimal netAmount;
+    }
+
+    /**
+     * Creates a BalanceUpdatedEvent from balance change data.
+     */
+    public static BalanceUpdatedEvent of(BalanceUpdatedData data) {
+        return BalanceUpdatedEvent.builder()
+                .subject(data.getGroupId().toString())
+                .data(data)
+                .build();
+    }
+}
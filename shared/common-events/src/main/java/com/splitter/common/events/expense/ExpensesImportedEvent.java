@@ -0,0 +1,77 @@
+package com.splitter.common.events.expense;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.splitter.common.events.BaseEvent;
+import com.splitter.common.events.EventMetadata;
+import com.splitter.common.events.EventTypes;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Event published once per group for each chunk of a bulk expense import, carrying
+ * every expense of the group written in that chunk.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExpensesImportedEvent implements BaseEvent {
+
+    @Builder.Default
+    private String eventId = UUID.randomUUID().toString();
+
+    @Builder.Default
+    private String eventType = EventTypes.EXPENSES_IMPORTED;
+
+    @Builder.Default
+    private Instant eventTime = Instant.now();
+
+    @Builder.Default
+    private String source = "expense-service";
+
+    private String subject; // group ID
+
+    @Builder.Default
+    private String dataVersion = "1.0";
+
+    private UUID importId;
+    private UUID groupId;
+    private List<ImportedExpense> expenses;
+    private EventMetadata metadata;
+
+    /**
+     * One imported expense and its shares.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImportedExpense {
+        private UUID expenseId;
+        private String description;
+        private BigDecimal amount;
+        private String currency;
+        private UUID paidBy;
+        private List<ShareInfo> shares;
+    }
+
+    /**
+     * Share owed by one participant.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ShareInfo {
+        private UUID userId;
+        private BigDecimal amount;
+    }
+}
@@ -0,0 +1,48 @@
+package com.splitter.common.events.group;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.splitter.common.events.BaseEvent;
+import com.splitter.common.events.EventMetadata;
+import com.splitter.common.events.EventTypes;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Event published when a group's settings are updated.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GroupUpdatedEvent implements BaseEvent {
+
+    @Builder.Default
+    private String eventId = UUID.randomUUID().toString();
+
+    @Builder.Default
+    private String eventType = EventTypes.GROUP_UPDATED;
+
+    @Builder.Default
+    private Instant eventTime = Instant.now();
+
+    @Builder.Default
+    private String source = "group-service";
+
+    private String subject; // group ID
+
+    @Builder.Default
+    private String dataVersion = "1.0";
+
+    private UUID groupId;
+    private String name;
+    private String defaultCurrency;
+    private boolean simplifyDebts;
+    private UUID updatedBy;
+    private EventMetadata metadata;
+}
@@ -0,0 +1,87 @@
+package com.splitter.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outbox beans for services that include this module. Each service owns an
+ * {@code outbox_events} table in its own database, created by its Flyway migrations.
+ */
+@AutoConfiguration(after = {R2dbcDataAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+@ConditionalOnBean({DatabaseClient.class, ReactiveTransactionManager.class})
+@ConditionalOnProperty(prefix = "outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxAutoConfiguration {
+
+    /**
+     * Payloads use the same mapper setup as the Kafka JSON serializer, so consumers see
+     * the same JSON as when events were sent directly.
+     */
+    @Bean
+    public OutboxWriter outboxWriter(DatabaseClient databaseClient) {
+        ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+        return new OutboxWriter(databaseClient, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "outbox.relay", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public OutboxRelay outboxRelay(
+            DatabaseClient databaseClient,
+            ReactiveTransactionManager transactionManager,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+            @Value("${outbox.relay.lock-id:7310594559281491}") long lockId,
+            @Value("${outbox.relay.batch-size:500}") int batchSize,
+            @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+            @Value("${outbox.relay.poll-interval-ms:200}") long pollIntervalMs,
+            @Value("${outbox.relay.compression-type:lz4}") String compressionType,
+            @Value("${outbox.relay.linger-ms:20}") int lingerMs,
+            @Value("${outbox.relay.batch-bytes:262144}") int batchBytes,
+            @Value("${outbox.cleanup.interval-ms:600000}") long cleanupIntervalMs,
+            @Value("${outbox.cleanup.retention-hours:72}") int retentionHours) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchBytes);
+
+        KafkaTemplate<String, byte[]> kafkaTemplate =
+                new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps));
+        return new OutboxRelay(
+                databaseClient,
+                TransactionalOperator.create(transactionManager),
+                kafkaTemplate,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new),
+                lockId,
+                batchSize,
+                maxAttempts,
+                Duration.ofMillis(pollIntervalMs),
+                Duration.ofMillis(cleanupIntervalMs),
+                retentionHours);
+    }
+}
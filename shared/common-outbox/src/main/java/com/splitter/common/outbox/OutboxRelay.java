@@ -0,0 +1,311 @@
+package com.splitter.common.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes outbox events to Kafka and marks them as sent.
+ *
+ * Each poll claims the oldest unsent events in one transaction, sends them all before
+ * waiting on any so the producer can fill large compressed batches, and marks each one
+ * sent once its send is acknowledged. A full batch is followed immediately by the next one.
+ * Only one instance relays at a time, guarded by a transaction-scoped advisory lock, so
+ * events leave in the order they were recorded.
+ *
+ * A failed send is recorded on its row and retried on a later poll without holding back
+ * the events behind it, so delivery is at least once; consumers skip redeliveries. Only
+ * non-retriable failures, such as an oversized record, count as attempts; a row that
+ * reaches the attempt limit is dead-lettered and left in the table for inspection.
+ * Retriable failures, such as a broker outage, are retried indefinitely.
+ */
+@Slf4j
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(:lockId)";
+
+    private static final String SELECT_UNSENT = """
+            SELECT id, topic, event_key, event_type, payload::text AS payload
+            FROM outbox_events
+            WHERE sent_at IS NULL AND dead_lettered_at IS NULL
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    private static final String MARK_SENT = "UPDATE outbox_events SET sent_at = NOW() WHERE id = ANY(:ids)";
+
+    private static final String MARK_FAILED = """
+            UPDATE outbox_events
+            SET attempts = attempts + :increment,
+                last_error = LEFT(:error, 2000),
+                dead_lettered_at = CASE WHEN attempts + :increment >= :maxAttempts THEN NOW() END
+            WHERE id = :id
+            RETURNING attempts, dead_lettered_at IS NOT NULL AS dead_lettered
+            """;
+
+    private static final String DELETE_SENT = """
+            DELETE FROM outbox_events
+            WHERE sent_at IS NOT NULL AND sent_at < NOW() - make_interval(hours => :retentionHours)
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final long lockId;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration pollInterval;
+    private final Duration cleanupInterval;
+    private final int retentionHours;
+    private final Counter relayed;
+    private final Counter failures;
+    private final Counter failedSends;
+    private final Counter deadLettered;
+
+    private volatile Disposable running;
+
+    public OutboxRelay(DatabaseClient databaseClient,
+                       TransactionalOperator transactionalOperator,
+                       KafkaTemplate<String, byte[]> kafkaTemplate,
+                       MeterRegistry meterRegistry,
+                       long lockId,
+                       int batchSize,
+                       int maxAttempts,
+                       Duration pollInterval,
+                       Duration cleanupInterval,
+                       int retentionHours) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.kafkaTemplate = kafkaTemplate;
+        this.lockId = lockId;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollInterval = pollInterval;
+        this.cleanupInterval = cleanupInterval;
+        this.retentionHours = retentionHours;
+        this.relayed = Counter.builder("outbox.events.relayed")
+                .description("Outbox events published to Kafka")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.relay.failures")
+                .description("Outbox relay polls that failed and will be retried")
+                .register(meterRegistry);
+        this.failedSends = Counter.builder("outbox.events.failed")
+                .description("Outbox event sends that failed and will be retried")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("outbox.events.dead_lettered")
+                .description("Outbox events parked after reaching the attempt limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        Disposable relay = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> drain(), 1)
+                .subscribe();
+        Disposable cleanup = Flux.interval(cleanupInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> deleteSent(), 1)
+                .subscribe();
+        running = Disposables.composite(relay, cleanup);
+        log.info("Outbox relay started (batch size {}, poll interval {})", batchSize, pollInterval);
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = running;
+        if (current != null) {
+            current.dispose();
+            running = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running != null;
+    }
+
+    /**
+     * Relay batches until one sends fewer events than the batch size.
+     */
+    Mono<Void> drain() {
+        return relayBatch()
+                .expand(sent -> sent == batchSize ? relayBatch() : Mono.empty())
+                .then()
+                .onErrorResume(error -> {
+                    failures.increment();
+                    log.warn("Failed to relay outbox events, retrying on next poll: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Publish and mark one batch, returning how many of its events were sent.
+     */
+    private Mono<Integer> relayBatch() {
+        Mono<Integer> batch = databaseClient.sql(TRY_LOCK)
+                .bind("lockId", lockId)
+                .map(row -> Boolean.TRUE.equals(row.get(0, Boolean.class)))
+                .one()
+                .flatMap(locked -> locked
+                        ? claim().collectList().flatMap(this::publish)
+                        : Mono.just(0));
+        return transactionalOperator.transactional(batch);
+    }
+
+    Flux<OutboxEvent> claim() {
+        return databaseClient.sql(SELECT_UNSENT)
+                .bind("limit", batchSize)
+                .map(row -> new OutboxEvent(
+                        row.get("id", Long.class),
+                        row.get("topic", String.class),
+                        row.get("event_key", String.class),
+                        row.get("event_type", String.class),
+                        row.get("payload", String.class)))
+                .all();
+    }
+
+    /**
+     * Send a batch and record each event's outcome, returning how many were sent.
+     */
+    Mono<Integer> publish(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.just(0);
+        }
+        // Send everything first so the producer batches across events, then collect each ack
+        List<Mono<Optional<Throwable>>> acks = events.stream().map(this::send).toList();
+
+        return Flux.concat(acks)
+                .collectList()
+                .flatMap(outcomes -> {
+                    List<Long> sent = new ArrayList<>(events.size());
+                    List<Mono<Void>> failed = new ArrayList<>();
+                    for (int i = 0; i < events.size(); i++) {
+                        OutboxEvent event = events.get(i);
+                        outcomes.get(i).ifPresentOrElse(
+                                error -> failed.add(markFailed(event, describe(error), !isRetriable(error))),
+                                () -> sent.add(event.id()));
+                    }
+                    return markSent(sent)
+                            .then(Flux.concat(failed).then())
+                            .doOnSuccess(v -> {
+                                relayed.increment(sent.size());
+                                failedSends.increment(failed.size());
+                                log.debug("Relayed {} outbox events, {} failed", sent.size(), failed.size());
+                            })
+                            .thenReturn(sent.size());
+                });
+    }
+
+    /**
+     * Start sending an event, completing with its failure or empty once it is acknowledged.
+     */
+    private Mono<Optional<Throwable>> send(OutboxEvent event) {
+        CompletableFuture<?> ack;
+        try {
+            ack = kafkaTemplate.send(toRecord(event));
+        } catch (RuntimeException e) {
+            ack = CompletableFuture.failedFuture(e);
+        }
+        return Mono.fromFuture(ack)
+                .map(result -> Optional.<Throwable>empty())
+                .onErrorResume(error -> Mono.just(Optional.of(error)));
+    }
+
+    Mono<Void> markSent(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return databaseClient.sql(MARK_SENT).bind("ids", ids.toArray(Long[]::new)).then();
+    }
+
+    /**
+     * Record a failed send, counting it as an attempt unless it was retriable, and
+     * dead-letter the event once it reaches the attempt limit.
+     */
+    Mono<Void> markFailed(OutboxEvent event, String error, boolean counted) {
+        return databaseClient.sql(MARK_FAILED)
+                .bind("id", event.id())
+                .bind("increment", counted ? 1 : 0)
+                .bind("maxAttempts", maxAttempts)
+                .bind("error", error)
+                .map(row -> Boolean.TRUE.equals(row.get("dead_lettered", Boolean.class)))
+                .one()
+                .doOnNext(parked -> {
+                    if (parked) {
+                        deadLettered.increment();
+                        log.error("Dead-lettered outbox event {} for topic {} after {} attempts: {}",
+                                event.id(), event.topic(), maxAttempts, error);
+                    } else {
+                        log.warn("Failed to relay outbox event {} for topic {}, retrying on next poll: {}",
+                                event.id(), event.topic(), error);
+                    }
+                })
+                .then();
+    }
+
+    private static boolean isRetriable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    private ProducerRecord<String, byte[]> toRecord(OutboxEvent event) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                event.topic(), event.key(), event.payload().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+                event.type().getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private Mono<Void> deleteSent() {
+        return databaseClient.sql(DELETE_SENT)
+                .bind("retentionHours", retentionHours)
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(deleted -> {
+                    if (deleted > 0) {
+                        log.debug("Deleted {} sent outbox events", deleted);
+                    }
+                })
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Failed to delete sent outbox events: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * An unsent event as stored in the outbox.
+     */
+    record OutboxEvent(Long id, String topic, String key, String type, String payload) {}
+}
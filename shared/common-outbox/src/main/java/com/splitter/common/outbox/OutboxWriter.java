@@ -0,0 +1,51 @@
+package com.splitter.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records events in the outbox table instead of sending them to Kafka directly.
+ *
+ * The insert joins the caller's reactive transaction, so an event is stored if and only
+ * if the entity change it describes commits. {@link OutboxRelay} publishes it afterwards.
+ * Payloads are serialized the same way as the Kafka JSON serializer, and the event class
+ * is kept so consumers still receive the type header they deserialize by.
+ */
+@Slf4j
+public class OutboxWriter {
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO outbox_events (topic, event_key, event_type, payload, created_at)
+            VALUES (:topic, :eventKey, :eventType, CAST(:payload AS jsonb), NOW())
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(DatabaseClient databaseClient, ObjectMapper objectMapper) {
+        this.databaseClient = databaseClient;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Record an event for a topic. Must be subscribed within the transaction that writes
+     * the entity for the two to commit together.
+     *
+     * @param key Kafka record key, which decides the partition and so the ordering
+     */
+    public Mono<Void> append(String topic, String key, Object event) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(event))
+                .flatMap(payload -> {
+                    DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(INSERT_EVENT)
+                            .bind("topic", topic)
+                            .bind("eventType", event.getClass().getName())
+                            .bind("payload", payload);
+                    insert = key != null ? insert.bind("eventKey", key) : insert.bindNull("eventKey", String.class);
+                    return insert.then();
+                })
+                .doOnSuccess(v -> log.debug("Recorded {} for topic {} with key {}",
+                        event.getClass().getSimpleName(), topic, key));
+    }
+}
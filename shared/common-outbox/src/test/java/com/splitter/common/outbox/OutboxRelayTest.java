@@ -0,0 +1,118 @@
+package com.splitter.common.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxRelayTest {
+
+    private final List<Long> markedSent = new ArrayList<>();
+    private final Map<Long, Boolean> markedFailed = new LinkedHashMap<>();
+
+    @Test
+    void failedSendDoesNotHoldBackTheRestOfTheBatch() {
+        OutboxRelay relay = relay(record -> "2".equals(record.key())
+                ? CompletableFuture.failedFuture(new RecordTooLargeException("too large"))
+                : acknowledged(record));
+
+        Integer sent = relay.publish(events(1, 2, 3, 4)).block();
+
+        assertThat(sent).isEqualTo(3);
+        assertThat(markedSent).containsExactly(1L, 3L, 4L);
+        assertThat(markedFailed).containsExactly(Map.entry(2L, true));
+    }
+
+    @Test
+    void retriableFailuresAreNotCountedAsAttempts() {
+        OutboxRelay relay = relay(record -> "1".equals(record.key())
+                ? CompletableFuture.failedFuture(new CompletionException(new TimeoutException("broker unavailable")))
+                : acknowledged(record));
+
+        Integer sent = relay.publish(events(1, 2)).block();
+
+        assertThat(sent).isEqualTo(1);
+        assertThat(markedSent).containsExactly(2L);
+        assertThat(markedFailed).containsExactly(Map.entry(1L, false));
+    }
+
+    @Test
+    void sendThatThrowsIsRecordedAsAFailedAttempt() {
+        OutboxRelay relay = relay(record -> {
+            if ("3".equals(record.key())) {
+                throw new SerializationException("cannot serialize");
+            }
+            return acknowledged(record);
+        });
+
+        Integer sent = relay.publish(events(1, 2, 3)).block();
+
+        assertThat(sent).isEqualTo(2);
+        assertThat(markedSent).containsExactly(1L, 2L);
+        assertThat(markedFailed).containsExactly(Map.entry(3L, true));
+    }
+
+    @Test
+    void batchWithEveryEventFailingSendsNothing() {
+        OutboxRelay relay = relay(record -> CompletableFuture.failedFuture(new RecordTooLargeException("too large")));
+
+        Integer sent = relay.publish(events(1, 2)).block();
+
+        assertThat(sent).isZero();
+        assertThat(markedSent).isEmpty();
+        assertThat(markedFailed).containsOnlyKeys(1L, 2L);
+    }
+
+    private OutboxRelay relay(Function<ProducerRecord<String, byte[]>, CompletableFuture<SendResult<String, byte[]>>> sender) {
+        KafkaTemplate<String, byte[]> kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of())) {
+            @Override
+            public CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+                return sender.apply(record);
+            }
+        };
+        return new OutboxRelay(null, null, kafkaTemplate, new SimpleMeterRegistry(),
+                1L, 500, 3, Duration.ofSeconds(1), Duration.ofMinutes(10), 72) {
+            @Override
+            Mono<Void> markSent(List<Long> ids) {
+                markedSent.addAll(ids);
+                return Mono.empty();
+            }
+
+            @Override
+            Mono<Void> markFailed(OutboxEvent event, String error, boolean counted) {
+                markedFailed.put(event.id(), counted);
+                return Mono.empty();
+            }
+        };
+    }
+
+    private static CompletableFuture<SendResult<String, byte[]>> acknowledged(ProducerRecord<String, byte[]> record) {
+        return CompletableFuture.completedFuture(new SendResult<>(record, null));
+    }
+
+    private static List<OutboxRelay.OutboxEvent> events(long... ids) {
+        List<OutboxRelay.OutboxEvent> events = new ArrayList<>();
+        for (long id : ids) {
+            events.add(new OutboxRelay.OutboxEvent(id, "expense-events", String.valueOf(id),
+                    "com.splitter.common.events.expense.ExpenseCreatedEvent", "{}"));
+        }
+        return events;
+    }
+}
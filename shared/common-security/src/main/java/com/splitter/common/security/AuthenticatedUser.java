@@ -62,4 +62,11 @@ public class AuthenticatedUser {
     public boolean isAdmin() {
         return hasRole("ADMIN");
     }
+
+    /**
+     * Whether the caller is another service rather than a user.
+     */
+    public boolean isService() {
+        return hasRole("SERVICE");
+    }
 }
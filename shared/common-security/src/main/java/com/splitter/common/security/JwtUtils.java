@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -50,6 +51,25 @@ public class JwtUtils {
                 .compact();
     }
 
+    /**
+     * Generates a short-lived token for calls from one service to another. It carries only
+     * the SERVICE role, with a stable subject derived from the service name.
+     */
+    public String generateServiceToken(String serviceName, Duration ttl) {
+        Instant now = Instant.now();
+        UUID serviceId = UUID.nameUUIDFromBytes(("service:" + serviceName).getBytes(StandardCharsets.UTF_8));
+
+        return Jwts.builder()
+                .subject(serviceId.toString())
+                .claim("name", serviceName)
+                .claim("roles", List.of("SERVICE"))
+                .claim("groups", List.of())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(ttl)))
+                .signWith(secretKey)
+                .compact();
+    }
+
     /**
      * Validates a JWT token and returns the claims.
      */
@@ -44,6 +44,15 @@ public final class SecurityUtils {
                 .defaultIfEmpty(false);
     }
 
+    /**
+     * Checks if the current caller is an admin or another service.
+     */
+    public static Mono<Boolean> isAdminOrService() {
+        return getCurrentUser()
+                .map(user -> user.isAdmin() || user.isService())
+                .defaultIfEmpty(false);
+    }
+
     /**
      * Checks if the current user is a member of a specific group.
      */